@@ -0,0 +1,71 @@
+package com.xinyan.benchmark;
+
+import com.xinyan.SpringBootRedisIntegrationApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基准测试运行环境：内嵌Redis + 非Web的Spring上下文
+ * 系统属性：benchmark.redis.port(默认16379)、benchmark.redis.embedded(默认true，false时连接已有的Redis)
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+public class BenchmarkContext implements AutoCloseable {
+
+    private final RedisServer redisServer;
+
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkContext(RedisServer redisServer, ConfigurableApplicationContext context) {
+        this.redisServer = redisServer;
+        this.context = context;
+    }
+
+    /**
+     * 启动内嵌Redis和Spring上下文
+     *
+     * @param properties 额外的配置，格式为key=value
+     * @return 运行环境
+     */
+    public static BenchmarkContext start(String... properties) throws IOException {
+        int port = Integer.getInteger("benchmark.redis.port", 16379);
+        RedisServer redisServer = null;
+        if (Boolean.parseBoolean(System.getProperty("benchmark.redis.embedded", "true"))) {
+            redisServer = RedisServer.newRedisServer()
+                    .port(port)
+                    .setting("save \"\"")
+                    .setting("appendonly no")
+                    .build();
+            redisServer.start();
+        }
+        List<String> args = new ArrayList<>();
+        args.add("spring.redis.port=" + port);
+        args.add("logging.level.root=WARN");
+        args.addAll(Arrays.asList(properties));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBootRedisIntegrationApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(args.toArray(new String[0]))
+                .run();
+        return new BenchmarkContext(redisServer, context);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+}
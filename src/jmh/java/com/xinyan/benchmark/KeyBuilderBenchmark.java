@@ -0,0 +1,68 @@
+package com.xinyan.benchmark;
+
+import com.xinyan.common.RedisTypeEnum;
+import com.xinyan.common.SymbolEnum;
+import com.xinyan.serializer.Utf8StringRedisSerializer;
+import com.xinyan.service.RedisKeyGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * key生成与编码基准测试，建议加上"-prof gc"查看gc.alloc.rate.norm(B/op)
+ * legacy为原getKey(StringBuilder拼接) + StringRedisSerializer的实现
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyBuilderBenchmark {
+
+    private final String env = "default";
+
+    private final String applicationName = "spring-boot-redis-integration";
+
+    private final String key = "user:session:9a1b7c3e5f";
+
+    private final StringRedisSerializer stringRedisSerializer = new StringRedisSerializer();
+
+    private final Utf8StringRedisSerializer utf8StringRedisSerializer = new Utf8StringRedisSerializer();
+
+    private final RedisKeyGenerator redisKeyGenerator = new RedisKeyGenerator(env, applicationName);
+
+    @Benchmark
+    public byte[] legacy() {
+        String fullKey = new StringBuilder(env)
+                .append(SymbolEnum.COLON.getSymbol())
+                .append(applicationName)
+                .append(SymbolEnum.COLON.getSymbol())
+                .append(RedisTypeEnum.STRING.getType())
+                .append(SymbolEnum.COLON.getSymbol())
+                .append(key).toString();
+        return stringRedisSerializer.serialize(fullKey);
+    }
+
+    @Benchmark
+    public byte[] prefixed() {
+        return utf8StringRedisSerializer.serialize(redisKeyGenerator.getKey(RedisTypeEnum.STRING, key));
+    }
+
+    @Benchmark
+    public byte[] raw() {
+        return redisKeyGenerator.rawKey(RedisTypeEnum.STRING, key);
+    }
+}
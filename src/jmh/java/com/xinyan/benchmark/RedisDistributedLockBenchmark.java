@@ -0,0 +1,86 @@
+package com.xinyan.benchmark;
+
+import com.xinyan.service.RedisDistributedLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RedisDistributedLock基准测试
+ * uncontended为每个线程独立的锁，contended为所有线程竞争同一把锁(带等待)
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class RedisDistributedLockBenchmark {
+
+    private static final String SHARED_LOCK_KEY = "benchmark:lock:shared";
+
+    @State(Scope.Benchmark)
+    public static class Env {
+
+        BenchmarkContext context;
+
+        RedisDistributedLock distributedLock;
+
+        /**
+         * 是否先获取本地锁
+         */
+        @Param({"false", "true"})
+        String localFirst;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            context = BenchmarkContext.start("redis.lock.local-first=" + localFirst);
+            distributedLock = context.getBean(RedisDistributedLock.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadLock {
+
+        String lockKey;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            lockKey = "benchmark:lock:" + Thread.currentThread().getId();
+        }
+    }
+
+    @Benchmark
+    public boolean uncontended(Env env, ThreadLock threadLock) {
+        String token = env.distributedLock.tryLock(threadLock.lockKey, 10000);
+        return token != null && env.distributedLock.releaseLock(threadLock.lockKey, token);
+    }
+
+    @Benchmark
+    public boolean contended(Env env) {
+        String token = env.distributedLock.tryLock(SHARED_LOCK_KEY, 10000, 10000);
+        return token != null && env.distributedLock.releaseLock(SHARED_LOCK_KEY, token);
+    }
+}
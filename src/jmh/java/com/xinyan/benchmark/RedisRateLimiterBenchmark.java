@@ -0,0 +1,68 @@
+package com.xinyan.benchmark;
+
+import com.xinyan.service.RedisRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热点key限流的单次判断耗时：reserveSize=1时每个许可访问一次Redis，reserveSize=20时批量预留在本地消费
+ * 限额足够大，只测量放行路径
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisRateLimiterBenchmark {
+
+    private static final long LIMIT = 1000000000L;
+
+    @State(Scope.Benchmark)
+    public static class Env {
+
+        @Param({"1", "20"})
+        int reserveSize;
+
+        BenchmarkContext context;
+
+        RedisRateLimiter rateLimiter;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            context = BenchmarkContext.start("redis.rate-limiter.reserve-size=" + reserveSize);
+            rateLimiter = context.getBean(RedisRateLimiter.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public boolean slidingWindow(Env env) {
+        return env.rateLimiter.tryAcquireSlidingWindow("benchmark:hot", LIMIT, 1000);
+    }
+
+    @Benchmark
+    public boolean tokenBucket(Env env) {
+        return env.rateLimiter.tryAcquireTokenBucket("benchmark:hot", LIMIT, LIMIT);
+    }
+}
@@ -0,0 +1,119 @@
+package com.xinyan.benchmark;
+
+import com.xinyan.service.RedisDistributedLock;
+import com.xinyan.service.RedisReadWriteLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读多写少(9个读线程/1个写线程，即90/10)时互斥锁与读写锁的吞吐对比
+ * exclusive组读写都使用RedisDistributedLock，readWrite组读使用读锁、写使用写锁，临界区耗时相同
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisReadWriteLockBenchmark {
+
+    private static final long LEASE_MILLIS = 10000;
+
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    /**
+     * 临界区耗时(模拟读库存等IO)，单位：毫秒
+     */
+    private static final long WORK_MILLIS = 1;
+
+    @State(Scope.Benchmark)
+    public static class Env {
+
+        BenchmarkContext context;
+
+        RedisDistributedLock distributedLock;
+
+        RedisReadWriteLock readWriteLock;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            context = BenchmarkContext.start();
+            distributedLock = context.getBean(RedisDistributedLock.class);
+            readWriteLock = context.getBean(RedisReadWriteLock.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    @Group("exclusive")
+    @GroupThreads(9)
+    public void exclusiveRead(Env env) {
+        exclusive(env, "benchmark:rw:exclusive");
+    }
+
+    @Benchmark
+    @Group("exclusive")
+    @GroupThreads(1)
+    public void exclusiveWrite(Env env) {
+        exclusive(env, "benchmark:rw:exclusive");
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(9)
+    public void readWriteRead(Env env) {
+        String token = env.readWriteLock.tryReadLock("benchmark:rw:shared", LEASE_MILLIS, TIMEOUT_MILLIS);
+        if (token != null) {
+            work();
+            env.readWriteLock.releaseReadLock("benchmark:rw:shared", token);
+        }
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void readWriteWrite(Env env) {
+        String token = env.readWriteLock.tryWriteLock("benchmark:rw:shared", LEASE_MILLIS, TIMEOUT_MILLIS);
+        if (token != null) {
+            work();
+            env.readWriteLock.releaseWriteLock("benchmark:rw:shared", token);
+        }
+    }
+
+    private static void work() {
+        try {
+            Thread.sleep(WORK_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void exclusive(Env env, String lockKey) {
+        String token = env.distributedLock.tryLock(lockKey, LEASE_MILLIS, TIMEOUT_MILLIS);
+        if (token != null) {
+            work();
+            env.distributedLock.releaseLock(lockKey, token);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.xinyan.benchmark;
+
+import com.xinyan.service.RedisService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RedisService热点操作基准测试
+ * Throughput给出吞吐，SampleTime给出p50/p90/p99等延迟分位，加"-prof gc"查看分配速率
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class RedisServiceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Env {
+
+        BenchmarkContext context;
+
+        RedisService redisService;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            context = BenchmarkContext.start();
+            redisService = context.getBean(RedisService.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Keys {
+
+        String key;
+
+        List<String> mgetKeys;
+
+        Map<String, String> hash;
+
+        @Setup(Level.Trial)
+        public void setUp(Env env) {
+            key = "benchmark:" + Thread.currentThread().getId();
+            mgetKeys = new ArrayList<>(10);
+            for (int i = 0; i < 10; i++) {
+                mgetKeys.add(key + ":" + i);
+                env.redisService.set(key + ":" + i, "value-" + i);
+            }
+            hash = new HashMap<>(16);
+            for (int i = 0; i < 10; i++) {
+                hash.put("field-" + i, "value-" + i);
+            }
+        }
+    }
+
+    @Benchmark
+    public String setGet(Env env, Keys keys) {
+        env.redisService.set(keys.key, "world!");
+        return env.redisService.get(keys.key);
+    }
+
+    @Benchmark
+    public List<String> mget(Env env, Keys keys) {
+        return env.redisService.mget(keys.mgetKeys);
+    }
+
+    @Benchmark
+    public Map<String, String> hmsetHgetAll(Env env, Keys keys) {
+        env.redisService.hmset(keys.key, keys.hash);
+        return env.redisService.hgetAll(keys.key);
+    }
+
+    @Benchmark
+    public String rPushAllLPop(Env env, Keys keys) {
+        env.redisService.rPushAll(keys.key, Collections.singletonList("job"));
+        return env.redisService.lPopTyped(keys.key);
+    }
+}
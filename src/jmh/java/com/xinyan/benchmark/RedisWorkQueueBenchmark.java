@@ -0,0 +1,89 @@
+package com.xinyan.benchmark;
+
+import com.xinyan.queue.QueueMessage;
+import com.xinyan.queue.RedisWorkQueue;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 工作队列吞吐：每次批量出队batchSize个消息并批量确认，items为每秒处理的消息数
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisWorkQueueBenchmark {
+
+    private static final String QUEUE = "benchmark-queue";
+
+    private static final int REFILL_SIZE = 10000;
+
+    @State(Scope.Benchmark)
+    public static class Env {
+
+        @Param({"1", "10", "100"})
+        int batchSize;
+
+        BenchmarkContext context;
+
+        RedisWorkQueue workQueue;
+
+        List<Integer> refill;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            context = BenchmarkContext.start();
+            workQueue = context.getBean(RedisWorkQueue.class);
+            workQueue.clear(QUEUE);
+            refill = new ArrayList<>(REFILL_SIZE);
+            for (int i = 0; i < REFILL_SIZE; i++) {
+                refill.add(i);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            workQueue.clear(QUEUE);
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+
+        public long items;
+    }
+
+    @Benchmark
+    public void dequeueAndAck(Env env, Counters counters) {
+        List<QueueMessage<Integer>> messages = env.workQueue.dequeue(QUEUE, env.batchSize, 30000);
+        if (messages.isEmpty()) {
+            env.workQueue.enqueue(QUEUE, env.refill);
+            return;
+        }
+        env.workQueue.ack(messages);
+        counters.items += messages.size();
+    }
+}
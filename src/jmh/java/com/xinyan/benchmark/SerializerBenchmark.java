@@ -0,0 +1,99 @@
+package com.xinyan.benchmark;
+
+import com.xinyan.common.SerializerModeEnum;
+import com.xinyan.config.RedisConfig;
+import com.xinyan.domain.Person;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 值序列化器基准测试：JSON(带类名) vs Smile(类ID)
+ * 耗时见JMH结果(ns/op)，serialize的序列化字节数以辅助计数器serializedBytes(bytes/op)一并输出
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializerBenchmark {
+
+    @Param({"JSON", "SMILE"})
+    public SerializerModeEnum mode;
+
+    @Param({"person", "map"})
+    public String payload;
+
+    private RedisSerializer<Object> serializer;
+
+    private Object value;
+
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        serializer = RedisConfig.createValueSerializer(mode);
+        value = "person".equals(payload) ? person() : map();
+        bytes = serializer.serialize(value);
+    }
+
+    /**
+     * 序列化字节数，每次操作覆盖写入(而非累加)，结果即为单次操作的字节数
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+
+        public long serializedBytes;
+    }
+
+    @Benchmark
+    public byte[] serialize(Size size) {
+        byte[] serialized = serializer.serialize(value);
+        size.serializedBytes = serialized.length;
+        return serialized;
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes);
+    }
+
+    static Person person() {
+        return new Person("9a1b7c3e5f", "weimin", "ruan", 24);
+    }
+
+    static Map<String, Object> map() {
+        Map<String, Object> map = new HashMap<>(16);
+        map.put("userId", 10086L);
+        map.put("userName", "weimin_ruan");
+        map.put("mobile", "13800000000");
+        map.put("status", 1);
+        map.put("vip", Boolean.TRUE);
+        map.put("balance", 1024.5D);
+        map.put("city", "shanghai");
+        map.put("channel", "app");
+        map.put("createTime", 1561017600000L);
+        map.put("person", person());
+        return map;
+    }
+}
@@ -0,0 +1,79 @@
+package com.xinyan.cache;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.Assert;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * BatchCacheable拦截器，合并缓存命中结果与未命中ID的批量加载结果
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+public class BatchCacheInterceptor implements MethodInterceptor {
+
+    private final CacheManager cacheManager;
+
+    public BatchCacheInterceptor(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        BatchCacheable batchCacheable = AnnotatedElementUtils.findMergedAnnotation(method, BatchCacheable.class);
+        if (batchCacheable == null) {
+            return invocation.proceed();
+        }
+        Assert.state(Map.class.isAssignableFrom(method.getReturnType()), "@BatchCacheable method must return a Map: " + method);
+        Cache cache = cacheManager.getCache(batchCacheable.cacheName());
+        Assert.state(cache instanceof RedisServiceCache, "@BatchCacheable requires a RedisServiceCache: " + batchCacheable.cacheName());
+        RedisServiceCache redisCache = (RedisServiceCache) cache;
+
+        int index = batchCacheable.keysIndex();
+        Collection<?> ids = (Collection<?>) invocation.getArguments()[index];
+        if (ids == null || ids.isEmpty()) {
+            return invocation.proceed();
+        }
+        Map<Object, Object> hits = redisCache.getAll(ids);
+        List<Object> misses = new ArrayList<>();
+        for (Object id : ids) {
+            if (!hits.containsKey(id)) {
+                misses.add(id);
+            }
+        }
+        Map<?, ?> loaded = null;
+        if (!misses.isEmpty()) {
+            Assert.state(invocation instanceof ProxyMethodInvocation, "@BatchCacheable requires a proxy invocation");
+            // 只以未命中的ID继续调用
+            Object[] arguments = invocation.getArguments().clone();
+            arguments[index] = Set.class.isAssignableFrom(method.getParameterTypes()[index]) ? new LinkedHashSet<>(misses) : misses;
+            loaded = (Map<?, ?>) ((ProxyMethodInvocation) invocation).invocableClone(arguments).proceed();
+            if (loaded != null) {
+                redisCache.putAll(loaded);
+            }
+        }
+        // 按请求的ID顺序返回
+        Map<Object, Object> result = new LinkedHashMap<>(ids.size() * 2);
+        for (Object id : ids) {
+            Object value = hits.containsKey(id) ? hits.get(id) : loaded == null ? null : loaded.get(id);
+            if (value != null) {
+                result.put(id, value);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,31 @@
+package com.xinyan.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 批量缓存：方法参数为ID集合、返回值为ID到结果的Map
+ * 先以一次MGET读取全部ID，只以未命中的ID调用方法(一次批量加载)，结果批量写回缓存，消除逐个查询缓存的N+1问题。
+ * ID集合参数的类型须为Collection、List或Set；方法未返回的ID不缓存。
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface BatchCacheable {
+
+    /**
+     * 缓存名称
+     */
+    String cacheName();
+
+    /**
+     * ID集合参数的位置
+     */
+    int keysIndex() default 0;
+}
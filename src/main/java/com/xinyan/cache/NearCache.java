@@ -0,0 +1,334 @@
+package com.xinyan.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.xinyan.common.InvalidationModeEnum;
+import com.xinyan.common.SymbolEnum;
+import com.xinyan.service.RedisKeyGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 进程内近端缓存(L1)，位于RedisService之后、Redis之前
+ * 容量与过期时间有界，淘汰策略为Caffeine的W-TinyLFU，每个条目的存活时间不超过回填时key在Redis中的剩余TTL；
+ * 其他节点写入同一key时，通过发布订阅消息或Redis键空间通知失效本地副本。
+ * 注意：命中时返回的是缓存中的同一对象实例，调用方不应修改。
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Component
+@ConditionalOnProperty(prefix = "redis.near-cache", name = "enabled", havingValue = "true")
+@Slf4j
+public class NearCache implements MessageListener {
+
+    /**
+     * 失效版本号分段数，必须为2的幂
+     */
+    private static final int STAMP_STRIPES = 64;
+
+    private static final String KEYSPACE_CHANNEL_PREFIX = "__keyspace@%d__:";
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private RedisKeyGenerator redisKeyGenerator;
+
+    @Value("${spring.redis.database:0}")
+    private int database;
+
+    /**
+     * 最大容量，Hash按field个数计算权重
+     */
+    @Value("${redis.near-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    /**
+     * 写入后过期时间，单位：秒，key在Redis中的剩余TTL更短时以TTL为准
+     */
+    @Value("${redis.near-cache.expire-after-write:60}")
+    private long expireAfterWrite;
+
+    @Value("${redis.near-cache.invalidation-mode:PUBSUB}")
+    private InvalidationModeEnum invalidationMode;
+
+    private Cache<String, Object> cache;
+
+    /**
+     * 分段失效版本号：读Redis前取版本号，回填时版本号变化说明期间发生过失效，放弃回填
+     */
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+
+    private String channel;
+
+    /**
+     * 失效消息格式为"节点ID:key"，忽略本节点发出的消息，避免回填后被自身的写消息误失效
+     */
+    private final String instanceId = UUID.randomUUID().toString().replace("-", "");
+
+    private String keyspacePrefix;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maximumSize)
+                .weigher((String key, Object value) -> value instanceof HashFields ? Math.max(1, ((HashFields) value).size()) : 1)
+                .expireAfter(new TtlExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "redisNearCache");
+
+        String namespace = redisKeyGenerator.getNamespace();
+        if (invalidationMode == InvalidationModeEnum.KEYSPACE) {
+            keyspacePrefix = String.format(KEYSPACE_CHANNEL_PREFIX, database);
+            redisMessageListenerContainer.addMessageListener(this, new PatternTopic(keyspacePrefix + namespace + SymbolEnum.STAR.getSymbol()));
+        } else {
+            channel = namespace + "near-cache" + SymbolEnum.COLON.getSymbol() + "invalidation";
+            redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(channel));
+        }
+        log.info("near cache enabled, maximumSize: {}, expireAfterWrite: {}s, invalidationMode: {}", maximumSize, expireAfterWrite, invalidationMode);
+    }
+
+    /**
+     * 获取本地缓存的值
+     *
+     * @param key Redis中存储的key
+     * @return 未命中返回null
+     */
+    public Object get(String key) {
+        Object value = cache.getIfPresent(key);
+        return value instanceof Entry ? ((Entry) value).value : null;
+    }
+
+    /**
+     * 获取本地缓存的Hash域值
+     *
+     * @param key   Hash表的key
+     * @param field Hash表中的域field
+     * @return 未命中返回null
+     */
+    public Object getField(String key, String field) {
+        Object value = cache.getIfPresent(key);
+        return value instanceof HashFields ? ((HashFields) value).get(field) : null;
+    }
+
+    /**
+     * 读Redis前获取key的失效版本号
+     *
+     * @param key Redis中存储的key
+     * @return 版本号
+     */
+    public long stamp(String key) {
+        return stamps.get(stripe(key));
+    }
+
+    /**
+     * 回填本地缓存，期间key发生过失效则放弃
+     *
+     * @param key       Redis中存储的key
+     * @param value     值，null不缓存
+     * @param stamp     读Redis前获取的版本号
+     * @param ttlMillis key在Redis中的剩余过期时间(PTTL)，单位：毫秒，小于0表示永不过期
+     */
+    public void put(String key, Object value, long stamp, long ttlMillis) {
+        if (value == null || !cacheable(ttlMillis)) {
+            return;
+        }
+        Entry entry = new Entry(value, expireNanos(ttlMillis));
+        cache.asMap().compute(key, (k, v) -> stamp == stamp(k) ? entry : v);
+    }
+
+    /**
+     * 回填本地缓存的Hash域值，期间key发生过失效则放弃
+     *
+     * @param key   Hash表的key
+     * @param field Hash表中的域field
+     * @param value     值，null不缓存
+     * @param stamp     读Redis前获取的版本号
+     * @param ttlMillis Hash表在Redis中的剩余过期时间(PTTL)，单位：毫秒，小于0表示永不过期
+     */
+    public void putField(String key, String field, Object value, long stamp, long ttlMillis) {
+        if (value == null || !cacheable(ttlMillis)) {
+            return;
+        }
+        long expireNanos = expireNanos(ttlMillis);
+        cache.asMap().compute(key, (k, v) -> {
+            if (stamp != stamp(k)) {
+                return v;
+            }
+            HashFields fields = v instanceof HashFields ? (HashFields) v : new HashFields();
+            fields.put(field, value);
+            fields.expireNanos = expireNanos;
+            return fields;
+        });
+    }
+
+    /**
+     * 失效本节点的key，并通知其他节点
+     *
+     * @param key Redis中存储的key
+     */
+    public void evict(String key) {
+        evictLocal(key);
+        if (channel != null) {
+            stringRedisTemplate.convertAndSend(channel, invalidationMessage(key));
+        }
+    }
+
+    /**
+     * 批量失效本节点的key，并以管道方式通知其他节点
+     *
+     * @param keys Redis中存储的key列表
+     */
+    public void evict(Collection<String> keys) {
+        for (String key : keys) {
+            evictLocal(key);
+        }
+        if (channel != null && !keys.isEmpty()) {
+            byte[] rawChannel = channel.getBytes(StandardCharsets.UTF_8);
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String key : keys) {
+                    connection.publish(rawChannel, invalidationMessage(key).getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * 仅失效本节点的key
+     *
+     * @param key Redis中存储的key
+     */
+    public void evictLocal(String key) {
+        stamps.incrementAndGet(stripe(key));
+        cache.invalidate(key);
+    }
+
+    /**
+     * 发布订阅模式下的失效通知频道，键空间通知模式下为null
+     */
+    public String getChannel() {
+        return channel;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        if (keyspacePrefix != null) {
+            evictLocal(new String(message.getChannel(), StandardCharsets.UTF_8).substring(keyspacePrefix.length()));
+            return;
+        }
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int index = body.indexOf(SymbolEnum.COLON.getSymbol());
+        if (index < 0 || !instanceId.equals(body.substring(0, index))) {
+            evictLocal(body.substring(index + 1));
+        }
+    }
+
+    /**
+     * 失效消息内容，供非阻塞客户端自行发布
+     *
+     * @param key Redis中存储的key
+     * @return 节点ID:key
+     */
+    public String invalidationMessage(String key) {
+        return instanceId + SymbolEnum.COLON.getSymbol() + key;
+    }
+
+    /**
+     * PTTL为-2(key不存在)或已到期时不回填
+     */
+    private boolean cacheable(long ttlMillis) {
+        return ttlMillis == -1 || ttlMillis > 0;
+    }
+
+    /**
+     * 条目的存活时间，取expire-after-write与Redis剩余TTL中较小者
+     */
+    private long expireNanos(long ttlMillis) {
+        long maxNanos = TimeUnit.SECONDS.toNanos(expireAfterWrite);
+        return ttlMillis < 0 ? maxNanos : Math.min(maxNanos, TimeUnit.MILLISECONDS.toNanos(ttlMillis));
+    }
+
+    private int stripe(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STAMP_STRIPES - 1);
+    }
+
+    /**
+     * String在本地缓存中的值及其存活时间
+     */
+    private static class Entry {
+
+        private final Object value;
+
+        private final long expireNanos;
+
+        Entry(Object value, long expireNanos) {
+            this.value = value;
+            this.expireNanos = expireNanos;
+        }
+    }
+
+    /**
+     * Hash表在本地缓存中的域值容器，各域共用Hash表的存活时间，以最近一次回填时的TTL为准
+     */
+    private static class HashFields extends ConcurrentHashMap<String, Object> {
+        private static final long serialVersionUID = 1L;
+
+        private transient volatile long expireNanos;
+    }
+
+    /**
+     * 按回填时记录的存活时间过期，读取不延长存活时间
+     */
+    private static class TtlExpiry implements Expiry<String, Object> {
+
+        @Override
+        public long expireAfterCreate(String key, Object value, long currentTime) {
+            return expireNanos(value);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Object value, long currentTime, long currentDuration) {
+            return expireNanos(value);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        private static long expireNanos(Object value) {
+            return value instanceof HashFields ? ((HashFields) value).expireNanos : ((Entry) value).expireNanos;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.xinyan.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Spring Cache配置，前缀redis.cache
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Data
+@ConfigurationProperties(prefix = "redis.cache")
+public class RedisCacheProperties {
+
+    /**
+     * 是否启用基于RedisService的CacheManager
+     */
+    private boolean enabled;
+
+    /**
+     * 默认过期时间，单位：秒，小于等于0表示不过期
+     */
+    private long defaultTtl = 3600;
+
+    /**
+     * 各缓存的过期时间，key为缓存名称，单位：秒；配置的缓存在启动时创建
+     */
+    private Map<String, Long> ttls = new HashMap<>();
+}
@@ -0,0 +1,195 @@
+package com.xinyan.cache;
+
+import com.xinyan.common.RedisEntry;
+import com.xinyan.common.RedisTypeEnum;
+import com.xinyan.common.SymbolEnum;
+import com.xinyan.service.RedisService;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 基于RedisService的Spring Cache实现
+ * 缓存项以String结构存储，key为"缓存名称:key"，经RedisService统一加命名空间前缀，并经过近端缓存(启用时)。
+ * 不缓存null值；get(key, valueLoader)同一节点同一key只有一个线程执行加载(@Cacheable(sync = true))，跨节点不互斥；
+ * putIfAbsent不是原子操作。
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+public class RedisServiceCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+
+    private final long ttl;
+
+    private final RedisService redisService;
+
+    /**
+     * 本节点正在加载的key，同一key只有一个线程加载，其余线程等待其结果
+     */
+    private final ConcurrentMap<Object, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * @param name         缓存名称
+     * @param ttl          过期时间，单位：秒，小于等于0表示不过期
+     * @param redisService 读写缓存项
+     */
+    public RedisServiceCache(String name, long ttl, RedisService redisService) {
+        super(false);
+        this.name = name;
+        this.ttl = ttl;
+        this.redisService = redisService;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return redisService;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        return redisService.getObjectByKey(cacheKey(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = lookup(key);
+        if (value != null) {
+            return (T) value;
+        }
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            return (T) await(existing);
+        }
+        try {
+            // 获得加载权之前其他线程可能刚完成加载
+            value = lookup(key);
+            if (value == null) {
+                value = load(key, valueLoader);
+                put(key, value);
+            }
+            future.complete(value);
+            return (T) value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    private static Object load(Object key, Callable<?> valueLoader) {
+        try {
+            return valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        if (ttl > 0) {
+            redisService.setObjectByKey(cacheKey(key), value, ttl);
+        } else {
+            redisService.msetWithExpire(Collections.singletonList(new RedisEntry<>(cacheKey(key), value, 0)));
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = get(key);
+        if (existing == null) {
+            put(key, value);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        redisService.delete(RedisTypeEnum.STRING, cacheKey(key));
+    }
+
+    @Override
+    public void clear() {
+        redisService.deleteByPattern(RedisTypeEnum.STRING, name + SymbolEnum.COLON.getSymbol() + SymbolEnum.STAR.getSymbol());
+    }
+
+    /**
+     * 批量读取，近端缓存(启用时)未命中的key一次MGET
+     *
+     * @param keys 缓存key集合
+     * @return 命中的缓存项，按keys的迭代顺序
+     */
+    public Map<Object, Object> getAll(Collection<?> keys) {
+        List<Object> keyList = new ArrayList<>(keys);
+        List<String> cacheKeys = new ArrayList<>(keyList.size());
+        for (Object key : keyList) {
+            cacheKeys.add(cacheKey(key));
+        }
+        // 值类型不一定实现Serializable，以通配符接收避免强制转换
+        List<?> values = redisService.<Serializable>mgetObject(cacheKeys);
+        Map<Object, Object> hits = new LinkedHashMap<>();
+        for (int i = 0; i < keyList.size(); i++) {
+            if (values.get(i) != null) {
+                hits.put(keyList.get(i), values.get(i));
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * 批量写入，管道执行，null值不缓存
+     *
+     * @param values 缓存项
+     */
+    public void putAll(Map<?, ?> values) {
+        List<RedisEntry<Object>> entries = new ArrayList<>(values.size());
+        for (Map.Entry<?, ?> entry : values.entrySet()) {
+            if (entry.getValue() != null) {
+                entries.add(new RedisEntry<>(cacheKey(entry.getKey()), entry.getValue(), ttl));
+            }
+        }
+        if (!entries.isEmpty()) {
+            redisService.msetWithExpire(entries);
+        }
+    }
+
+    private String cacheKey(Object key) {
+        return name + SymbolEnum.COLON.getSymbol() + key;
+    }
+}
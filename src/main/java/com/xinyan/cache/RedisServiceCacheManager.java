@@ -0,0 +1,46 @@
+package com.xinyan.cache;
+
+import com.xinyan.service.RedisService;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractCacheManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于RedisService的CacheManager，redis.cache.ttls中配置的缓存在启动时创建，其余缓存使用默认过期时间按需创建
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+public class RedisServiceCacheManager extends AbstractCacheManager {
+
+    private final RedisCacheProperties properties;
+
+    private final RedisService redisService;
+
+    public RedisServiceCacheManager(RedisCacheProperties properties, RedisService redisService) {
+        this.properties = properties;
+        this.redisService = redisService;
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        List<Cache> caches = new ArrayList<>(properties.getTtls().size());
+        for (Map.Entry<String, Long> entry : properties.getTtls().entrySet()) {
+            caches.add(createCache(entry.getKey(), entry.getValue()));
+        }
+        return caches;
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return createCache(name, properties.getDefaultTtl());
+    }
+
+    private RedisServiceCache createCache(String name, long ttl) {
+        return new RedisServiceCache(name, ttl, redisService);
+    }
+}
@@ -0,0 +1,36 @@
+package com.xinyan.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * getOrLoad写入Redis的缓存值，附带加载耗时与逻辑过期时间，用于提前刷新和过期后返回旧值
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheEnvelope<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 缓存值
+     */
+    private T value;
+
+    /**
+     * 加载耗时，单位：毫秒
+     */
+    private long delta;
+
+    /**
+     * 逻辑过期时间(客户端时间)，单位：毫秒
+     */
+    private long expireAt;
+}
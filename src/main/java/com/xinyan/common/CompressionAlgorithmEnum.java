@@ -0,0 +1,30 @@
+package com.xinyan.common;
+
+import lombok.Getter;
+
+/**
+ * 值压缩算法
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Getter
+public enum CompressionAlgorithmEnum {
+    /**
+     * JDK自带Deflate，压缩率较高
+     */
+    DEFLATE((byte) 0xC1),
+    /**
+     * LZ4，压缩率略低但速度快得多
+     */
+    LZ4((byte) 0xC2),
+    ;
+    /**
+     * 压缩数据首字节标记
+     */
+    private byte marker;
+
+    CompressionAlgorithmEnum(byte marker) {
+        this.marker = marker;
+    }
+}
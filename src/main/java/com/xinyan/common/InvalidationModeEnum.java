@@ -0,0 +1,27 @@
+package com.xinyan.common;
+
+import lombok.Getter;
+
+/**
+ * 本地缓存失效通知方式
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Getter
+public enum InvalidationModeEnum {
+    /**
+     * 写操作后由写入节点发布失效消息
+     */
+    PUBSUB("pubsub"),
+    /**
+     * 订阅Redis键空间通知，需服务端开启notify-keyspace-events
+     */
+    KEYSPACE("keyspace"),
+    ;
+    private String mode;
+
+    InvalidationModeEnum(String mode) {
+        this.mode = mode;
+    }
+}
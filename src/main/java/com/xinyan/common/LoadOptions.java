@@ -0,0 +1,44 @@
+package com.xinyan.common;
+
+import lombok.Data;
+
+/**
+ * getOrLoad加载选项
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Data
+public class LoadOptions {
+
+    /**
+     * 过期时间，单位：秒
+     */
+    private long timeout;
+
+    /**
+     * 过期后仍可返回旧值的时间，单位：秒，期间由后台线程刷新；0表示过期后同步加载
+     */
+    private long staleTimeout;
+
+    /**
+     * 提前刷新系数(XFetch的beta)，越大越早刷新；0表示不提前刷新
+     */
+    private double beta = 1.0;
+
+    /**
+     * 跨节点加载锁的等待时间，单位：毫秒，不超过60000，同一key同一时刻只有一个节点执行加载；0表示不加锁
+     * 等待超时时返回其他节点已写入的值，仍无值则抛出QueryTimeoutException
+     */
+    private long lockTimeout;
+
+    /**
+     * @param timeout 过期时间，单位：秒
+     * @return 默认选项：不返回旧值，beta为1.0，不加锁
+     */
+    public static LoadOptions of(long timeout) {
+        LoadOptions options = new LoadOptions();
+        options.setTimeout(timeout);
+        return options;
+    }
+}
@@ -0,0 +1,27 @@
+package com.xinyan.common;
+
+import lombok.Getter;
+
+/**
+ * 分布式锁等待方式
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Getter
+public enum LockWaitModeEnum {
+    /**
+     * 每50ms重试一次SET NX
+     */
+    SPIN("spin"),
+    /**
+     * 订阅锁释放消息，释放后立即唤醒，同一节点同一把锁只有一个线程访问Redis
+     */
+    PUBSUB("pubsub"),
+    ;
+    private String mode;
+
+    LockWaitModeEnum(String mode) {
+        this.mode = mode;
+    }
+}
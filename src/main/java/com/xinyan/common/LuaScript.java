@@ -0,0 +1,61 @@
+package com.xinyan.common;
+
+import lombok.Getter;
+import org.springframework.data.redis.connection.ReturnType;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 已注册的Lua脚本，脚本字节与SHA1在注册时计算一次
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Getter
+public class LuaScript {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * 脚本名称
+     */
+    private final String name;
+
+    /**
+     * 脚本内容(UTF-8)，EVALSHA找不到脚本时回退EVAL使用
+     */
+    private final byte[] script;
+
+    /**
+     * 脚本SHA1(十六进制)，即EVALSHA的参数
+     */
+    private final String sha1;
+
+    /**
+     * 返回值类型
+     */
+    private final ReturnType returnType;
+
+    public LuaScript(String name, String script, ReturnType returnType) {
+        this.name = name;
+        this.script = script.getBytes(StandardCharsets.UTF_8);
+        this.sha1 = sha1Hex(this.script);
+        this.returnType = returnType;
+    }
+
+    private static String sha1Hex(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(bytes);
+            char[] chars = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                chars[i * 2] = HEX[(digest[i] >> 4) & 0x0F];
+                chars[i * 2 + 1] = HEX[digest[i] & 0x0F];
+            }
+            return new String(chars);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not supported", e);
+        }
+    }
+}
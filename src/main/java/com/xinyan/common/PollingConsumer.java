@@ -0,0 +1,129 @@
+package com.xinyan.common;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * 拉取式消费者线程池，队列消费者与Stream消费组消费者共用
+ * 每个线程循环调用各自的Poller，创建或拉取出错(如Redis不可用)时等待后重试，线程只在停止时退出。
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Slf4j
+public abstract class PollingConsumer implements AutoCloseable {
+
+    /**
+     * 创建Poller或拉取出错后的等待时间，单位：毫秒
+     */
+    private static final long ERROR_BACKOFF_MILLIS = 1000;
+
+    private final String name;
+
+    private final int concurrency;
+
+    private final ExecutorService executor;
+
+    private volatile boolean running;
+
+    /**
+     * @param name        日志及线程名称，如"queue-orders"
+     * @param concurrency 线程数
+     */
+    protected PollingConsumer(String name, int concurrency) {
+        this.name = name;
+        this.concurrency = concurrency;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread thread = new Thread(r, "redis-" + name + "-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 启动全部线程
+     *
+     * @param pollers 按线程序号创建Poller，失败时等待后重新创建
+     */
+    protected void start(IntFunction<Poller> pollers) {
+        running = true;
+        for (int i = 0; i < concurrency; i++) {
+            int index = i;
+            executor.execute(() -> {
+                Poller poller = null;
+                try {
+                    while (running) {
+                        try {
+                            if (poller == null) {
+                                poller = pollers.apply(index);
+                            }
+                            poller.poll();
+                        } catch (Exception e) {
+                            log.error("{} poll error", name, e);
+                            sleep();
+                        }
+                    }
+                } finally {
+                    if (poller != null) {
+                        poller.close();
+                    }
+                }
+            });
+        }
+        log.info("{} consumer started, concurrency: {}", name, concurrency);
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(ERROR_BACKOFF_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    /**
+     * 停止拉取新消息，等待正在处理的批次完成(阻塞拉取最长等待一次阻塞时间)
+     *
+     * @param timeout 最长等待时间，单位：毫秒
+     * @return 是否全部线程已退出
+     */
+    public boolean stop(long timeout) throws InterruptedException {
+        running = false;
+        executor.shutdown();
+        return executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        stop(5000);
+    }
+
+    /**
+     * 单个消费线程的拉取逻辑
+     */
+    public interface Poller extends AutoCloseable {
+
+        /**
+         * 拉取并处理一批消息
+         */
+        void poll();
+
+        /**
+         * 线程退出时释放Poller持有的资源(如独占连接)
+         */
+        @Override
+        default void close() {
+        }
+    }
+}
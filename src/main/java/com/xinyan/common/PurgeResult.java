@@ -0,0 +1,32 @@
+package com.xinyan.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 按模式批量删除/设置过期的结果
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PurgeResult {
+
+    /**
+     * 扫描到的key数量
+     */
+    private long scanned;
+
+    /**
+     * 实际删除或设置过期成功的key数量
+     */
+    private long affected;
+
+    /**
+     * 耗时，单位：毫秒
+     */
+    private long elapsedMillis;
+}
@@ -0,0 +1,32 @@
+package com.xinyan.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量写入条目(key、值及独立的过期时间)
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RedisEntry<T> {
+
+    /**
+     * key
+     */
+    private String key;
+
+    /**
+     * 值
+     */
+    private T value;
+
+    /**
+     * 过期时间，单位：秒，小于等于0表示不过期
+     */
+    private long timeout;
+}
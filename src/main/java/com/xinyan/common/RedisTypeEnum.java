@@ -30,6 +30,10 @@ public enum RedisTypeEnum {
      * 有序集合
      */
     SORTED_SET("sorted_set"),
+    /**
+     * 流
+     */
+    STREAM("stream"),
     ;
     private String type;
 
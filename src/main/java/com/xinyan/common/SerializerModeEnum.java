@@ -0,0 +1,27 @@
+package com.xinyan.common;
+
+import lombok.Getter;
+
+/**
+ * Redis值序列化方式
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Getter
+public enum SerializerModeEnum {
+    /**
+     * Jackson JSON，带完整类名(兼容历史数据)
+     */
+    JSON("json"),
+    /**
+     * Jackson Smile二进制，类型以注册的类ID表示
+     */
+    SMILE("smile"),
+    ;
+    private String mode;
+
+    SerializerModeEnum(String mode) {
+        this.mode = mode;
+    }
+}
@@ -0,0 +1,48 @@
+package com.xinyan.config;
+
+import com.xinyan.cache.BatchCacheInterceptor;
+import com.xinyan.cache.BatchCacheable;
+import com.xinyan.cache.RedisCacheProperties;
+import com.xinyan.cache.RedisServiceCacheManager;
+import com.xinyan.service.RedisService;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+
+/**
+ * Spring Cache配置，redis.cache.enabled=true时启用
+ * 缓存读写经过RedisService(命名空间前缀、近端缓存)，并支持@BatchCacheable批量缓存
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(RedisCacheProperties.class)
+@ConditionalOnProperty(prefix = "redis.cache", name = "enabled", havingValue = "true")
+public class RedisCacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(RedisCacheProperties redisCacheProperties, RedisService redisService) {
+        return new RedisServiceCacheManager(redisCacheProperties, redisService);
+    }
+
+    /**
+     * 与@Cacheable相同，以基础设施Advisor的方式织入，由@EnableCaching注册的自动代理创建器应用，无需AspectJ
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public DefaultPointcutAdvisor batchCacheAdvisor(CacheManager cacheManager) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(BatchCacheable.class), new BatchCacheInterceptor(cacheManager));
+        advisor.setOrder(Integer.MAX_VALUE);
+        return advisor;
+    }
+}
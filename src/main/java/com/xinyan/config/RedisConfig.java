@@ -2,17 +2,36 @@ package com.xinyan.config;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectMapper.DefaultTyping;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.xinyan.common.CacheEnvelope;
+import com.xinyan.common.CompressionAlgorithmEnum;
+import com.xinyan.common.SerializerModeEnum;
+import com.xinyan.domain.Person;
+import com.xinyan.queue.QueueItem;
+import com.xinyan.serializer.CompressingRedisSerializer;
+import com.xinyan.serializer.SerializerClassRegistry;
+import com.xinyan.serializer.Utf8StringRedisSerializer;
+import com.xinyan.serializer.VersionedRedisSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.RedisSerializer;
-import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 
 /**
  * Redis配置类
@@ -25,31 +44,121 @@ public class RedisConfig {
     @Resource
     private LettuceConnectionFactory lettuceConnectionFactory;
 
+    /**
+     * 值序列化方式，切换前后写入的数据均可读取
+     */
+    @Value("${redis.serializer.mode:JSON}")
+    private SerializerModeEnum serializerMode;
+
+    /**
+     * 写入时是否压缩较大的值，关闭后已压缩的数据仍可读取
+     */
+    @Value("${redis.compression.enabled:false}")
+    private boolean compressionEnabled;
+
+    @Value("${redis.compression.algorithm:LZ4}")
+    private CompressionAlgorithmEnum compressionAlgorithm;
+
+    /**
+     * 压缩阈值，序列化后超过该字节数才压缩
+     */
+    @Value("${redis.compression.threshold:4096}")
+    private int compressionThreshold;
+
     /**
      * RedisTemplate配置
      */
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(LettuceConnectionFactory lettuceConnectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(LettuceConnectionFactory lettuceConnectionFactory,
+                                                       RedisSerializer<Object> redisValueSerializer) {
         // 设置序列化
-        RedisSerializer<?> stringSerializer = new StringRedisSerializer();
-        Jackson2JsonRedisSerializer<Object> jackson2JsonRedisSerializer = new Jackson2JsonRedisSerializer<>(Object.class);
-        ObjectMapper om = new ObjectMapper();
-        om.setVisibility(PropertyAccessor.ALL, Visibility.ANY);
-        om.enableDefaultTyping(DefaultTyping.NON_FINAL);
-        jackson2JsonRedisSerializer.setObjectMapper(om);
+        RedisSerializer<?> stringSerializer = new Utf8StringRedisSerializer();
         // 配置redisTemplate
         RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
         redisTemplate.setConnectionFactory(lettuceConnectionFactory);
         // key序列化
         redisTemplate.setKeySerializer(stringSerializer);
         // value序列化
-        redisTemplate.setValueSerializer(jackson2JsonRedisSerializer);
+        redisTemplate.setValueSerializer(redisValueSerializer);
         // Hash key序列化
         redisTemplate.setHashKeySerializer(stringSerializer);
         // Hash value序列化
-        redisTemplate.setHashValueSerializer(jackson2JsonRedisSerializer);
+        redisTemplate.setHashValueSerializer(redisValueSerializer);
         redisTemplate.afterPropertiesSet();
         return redisTemplate;
     }
 
+    /**
+     * ReactiveRedisTemplate配置，序列化方式与redisTemplate一致
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, Object> reactiveRedisTemplate(LettuceConnectionFactory lettuceConnectionFactory,
+                                                                       RedisSerializer<Object> redisValueSerializer) {
+        RedisSerializer<String> stringSerializer = new Utf8StringRedisSerializer();
+        RedisSerializationContext<String, Object> serializationContext = RedisSerializationContext
+                .<String, Object>newSerializationContext(stringSerializer)
+                .value(redisValueSerializer)
+                .hashValue(redisValueSerializer)
+                .build();
+        return new ReactiveRedisTemplate<>(lettuceConnectionFactory, serializationContext);
+    }
+
+    /**
+     * 值序列化器，RedisTemplate的value与Hash value共用
+     */
+    @Bean
+    public RedisSerializer<Object> redisValueSerializer(MeterRegistry meterRegistry) {
+        // 始终安装压缩包装以便读取已压缩的数据，开关只控制写入时是否压缩
+        return new CompressingRedisSerializer(createValueSerializer(serializerMode), compressionAlgorithm,
+                compressionThreshold, compressionEnabled, meterRegistry);
+    }
+
+    /**
+     * 消息监听容器，供本地缓存失效等发布订阅场景共用
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(LettuceConnectionFactory lettuceConnectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(lettuceConnectionFactory);
+        return container;
+    }
+
+    /**
+     * 创建值序列化器
+     *
+     * @param mode 写入时使用的格式
+     * @return 可同时读取JSON与Smile格式的序列化器
+     */
+    public static RedisSerializer<Object> createValueSerializer(SerializerModeEnum mode) {
+        Jackson2JsonRedisSerializer<Object> jackson2JsonRedisSerializer = new Jackson2JsonRedisSerializer<>(Object.class);
+        ObjectMapper om = new ObjectMapper();
+        om.setVisibility(PropertyAccessor.ALL, Visibility.ANY);
+        om.enableDefaultTyping(DefaultTyping.NON_FINAL);
+        jackson2JsonRedisSerializer.setObjectMapper(om);
+
+        // 顶层类型由类ID表示，仅声明为Object的嵌套属性(如Map<String, Object>中的对象)才写入类名
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        smileMapper.setVisibility(PropertyAccessor.ALL, Visibility.ANY);
+        smileMapper.enableDefaultTyping(DefaultTyping.OBJECT_AND_NON_CONCRETE);
+        smileMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        return new VersionedRedisSerializer(mode, jackson2JsonRedisSerializer, smileMapper, classRegistry());
+    }
+
+    /**
+     * 类型注册表，新增类型只能追加新ID
+     */
+    private static SerializerClassRegistry classRegistry() {
+        return new SerializerClassRegistry()
+                .register(1, String.class)
+                .register(2, Integer.class)
+                .register(3, Long.class)
+                .register(4, HashMap.class)
+                .register(5, LinkedHashMap.class)
+                .register(6, ArrayList.class)
+                .register(7, HashSet.class)
+                .register(8, CacheEnvelope.class)
+                .register(9, QueueItem.class)
+                .register(100, Person.class);
+    }
+
 }
@@ -0,0 +1,20 @@
+package com.xinyan.queue;
+
+import com.xinyan.common.PollingConsumer;
+
+/**
+ * 队列消费者线程池，由RedisWorkQueue.consume创建
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+public class QueueConsumer extends PollingConsumer {
+
+    QueueConsumer(String queue, int concurrency) {
+        super("queue-" + queue, concurrency);
+    }
+
+    void start(Runnable poll) {
+        start(index -> poll::run);
+    }
+}
@@ -0,0 +1,31 @@
+package com.xinyan.queue;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 队列中存储的条目，id保证相同内容的消息在处理列表中可区分
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class QueueItem<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 消息ID
+     */
+    private String id;
+
+    /**
+     * 消息内容
+     */
+    private T payload;
+}
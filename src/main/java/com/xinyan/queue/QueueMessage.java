@@ -0,0 +1,42 @@
+package com.xinyan.queue;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * 出队的消息，处理完成后调用RedisWorkQueue.ack确认，超过可见性超时未确认的消息会被重新投递
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Getter
+public class QueueMessage<T> {
+
+    /**
+     * 队列名称
+     */
+    private final String queue;
+
+    /**
+     * 消息ID
+     */
+    private final String id;
+
+    /**
+     * 消息内容
+     */
+    private final T payload;
+
+    /**
+     * 处理列表中的原始字节，确认时按该值移除
+     */
+    @Getter(AccessLevel.NONE)
+    final byte[] raw;
+
+    QueueMessage(String queue, String id, T payload, byte[] raw) {
+        this.queue = queue;
+        this.id = id;
+        this.payload = payload;
+        this.raw = raw;
+    }
+}
@@ -0,0 +1,350 @@
+package com.xinyan.queue;
+
+import com.xinyan.common.RedisTypeEnum;
+import com.xinyan.common.SymbolEnum;
+import com.xinyan.service.RedisKeyGenerator;
+import com.xinyan.service.RedisScriptRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 基于List的可靠工作队列
+ * 生产者LPUSH入队，消费者从队尾出队并原子地移入处理列表，同时在Sorted Set中登记可见性截止时间；
+ * 处理完成后确认(ack)移除，超时未确认(消费者崩溃或处理失败)的消息由后台线程移回队列重新投递，语义为至少一次。
+ * 队列、处理列表、截止时间三个key共用hash tag {队列名称}，集群模式下位于同一slot。
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Component
+@Slf4j
+public class RedisWorkQueue {
+
+    private static final String DEQUEUE_SCRIPT = "workQueue:dequeue";
+
+    private static final String ACK_SCRIPT = "workQueue:ack";
+
+    private static final String REAP_SCRIPT = "workQueue:reap";
+
+    /**
+     * 每次回收检查的最大消息数
+     */
+    private static final int REAP_BATCH_SIZE = 1000;
+
+    @Resource
+    private RedisTemplate redisTemplate;
+
+    @Resource
+    private RedisScriptRegistry redisScriptRegistry;
+
+    @Resource
+    private RedisKeyGenerator redisKeyGenerator;
+
+    @Resource
+    private RedisSerializer<Object> redisValueSerializer;
+
+    /**
+     * 默认可见性超时，单位：毫秒，出队后超过该时间未确认的消息会被重新投递
+     */
+    @Value("${redis.queue.visibility-millis:30000}")
+    private long visibilityMillis;
+
+    /**
+     * 超时消息回收周期，单位：毫秒
+     */
+    @Value("${redis.queue.reap-interval-millis:1000}")
+    private long reapIntervalMillis;
+
+    private static String dequeueScript;
+
+    private static String ackScript;
+
+    private static String reapScript;
+
+    /**
+     * 本节点使用过的队列，由后台线程回收其超时消息
+     */
+    private final Set<String> queues = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService reaper;
+
+    /**
+     * 队列脚本，原子操作
+     * KEYS[1]为队列，KEYS[2]为处理列表，KEYS[3]为可见性截止时间，ARGV[1]为出队数量，ARGV[2]为截止时间(客户端时间，毫秒)
+     */
+    static {
+        StringBuilder sb = new StringBuilder();
+        sb.append("local items = {} ");
+        sb.append("for i = 1, tonumber(ARGV[1]) do ");
+        sb.append("    local item = redis.call('rpoplpush', KEYS[1], KEYS[2]) ");
+        sb.append("    if not item then break end ");
+        sb.append("    redis.call('zadd', KEYS[3], ARGV[2], item) ");
+        sb.append("    items[i] = item ");
+        sb.append("end ");
+        sb.append("return items ");
+        dequeueScript = sb.toString();
+
+        // ARGV为待确认的消息
+        sb = new StringBuilder();
+        sb.append("local acked = 0 ");
+        sb.append("for i = 1, #ARGV do ");
+        sb.append("    acked = acked + redis.call('lrem', KEYS[2], -1, ARGV[i]) ");
+        sb.append("    redis.call('zrem', KEYS[3], ARGV[i]) ");
+        sb.append("end ");
+        sb.append("return acked ");
+        ackScript = sb.toString();
+
+        // ARGV[1]为客户端当前时间(毫秒)，ARGV[2]为可见性超时(毫秒)，ARGV[3]为每次检查的最大消息数
+        // 超时的消息移回队尾优先投递；处理列表中没有截止时间的消息(阻塞出队后登记前崩溃)补登记截止时间
+        sb = new StringBuilder();
+        sb.append("local now = tonumber(ARGV[1]) ");
+        sb.append("local limit = tonumber(ARGV[3]) ");
+        sb.append("local moved = 0 ");
+        sb.append("for _, item in ipairs(redis.call('zrangebyscore', KEYS[3], '-inf', now, 'LIMIT', 0, limit)) do ");
+        sb.append("    redis.call('zrem', KEYS[3], item) ");
+        sb.append("    if redis.call('lrem', KEYS[2], -1, item) > 0 then ");
+        sb.append("        redis.call('rpush', KEYS[1], item) ");
+        sb.append("        moved = moved + 1 ");
+        sb.append("    end ");
+        sb.append("end ");
+        sb.append("for _, item in ipairs(redis.call('lrange', KEYS[2], -limit, -1)) do ");
+        sb.append("    if not redis.call('zscore', KEYS[3], item) then ");
+        sb.append("        redis.call('zadd', KEYS[3], now + tonumber(ARGV[2]), item) ");
+        sb.append("    end ");
+        sb.append("end ");
+        sb.append("return moved ");
+        reapScript = sb.toString();
+    }
+
+    @PostConstruct
+    public void init() {
+        redisScriptRegistry.register(DEQUEUE_SCRIPT, dequeueScript, ReturnType.MULTI);
+        redisScriptRegistry.register(ACK_SCRIPT, ackScript, ReturnType.INTEGER);
+        redisScriptRegistry.register(REAP_SCRIPT, reapScript, ReturnType.INTEGER);
+        reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "redis-queue-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reaper.scheduleWithFixedDelay(this::reapAll, reapIntervalMillis, reapIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        reaper.shutdownNow();
+    }
+
+    /**
+     * 入队，多个消息一次LPUSH
+     *
+     * @param queue    队列名称
+     * @param payloads 消息内容
+     * @return 入队后队列长度
+     */
+    public <T> Long enqueue(String queue, Collection<T> payloads) {
+        Assert.notEmpty(payloads, "payloads must not be empty");
+        byte[][] items = new byte[payloads.size()][];
+        int i = 0;
+        for (T payload : payloads) {
+            items[i++] = redisValueSerializer.serialize(new QueueItem<>(UUID.randomUUID().toString().replace("-", ""), payload));
+        }
+        byte[] pending = pendingKey(queue);
+        RedisCallback<Long> callback = connection -> connection.lPush(pending, items);
+        return (Long) redisTemplate.execute(callback);
+    }
+
+    /**
+     * 批量出队，一次往返最多取出maxItems个消息，队列为空时立即返回
+     *
+     * @param queue            队列名称
+     * @param maxItems         最多出队的数量
+     * @param visibilityMillis 可见性超时，单位：毫秒
+     * @return 出队的消息，队列为空时返回空列表
+     */
+    public <T> List<QueueMessage<T>> dequeue(String queue, int maxItems, long visibilityMillis) {
+        Assert.isTrue(maxItems > 0, "maxItems must greater than 0");
+        queues.add(queue);
+        List<byte[]> items = redisScriptRegistry.execute(DEQUEUE_SCRIPT, 3, pendingKey(queue), processingKey(queue), deadlineKey(queue),
+                raw(String.valueOf(maxItems)), raw(String.valueOf(System.currentTimeMillis() + visibilityMillis)));
+        if (items == null || items.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<QueueMessage<T>> messages = new ArrayList<>(items.size());
+        for (byte[] item : items) {
+            messages.add(toMessage(queue, item));
+        }
+        return messages;
+    }
+
+    /**
+     * 阻塞批量出队：队列非空时同dequeue；为空时以BRPOPLPUSH阻塞等待，取到第一个消息后再批量取出其余消息
+     * 阻塞命令使用独占连接，并发消费者数不应超过连接池大小
+     *
+     * @param queue            队列名称
+     * @param maxItems         最多出队的数量
+     * @param visibilityMillis 可见性超时，单位：毫秒
+     * @param timeoutSeconds   阻塞等待时间，单位：秒
+     * @return 出队的消息，超时返回空列表
+     */
+    public <T> List<QueueMessage<T>> dequeue(String queue, int maxItems, long visibilityMillis, int timeoutSeconds) {
+        Assert.isTrue(timeoutSeconds > 0, "timeoutSeconds must greater than 0");
+        List<QueueMessage<T>> messages = dequeue(queue, maxItems, visibilityMillis);
+        if (!messages.isEmpty()) {
+            return messages;
+        }
+        byte[] processing = processingKey(queue);
+        RedisCallback<byte[]> callback = connection -> connection.bRPopLPush(timeoutSeconds, pendingKey(queue), processing);
+        byte[] item = (byte[]) redisTemplate.execute(callback);
+        if (item == null) {
+            return Collections.emptyList();
+        }
+        // BRPOPLPUSH与登记截止时间之间崩溃时，由回收线程补登记
+        long deadline = System.currentTimeMillis() + visibilityMillis;
+        byte[] deadlines = deadlineKey(queue);
+        redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.zAdd(deadlines, deadline, item));
+        messages = new ArrayList<>(maxItems);
+        messages.add(toMessage(queue, item));
+        if (maxItems > 1) {
+            messages.addAll(dequeue(queue, maxItems - 1, visibilityMillis));
+        }
+        return messages;
+    }
+
+    /**
+     * 确认消息处理完成；消息超时被重新投递后，原消费者的确认同样有效(移除处理中或已重新出队的副本)
+     *
+     * @param messages 同一队列出队的消息
+     * @return 确认成功的数量，消息已被确认或已移回队列时不计入
+     */
+    public long ack(List<? extends QueueMessage<?>> messages) {
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        String queue = messages.get(0).getQueue();
+        byte[][] keysAndArgs = new byte[messages.size() + 3][];
+        keysAndArgs[0] = pendingKey(queue);
+        keysAndArgs[1] = processingKey(queue);
+        keysAndArgs[2] = deadlineKey(queue);
+        for (int i = 0; i < messages.size(); i++) {
+            Assert.isTrue(queue.equals(messages.get(i).getQueue()), "messages must belong to the same queue");
+            keysAndArgs[i + 3] = messages.get(i).raw;
+        }
+        Long acked = redisScriptRegistry.execute(ACK_SCRIPT, 3, keysAndArgs);
+        return acked == null ? 0 : acked;
+    }
+
+    /**
+     * 队列中待处理的消息数
+     *
+     * @param queue 队列名称
+     * @return 待处理数量
+     */
+    public long size(String queue) {
+        byte[] pending = pendingKey(queue);
+        Long size = (Long) redisTemplate.execute((RedisCallback<Long>) connection -> connection.lLen(pending));
+        return size == null ? 0 : size;
+    }
+
+    /**
+     * 清空队列，包括处理中的消息
+     *
+     * @param queue 队列名称
+     */
+    public void clear(String queue) {
+        byte[][] keys = {pendingKey(queue), processingKey(queue), deadlineKey(queue)};
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.del(keys));
+    }
+
+    /**
+     * 启动消费者线程池，每个线程阻塞批量出队，处理成功后批量确认，处理失败的消息不确认，超时后重新投递
+     *
+     * @param queue       队列名称
+     * @param concurrency 消费线程数
+     * @param batchSize   每次出队的最大数量
+     * @param handler     消息处理函数
+     * @return 消费者，stop后停止拉取新消息
+     */
+    public <T> QueueConsumer consume(String queue, int concurrency, int batchSize, Consumer<T> handler) {
+        Assert.isTrue(concurrency > 0, "concurrency must greater than 0");
+        QueueConsumer consumer = new QueueConsumer(queue, concurrency);
+        consumer.start(() -> {
+            List<QueueMessage<T>> messages = dequeue(queue, batchSize, visibilityMillis, 1);
+            List<QueueMessage<T>> processed = new ArrayList<>(messages.size());
+            for (QueueMessage<T> message : messages) {
+                try {
+                    handler.accept(message.getPayload());
+                    processed.add(message);
+                } catch (Exception e) {
+                    log.error("queue: {} message: {} handle error, redeliver after visibility timeout", queue, message.getId(), e);
+                }
+            }
+            ack(processed);
+        });
+        return consumer;
+    }
+
+    /**
+     * 回收本节点使用过的队列中超时未确认的消息
+     */
+    void reapAll() {
+        for (String queue : queues) {
+            try {
+                Long moved = redisScriptRegistry.execute(REAP_SCRIPT, 3, pendingKey(queue), processingKey(queue), deadlineKey(queue),
+                        raw(String.valueOf(System.currentTimeMillis())), raw(String.valueOf(visibilityMillis)), raw(String.valueOf(REAP_BATCH_SIZE)));
+                if (moved != null && moved > 0) {
+                    log.warn("queue: {} redeliver {} timed out messages", queue, moved);
+                }
+            } catch (Exception e) {
+                log.error("queue: {} reap error", queue, e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> QueueMessage<T> toMessage(String queue, byte[] item) {
+        QueueItem<T> queueItem = (QueueItem<T>) redisValueSerializer.deserialize(item);
+        return new QueueMessage<>(queue, queueItem.getId(), queueItem.getPayload(), item);
+    }
+
+    private byte[] pendingKey(String queue) {
+        return redisKeyGenerator.rawKey(RedisTypeEnum.LIST, tag(queue));
+    }
+
+    private byte[] processingKey(String queue) {
+        return redisKeyGenerator.rawKey(RedisTypeEnum.LIST, tag(queue) + SymbolEnum.COLON.getSymbol() + "processing");
+    }
+
+    private byte[] deadlineKey(String queue) {
+        return redisKeyGenerator.rawKey(RedisTypeEnum.SORTED_SET, tag(queue) + SymbolEnum.COLON.getSymbol() + "deadline");
+    }
+
+    private static String tag(String queue) {
+        return "{" + queue + "}";
+    }
+
+    private static byte[] raw(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,196 @@
+package com.xinyan.serializer;
+
+import com.xinyan.common.CompressionAlgorithmEnum;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 按阈值压缩的Redis值序列化器
+ * 序列化结果超过阈值时压缩，格式：算法标记(1字节) + 原始长度(4字节) + 压缩数据；
+ * 未超过阈值的值原样存储。读取时按首字节自动识别，两种算法的数据可混合读取；
+ * 关闭写入压缩(compressWrites=false)时仍按首字节解压，已压缩的数据可继续读取。
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+public class CompressingRedisSerializer implements RedisSerializer<Object> {
+
+    private static final int HEADER_LENGTH = 5;
+
+    /**
+     * 解压长度上限，与Redis单个值的上限一致
+     */
+    private static final int MAX_LENGTH = 512 * 1024 * 1024;
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(Deflater::new);
+
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    private final RedisSerializer<Object> delegate;
+
+    private final CompressionAlgorithmEnum algorithm;
+
+    private final int threshold;
+
+    private final boolean compressWrites;
+
+    private final LZ4Compressor lz4Compressor;
+
+    private final LZ4FastDecompressor lz4Decompressor;
+
+    private final DistributionSummary ratioSummary;
+
+    private final Timer compressTimer;
+
+    private final Timer decompressTimer;
+
+    /**
+     * @param delegate      实际的值序列化器
+     * @param algorithm     写入时使用的压缩算法
+     * @param threshold     压缩阈值，单位：字节
+     * @param meterRegistry 指标注册表
+     */
+    public CompressingRedisSerializer(RedisSerializer<Object> delegate, CompressionAlgorithmEnum algorithm,
+                                      int threshold, MeterRegistry meterRegistry) {
+        this(delegate, algorithm, threshold, true, meterRegistry);
+    }
+
+    /**
+     * @param delegate       实际的值序列化器
+     * @param algorithm      写入时使用的压缩算法
+     * @param threshold      压缩阈值，单位：字节
+     * @param compressWrites 写入时是否压缩，false时只解压已压缩的数据
+     * @param meterRegistry  指标注册表
+     */
+    public CompressingRedisSerializer(RedisSerializer<Object> delegate, CompressionAlgorithmEnum algorithm,
+                                      int threshold, boolean compressWrites, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.algorithm = algorithm;
+        this.threshold = threshold;
+        this.compressWrites = compressWrites;
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.lz4Compressor = factory.fastCompressor();
+        this.lz4Decompressor = factory.fastDecompressor();
+        this.ratioSummary = DistributionSummary.builder("redis.compression.ratio")
+                .description("compressed size / original size")
+                .tag("algorithm", algorithm.name())
+                .register(meterRegistry);
+        this.compressTimer = Timer.builder("redis.compression.time")
+                .tag("operation", "compress")
+                .register(meterRegistry);
+        this.decompressTimer = Timer.builder("redis.compression.time")
+                .tag("operation", "decompress")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte[] bytes = delegate.serialize(value);
+        if (!compressWrites || bytes == null || bytes.length < threshold) {
+            return bytes;
+        }
+        long start = System.nanoTime();
+        byte[] compressed = algorithm == CompressionAlgorithmEnum.LZ4 ? lz4(bytes) : deflate(bytes);
+        compressTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        // 压缩后没有变小则原样存储，不计入压缩率
+        if (compressed.length >= bytes.length) {
+            return bytes;
+        }
+        ratioSummary.record((double) compressed.length / bytes.length);
+        return compressed;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length < HEADER_LENGTH) {
+            return delegate.deserialize(bytes);
+        }
+        byte marker = bytes[0];
+        if (marker != CompressionAlgorithmEnum.DEFLATE.getMarker() && marker != CompressionAlgorithmEnum.LZ4.getMarker()) {
+            return delegate.deserialize(bytes);
+        }
+        int length = ((bytes[1] & 0xFF) << 24) | ((bytes[2] & 0xFF) << 16) | ((bytes[3] & 0xFF) << 8) | (bytes[4] & 0xFF);
+        if (length < 0 || length > MAX_LENGTH) {
+            throw new SerializationException("Invalid compressed length: " + length);
+        }
+        long start = System.nanoTime();
+        byte[] raw = marker == CompressionAlgorithmEnum.LZ4.getMarker() ? unlz4(bytes, length) : inflate(bytes, length);
+        decompressTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return delegate.deserialize(raw);
+    }
+
+    private byte[] lz4(byte[] bytes) {
+        byte[] out = new byte[HEADER_LENGTH + lz4Compressor.maxCompressedLength(bytes.length)];
+        writeHeader(out, CompressionAlgorithmEnum.LZ4, bytes.length);
+        int size = lz4Compressor.compress(bytes, 0, bytes.length, out, HEADER_LENGTH);
+        return Arrays.copyOf(out, HEADER_LENGTH + size);
+    }
+
+    private byte[] unlz4(byte[] bytes, int length) {
+        byte[] out = new byte[length];
+        try {
+            lz4Decompressor.decompress(bytes, HEADER_LENGTH, out, 0, length);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Could not decompress LZ4: " + e.getMessage(), e);
+        }
+        return out;
+    }
+
+    private byte[] deflate(byte[] bytes) {
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(bytes);
+        deflater.finish();
+        byte[] out = new byte[HEADER_LENGTH + bytes.length];
+        writeHeader(out, CompressionAlgorithmEnum.DEFLATE, bytes.length);
+        int size = HEADER_LENGTH;
+        while (!deflater.finished() && size < out.length) {
+            size += deflater.deflate(out, size, out.length - size);
+        }
+        // 输出缓冲区写满仍未结束说明不可压缩，返回原始数据
+        return deflater.finished() ? Arrays.copyOf(out, size) : bytes;
+    }
+
+    private byte[] inflate(byte[] bytes, int length) {
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+        byte[] out = new byte[length];
+        try {
+            int size = 0;
+            while (size < length && !inflater.finished()) {
+                int n = inflater.inflate(out, size, length - size);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                size += n;
+            }
+            if (size != length) {
+                throw new SerializationException("Truncated deflate data, expected " + length + " bytes but got " + size);
+            }
+        } catch (DataFormatException e) {
+            throw new SerializationException("Could not inflate: " + e.getMessage(), e);
+        }
+        return out;
+    }
+
+    private static void writeHeader(byte[] out, CompressionAlgorithmEnum algorithm, int length) {
+        out[0] = algorithm.getMarker();
+        out[1] = (byte) (length >>> 24);
+        out[2] = (byte) (length >>> 16);
+        out[3] = (byte) (length >>> 8);
+        out[4] = (byte) length;
+    }
+}
@@ -0,0 +1,63 @@
+package com.xinyan.serializer;
+
+import org.springframework.util.Assert;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 序列化类型注册表
+ * 为常用值类型分配固定的类ID，二进制格式中以2字节ID代替完整类名；
+ * ID一经使用不可变更或复用，否则历史数据无法正确反序列化。
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+public class SerializerClassRegistry {
+
+    /**
+     * 未注册类型的ID，其后紧跟类名
+     */
+    public static final int UNREGISTERED = 0;
+
+    private final Map<Class<?>, Integer> classToId = new HashMap<>();
+
+    private final Map<Integer, Class<?>> idToClass = new HashMap<>();
+
+    /**
+     * 注册类型
+     *
+     * @param id    类ID，取值1~65535
+     * @param clazz 类型
+     * @return 注册表本身
+     */
+    public SerializerClassRegistry register(int id, Class<?> clazz) {
+        Assert.isTrue(id > UNREGISTERED && id <= 0xFFFF, "class id must between 1 and 65535");
+        Assert.isTrue(!idToClass.containsKey(id), "duplicate class id: " + id);
+        Assert.isTrue(!classToId.containsKey(clazz), "duplicate class: " + clazz.getName());
+        classToId.put(clazz, id);
+        idToClass.put(id, clazz);
+        return this;
+    }
+
+    /**
+     * 获取类ID
+     *
+     * @param clazz 类型
+     * @return 未注册返回UNREGISTERED
+     */
+    public int getId(Class<?> clazz) {
+        Integer id = classToId.get(clazz);
+        return id == null ? UNREGISTERED : id;
+    }
+
+    /**
+     * 根据类ID获取类型
+     *
+     * @param id 类ID
+     * @return 未注册返回null
+     */
+    public Class<?> getClass(int id) {
+        return idToClass.get(id);
+    }
+}
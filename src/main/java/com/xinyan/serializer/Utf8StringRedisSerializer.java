@@ -0,0 +1,60 @@
+package com.xinyan.serializer;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * key序列化器，与StringRedisSerializer结果一致
+ * 纯ASCII字符串直接写入精确长度的字节数组，避免JDK编码器按最大字节数预分配再拷贝。
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+public class Utf8StringRedisSerializer implements RedisSerializer<String> {
+
+    @Override
+    public byte[] serialize(String value) {
+        return value == null ? null : encode(null, value);
+    }
+
+    @Override
+    public String deserialize(byte[] bytes) {
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 将前缀与字符串的UTF-8编码写入同一个字节数组
+     *
+     * @param prefix 已编码的前缀，可为null
+     * @param value  字符串
+     * @return prefix + UTF-8(value)
+     */
+    public static byte[] encode(byte[] prefix, String value) {
+        int offset = prefix == null ? 0 : prefix.length;
+        int length = value.length();
+        byte[] out = new byte[offset + length];
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                return encodeNonAscii(prefix, value);
+            }
+            out[offset + i] = (byte) c;
+        }
+        if (offset > 0) {
+            System.arraycopy(prefix, 0, out, 0, offset);
+        }
+        return out;
+    }
+
+    private static byte[] encodeNonAscii(byte[] prefix, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (prefix == null || prefix.length == 0) {
+            return bytes;
+        }
+        byte[] out = new byte[prefix.length + bytes.length];
+        System.arraycopy(prefix, 0, out, 0, prefix.length);
+        System.arraycopy(bytes, 0, out, prefix.length, bytes.length);
+        return out;
+    }
+}
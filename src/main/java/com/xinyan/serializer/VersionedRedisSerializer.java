@@ -0,0 +1,115 @@
+package com.xinyan.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xinyan.common.SerializerModeEnum;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.util.ClassUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 带版本头的Redis值序列化器
+ * 二进制格式：魔数(1字节) + 版本(1字节) + 类ID(2字节，0表示未注册，其后为2字节长度+类名) + Smile数据。
+ * 反序列化时根据首字节自动识别，非魔数开头的按历史JSON格式读取，便于灰度切换和回滚。
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+public class VersionedRedisSerializer implements RedisSerializer<Object> {
+
+    /**
+     * 魔数，不可能作为UTF-8编码JSON的首字节
+     */
+    public static final byte MAGIC = (byte) 0xB1;
+
+    public static final byte VERSION_1 = 1;
+
+    private static final byte[] EMPTY_ARRAY = new byte[0];
+
+    private static final int HEADER_LENGTH = 4;
+
+    private final SerializerModeEnum mode;
+
+    private final RedisSerializer<Object> jsonSerializer;
+
+    private final ObjectMapper smileMapper;
+
+    private final SerializerClassRegistry registry;
+
+    /**
+     * @param mode           写入时使用的格式
+     * @param jsonSerializer 历史JSON序列化器
+     * @param smileMapper    基于SmileFactory的ObjectMapper
+     * @param registry       类型注册表
+     */
+    public VersionedRedisSerializer(SerializerModeEnum mode, RedisSerializer<Object> jsonSerializer,
+                                    ObjectMapper smileMapper, SerializerClassRegistry registry) {
+        this.mode = mode;
+        this.jsonSerializer = jsonSerializer;
+        this.smileMapper = smileMapper;
+        this.registry = registry;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (mode == SerializerModeEnum.JSON) {
+            return jsonSerializer.serialize(value);
+        }
+        if (value == null) {
+            return EMPTY_ARRAY;
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+            int classId = registry.getId(value.getClass());
+            out.write(MAGIC);
+            out.write(VERSION_1);
+            out.write(classId >>> 8);
+            out.write(classId);
+            if (classId == SerializerClassRegistry.UNREGISTERED) {
+                byte[] className = value.getClass().getName().getBytes(StandardCharsets.UTF_8);
+                out.write(className.length >>> 8);
+                out.write(className.length);
+                out.write(className);
+            }
+            smileMapper.writeValue(out, value);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationException("Could not write Smile: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return jsonSerializer.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH || bytes[1] != VERSION_1) {
+            throw new SerializationException("Unsupported serializer version: " + (bytes.length > 1 ? bytes[1] : -1));
+        }
+        try {
+            int classId = ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+            int offset = HEADER_LENGTH;
+            Class<?> clazz;
+            if (classId == SerializerClassRegistry.UNREGISTERED) {
+                int length = ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+                String className = new String(bytes, offset + 2, length, StandardCharsets.UTF_8);
+                clazz = ClassUtils.forName(className, getClass().getClassLoader());
+                offset += 2 + length;
+            } else {
+                clazz = registry.getClass(classId);
+                if (clazz == null) {
+                    throw new SerializationException("Unknown class id: " + classId);
+                }
+            }
+            return smileMapper.readValue(bytes, offset, bytes.length - offset, clazz);
+        } catch (IOException | ClassNotFoundException | LinkageError e) {
+            throw new SerializationException("Could not read Smile: " + e.getMessage(), e);
+        }
+    }
+}
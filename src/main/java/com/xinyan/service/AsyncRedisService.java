@@ -0,0 +1,340 @@
+package com.xinyan.service;
+
+import com.xinyan.common.RedisTypeEnum;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * redis异步操作类
+ * 基于Lettuce异步命令，调用立即返回，同一线程连续发起的多个请求在共享连接上流水线发送，N次查询约1个RTT
+ * 与RedisService的key命名规则、序列化方式一致，两者写入的数据可互相读取
+ * 回调在Lettuce的IO线程上执行，请勿在回调中执行阻塞操作
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+public interface AsyncRedisService {
+
+    /** ===============Redis-String数据结构接口START=============== */
+    /**
+     * 设置字符串
+     *
+     * @param key   key
+     * @param value 字符串值
+     * @return CompletableFuture<Boolean> 是否设置成功
+     */
+    CompletableFuture<Boolean> set(String key, String value);
+
+    /**
+     * 设置字符串(含过期时间)
+     *
+     * @param key     key
+     * @param value   字符串值
+     * @param timeout 过期时间，单位：秒
+     * @return CompletableFuture<Boolean> 是否设置成功
+     */
+    CompletableFuture<Boolean> set(String key, String value, long timeout);
+
+    /**
+     * 设置多个字符串
+     *
+     * @param paramMap 字符串Map
+     * @return CompletableFuture<Boolean> 是否设置成功
+     */
+    CompletableFuture<Boolean> mset(Map<String, String> paramMap);
+
+    /**
+     * 根据key获取字符串
+     *
+     * @param key key
+     * @return CompletableFuture<String> key对应的字符串值，不存在时为null
+     */
+    CompletableFuture<String> get(String key);
+
+    /**
+     * 根据key列表获取字符串列表
+     *
+     * @param keys key列表
+     * @return CompletableFuture<List<String>> key列表对应的字符串列表
+     */
+    CompletableFuture<List<String>> mget(List<String> keys);
+
+    /**
+     * 设置对象(采用Redis的String存储)
+     *
+     * @param key key
+     * @param T   对象
+     * @return CompletableFuture<Boolean> 是否设置成功
+     */
+    <T> CompletableFuture<Boolean> setObject(String key, T T);
+
+    /**
+     * 设置对象(采用Redis的String存储，含过期时间)
+     *
+     * @param key     key
+     * @param T       对象
+     * @param timeout 过期时间，单位：秒
+     * @return CompletableFuture<Boolean> 是否设置成功
+     */
+    <T> CompletableFuture<Boolean> setObject(String key, T T, long timeout);
+
+    /**
+     * 根据key获取对象(对象采用Redis的String存储)
+     *
+     * @param key key
+     * @return CompletableFuture<T> 对象，不存在时为null
+     */
+    <T> CompletableFuture<T> getObject(String key);
+
+    /**
+     * 根据key列表获取同一对象列表(列表中的对象采用Redis的String存储)
+     *
+     * @param keys keys列表
+     * @return CompletableFuture<List<T>> 对象列表
+     */
+    <T> CompletableFuture<List<T>> mgetObject(List<String> keys);
+
+    /** ===============Redis-String数据结构接口END=============== */
+
+    /** ===============Redis-Hash数据结构接口START=============== */
+    /**
+     * Hash设置(可用于保存对象或者保存对象的单个field)
+     *
+     * @param key   Hash表的key
+     * @param field Hash表中的域field
+     * @param T     对象
+     * @return CompletableFuture<Boolean> 是否为新增的field
+     */
+    <T> CompletableFuture<Boolean> hset(String key, String field, T T);
+
+    /**
+     * Hash批量设置(可用于保存多个对象或者保存单个对象的多个field)
+     *
+     * @param key      Hash表的key
+     * @param paramMap Hash表的field和Value组成的Map
+     * @return CompletableFuture<Boolean> 是否设置成功
+     */
+    <T> CompletableFuture<Boolean> hmset(String key, Map<String, T> paramMap);
+
+    /**
+     * 根据Hash表的key和域Field获取对应的Value
+     *
+     * @param key   Hash表的key
+     * @param field Hash表中的域field
+     * @return CompletableFuture<T> 对应的Value，不存在时为null
+     */
+    <T> CompletableFuture<T> hget(String key, String field);
+
+    /**
+     * 根据Hash表的key和域Field列表获取对应的Value列表
+     *
+     * @param key    Hash表的key
+     * @param fields 域Field列表
+     * @return CompletableFuture<List<T>> 对应的Value列表
+     */
+    <T> CompletableFuture<List<T>> hmget(String key, List<String> fields);
+
+    /**
+     * 根据Hash表的key获取对应的所有对象
+     *
+     * @param key Hash表的key
+     * @return CompletableFuture<Map<String, T>> Hash表的key对应的所有对象Map
+     */
+    <T> CompletableFuture<Map<String, T>> hgetAll(String key);
+
+    /**
+     * 根据Hash表的key和域Field进行删除
+     *
+     * @param key    Hash表的key
+     * @param fields Hash表对应域Field数组
+     * @return CompletableFuture<Long> 删除的field数量
+     */
+    CompletableFuture<Long> hDel(String key, Object... fields);
+
+    /** ===============Redis-Hash数据结构接口END=============== */
+
+    /** ===============Redis-Set无序集合数据结构接口START=============== */
+
+    <T> CompletableFuture<Boolean> isMember(String key, T T);
+
+    /**
+     * Set设置(可用于保存对象)
+     *
+     * @param key
+     * @param T   对象
+     * @return CompletableFuture<Long> 新增的元素数量
+     */
+    <T> CompletableFuture<Long> addSet(String key, T T);
+
+    /**
+     * Set删除元素
+     *
+     * @param key
+     * @param T   对象
+     * @return CompletableFuture<Long> 删除的元素数量
+     */
+    <T> CompletableFuture<Long> setRemove(String key, T T);
+
+    /**
+     * 根据Set-key获取所有元素
+     *
+     * @param key
+     * @return CompletableFuture<Set<T>> 所有元素
+     */
+    <T> CompletableFuture<Set<T>> getSetAll(String key);
+
+    /**
+     * key对应set的大小
+     *
+     * @param setKey
+     * @return CompletableFuture<Long> set的大小
+     */
+    CompletableFuture<Long> scard(String setKey);
+
+    /** ===============Redis-Set无序集合数据结构接口END=============== */
+
+    /** ===============Redis-LIST列表数据结构接口START=============== */
+
+    /**
+     * List 增加一个或多个value
+     * 与RedisService.rPush一致：元素以fastjson字符串存储，key不加命名空间
+     *
+     * @param key
+     * @param obj
+     * @return CompletableFuture<Long> 操作后list的大小
+     * @deprecated 元素先经fastjson再经值序列化器两次编码，且key不含命名空间，请使用rPushAll
+     */
+    @Deprecated
+    <T> CompletableFuture<Long> rPush(String key, T... obj);
+
+    /**
+     * List 获取一个值
+     *
+     * @param key
+     * @return CompletableFuture<String> 弹出的值，list为空时为null
+     * @deprecated 请使用lPopTyped，旧数据可通过RedisService.lPopTyped(key, legacyType)迁移
+     */
+    @Deprecated
+    CompletableFuture<String> lPop(String key);
+
+    /**
+     * key对应list的大小
+     *
+     * @param key
+     * @return CompletableFuture<Long> list的大小
+     * @deprecated key不含命名空间，只能读取rPush写入的旧List，请使用lLenTyped
+     */
+    @Deprecated
+    CompletableFuture<Long> llen(String key);
+
+    /**
+     * 从List右侧批量追加对象，与RedisService.rPushAll一致：值序列化器一次编码
+     *
+     * @param key    key
+     * @param values 对象集合
+     * @return CompletableFuture<Long> 追加后List的长度
+     */
+    <T> CompletableFuture<Long> rPushAll(String key, Collection<T> values);
+
+    /**
+     * 获取List指定区间的对象
+     *
+     * @param key   key
+     * @param start 开始下标，从0开始
+     * @param end   结束下标(包含)，-1表示最后一个
+     * @return CompletableFuture<List<T>> 对象列表
+     */
+    <T> CompletableFuture<List<T>> lRange(String key, long start, long end);
+
+    /**
+     * 从List左侧弹出一个对象
+     *
+     * @param key key
+     * @return CompletableFuture<T> 对象，list为空时为null
+     */
+    <T> CompletableFuture<T> lPopTyped(String key);
+
+    /**
+     * 获取List的长度
+     *
+     * @param key key
+     * @return CompletableFuture<Long> List的长度，key不存在时为0
+     */
+    CompletableFuture<Long> lLenTyped(String key);
+
+    /** ===============Redis-LIST列表数据结构接口END=============== */
+
+    /** ===============Redis接口START=============== */
+    /**
+     * 设置key在多少秒后过期
+     *
+     * @param key     key
+     * @param timeout 过期时间，单位：秒
+     * @return CompletableFuture<Boolean> 是否设置成功
+     */
+    CompletableFuture<Boolean> expire(RedisTypeEnum typeEnum, String key, long timeout);
+
+    /**
+     * 设置key在固定的某个时刻后过期
+     *
+     * @param key  key
+     * @param date 固定的某个时刻
+     * @return CompletableFuture<Boolean> 是否设置成功
+     */
+    CompletableFuture<Boolean> expireAt(RedisTypeEnum typeEnum, String key, Date date);
+
+    /**
+     * 根据key删除单个对象
+     *
+     * @param key Redis中存储的key
+     * @return CompletableFuture<Long> 删除的key数量
+     */
+    CompletableFuture<Long> delete(RedisTypeEnum typeEnum, String key);
+
+    /**
+     * 根据key列表删除多个对象
+     *
+     * @param keys keys列表
+     * @return CompletableFuture<Long> 删除的key数量
+     */
+    CompletableFuture<Long> deleteAll(RedisTypeEnum typeEnum, List<String> keys);
+
+    /**
+     * 判断key是否存在
+     *
+     * @param key
+     * @return CompletableFuture<Boolean> 是否存在
+     */
+    CompletableFuture<Boolean> hasKey(RedisTypeEnum typeEnum, String key);
+
+    /**
+     * 自增
+     *
+     * @param key
+     * @return CompletableFuture<Long> 自增后的值
+     */
+    CompletableFuture<Long> increase(String key);
+
+    /**
+     * 自减
+     *
+     * @param key
+     * @return CompletableFuture<Long> 自减后的值
+     */
+    CompletableFuture<Long> decrease(String key);
+
+    /**
+     * 获取key的剩余有效期，单位：秒，-1表示永久有效，-2表示key不存在
+     *
+     * @param key
+     * @return CompletableFuture<Long> 剩余有效期
+     */
+    CompletableFuture<Long> getExpireTime(RedisTypeEnum typeEnum, String key);
+
+    /** ===============Redis接口END=============== */
+}
@@ -0,0 +1,442 @@
+package com.xinyan.service;
+
+import com.alibaba.fastjson.JSON;
+import com.xinyan.cache.NearCache;
+import com.xinyan.common.RedisTypeEnum;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConverters;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * redis异步操作类
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Service("asyncRedisService")
+public class AsyncRedisServiceImpl implements AsyncRedisService {
+
+    @Resource
+    private LettuceConnectionFactory lettuceConnectionFactory;
+
+    @Resource
+    private RedisSerializer<Object> redisValueSerializer;
+
+    @Resource
+    private RedisKeyGenerator redisKeyGenerator;
+
+    /**
+     * 进程内近端缓存，写操作后需通知失效
+     */
+    @Autowired(required = false)
+    private NearCache nearCache;
+
+    @PostConstruct
+    public void init() {
+        // 非共享连接时getNativeConnection返回的是随RedisConnection关闭的独占连接
+        Assert.state(lettuceConnectionFactory.getShareNativeConnection(),
+                "AsyncRedisService requires LettuceConnectionFactory shareNativeConnection=true");
+    }
+
+    /**
+     * 共享连接上的异步命令，线程安全，命令写入后立即返回
+     */
+    @SuppressWarnings("unchecked")
+    private RedisClusterAsyncCommands<byte[], byte[]> commands() {
+        RedisConnection connection = lettuceConnectionFactory.getConnection();
+        try {
+            return (RedisClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * RedisFuture转换为CompletableFuture，异常按RedisTemplate的规则转换为DataAccessException
+     */
+    private <R, T> CompletableFuture<T> toFuture(RedisFuture<R> future, Function<R, T> converter) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        future.whenComplete((value, ex) -> {
+            if (ex != null) {
+                result.completeExceptionally(translate(ex));
+                return;
+            }
+            try {
+                result.complete(converter.apply(value));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    private <T> CompletableFuture<T> toFuture(RedisFuture<T> future) {
+        return toFuture(future, Function.identity());
+    }
+
+    private Throwable translate(Throwable ex) {
+        if (ex instanceof Exception) {
+            DataAccessException translated = LettuceConverters.exceptionConverter().convert((Exception) ex);
+            return translated != null ? translated : new RedisSystemException(ex.getMessage(), ex);
+        }
+        return ex;
+    }
+
+    private static Boolean isOk(String status) {
+        return "OK".equals(status);
+    }
+
+    private byte[] rawKey(RedisTypeEnum typeEnum, String key) {
+        return redisKeyGenerator.rawKey(typeEnum, key);
+    }
+
+    private byte[][] rawKeys(RedisTypeEnum typeEnum, List<String> keys) {
+        byte[][] rawKeys = new byte[keys.size()][];
+        for (int i = 0; i < rawKeys.length; i++) {
+            rawKeys[i] = rawKey(typeEnum, keys.get(i));
+        }
+        return rawKeys;
+    }
+
+    private static byte[] rawString(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] rawValue(Object value) {
+        return redisValueSerializer.serialize(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T deserialize(byte[] bytes) {
+        return (T) redisValueSerializer.deserialize(bytes);
+    }
+
+    private <T> List<T> deserializeValues(List<KeyValue<byte[], byte[]>> keyValues) {
+        List<T> values = new ArrayList<>(keyValues.size());
+        for (KeyValue<byte[], byte[]> keyValue : keyValues) {
+            values.add(keyValue.hasValue() ? this.<T>deserialize(keyValue.getValue()) : null);
+        }
+        return values;
+    }
+
+    /**
+     * 写操作完成后失效近端缓存，失效消息同样异步发布，不占用IO线程等待
+     */
+    private <R> CompletableFuture<R> evictNearCache(CompletableFuture<R> write, List<String> keys) {
+        if (nearCache == null) {
+            return write;
+        }
+        return write.thenApply(result -> {
+            for (String key : keys) {
+                nearCache.evictLocal(key);
+            }
+            if (nearCache.getChannel() != null) {
+                RedisClusterAsyncCommands<byte[], byte[]> commands = commands();
+                byte[] channel = rawString(nearCache.getChannel());
+                for (String key : keys) {
+                    commands.publish(channel, rawString(nearCache.invalidationMessage(key)));
+                }
+            }
+            return result;
+        });
+    }
+
+    private <R> CompletableFuture<R> evictNearCache(CompletableFuture<R> write, RedisTypeEnum typeEnum, String key) {
+        return evictNearCache(write, typeEnum, Collections.singletonList(key));
+    }
+
+    private <R> CompletableFuture<R> evictNearCache(CompletableFuture<R> write, RedisTypeEnum typeEnum, List<String> keys) {
+        if (typeEnum != RedisTypeEnum.STRING && typeEnum != RedisTypeEnum.HASH) {
+            return write;
+        }
+        List<String> fullKeys = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            fullKeys.add(redisKeyGenerator.getKey(typeEnum, key));
+        }
+        return evictNearCache(write, fullKeys);
+    }
+
+    /** ===============Redis-String数据结构接口START=============== */
+
+    @Override
+    public CompletableFuture<Boolean> set(String key, String value) {
+        return setObject(key, value);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> set(String key, String value, long timeout) {
+        return setObject(key, value, timeout);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> mset(Map<String, String> paramMap) {
+        Map<byte[], byte[]> rawMap = new LinkedHashMap<>(paramMap.size() * 2);
+        for (Map.Entry<String, String> entry : paramMap.entrySet()) {
+            rawMap.put(rawKey(RedisTypeEnum.STRING, entry.getKey()), rawValue(entry.getValue()));
+        }
+        CompletableFuture<Boolean> future = toFuture(commands().mset(rawMap), AsyncRedisServiceImpl::isOk);
+        return evictNearCache(future, RedisTypeEnum.STRING, new ArrayList<>(paramMap.keySet()));
+    }
+
+    @Override
+    public CompletableFuture<String> get(String key) {
+        return getObject(key);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> mget(List<String> keys) {
+        return mgetObject(keys);
+    }
+
+    @Override
+    public <T> CompletableFuture<Boolean> setObject(String key, T T) {
+        CompletableFuture<Boolean> future = toFuture(commands().set(rawKey(RedisTypeEnum.STRING, key), rawValue(T)),
+                AsyncRedisServiceImpl::isOk);
+        return evictNearCache(future, RedisTypeEnum.STRING, key);
+    }
+
+    @Override
+    public <T> CompletableFuture<Boolean> setObject(String key, T T, long timeout) {
+        CompletableFuture<Boolean> future = toFuture(commands().setex(rawKey(RedisTypeEnum.STRING, key), timeout, rawValue(T)),
+                AsyncRedisServiceImpl::isOk);
+        return evictNearCache(future, RedisTypeEnum.STRING, key);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getObject(String key) {
+        return toFuture(commands().get(rawKey(RedisTypeEnum.STRING, key)), this::deserialize);
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> mgetObject(List<String> keys) {
+        return toFuture(commands().mget(rawKeys(RedisTypeEnum.STRING, keys)), this::deserializeValues);
+    }
+
+    /** ===============Redis-String数据结构接口END=============== */
+
+    /** ===============Redis-HASH数据结构接口START=============== */
+
+    @Override
+    public <T> CompletableFuture<Boolean> hset(String key, String field, T T) {
+        CompletableFuture<Boolean> future = toFuture(commands().hset(rawKey(RedisTypeEnum.HASH, key), rawString(field), rawValue(T)));
+        return evictNearCache(future, RedisTypeEnum.HASH, key);
+    }
+
+    @Override
+    public <T> CompletableFuture<Boolean> hmset(String key, Map<String, T> paramMap) {
+        Map<byte[], byte[]> rawMap = new LinkedHashMap<>(paramMap.size() * 2);
+        for (Map.Entry<String, T> entry : paramMap.entrySet()) {
+            rawMap.put(rawString(entry.getKey()), rawValue(entry.getValue()));
+        }
+        CompletableFuture<Boolean> future = toFuture(commands().hmset(rawKey(RedisTypeEnum.HASH, key), rawMap),
+                AsyncRedisServiceImpl::isOk);
+        return evictNearCache(future, RedisTypeEnum.HASH, key);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> hget(String key, String field) {
+        return toFuture(commands().hget(rawKey(RedisTypeEnum.HASH, key), rawString(field)), this::deserialize);
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> hmget(String key, List<String> fields) {
+        byte[][] rawFields = new byte[fields.size()][];
+        for (int i = 0; i < rawFields.length; i++) {
+            rawFields[i] = rawString(fields.get(i));
+        }
+        return toFuture(commands().hmget(rawKey(RedisTypeEnum.HASH, key), rawFields), this::deserializeValues);
+    }
+
+    @Override
+    public <T> CompletableFuture<Map<String, T>> hgetAll(String key) {
+        return toFuture(commands().hgetall(rawKey(RedisTypeEnum.HASH, key)), rawMap -> {
+            Map<String, T> values = new HashMap<>(rawMap.size() * 2);
+            for (Map.Entry<byte[], byte[]> entry : rawMap.entrySet()) {
+                values.put(new String(entry.getKey(), StandardCharsets.UTF_8), this.<T>deserialize(entry.getValue()));
+            }
+            return values;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Long> hDel(String key, Object... fields) {
+        byte[][] rawFields = new byte[fields.length][];
+        for (int i = 0; i < rawFields.length; i++) {
+            rawFields[i] = rawString(String.valueOf(fields[i]));
+        }
+        CompletableFuture<Long> future = toFuture(commands().hdel(rawKey(RedisTypeEnum.HASH, key), rawFields));
+        return evictNearCache(future, RedisTypeEnum.HASH, key);
+    }
+
+    /** ===============Redis-HASH数据结构接口END=============== */
+
+    /** ===============Redis-SET数据结构接口START=============== */
+
+    @Override
+    public <T> CompletableFuture<Boolean> isMember(String key, T T) {
+        return toFuture(commands().sismember(rawKey(RedisTypeEnum.SET, key), rawValue(T)));
+    }
+
+    @Override
+    public <T> CompletableFuture<Long> addSet(String key, T T) {
+        return toFuture(commands().sadd(rawKey(RedisTypeEnum.SET, key), rawValue(T)));
+    }
+
+    @Override
+    public <T> CompletableFuture<Long> setRemove(String key, T T) {
+        return toFuture(commands().srem(rawKey(RedisTypeEnum.SET, key), rawValue(T)));
+    }
+
+    @Override
+    public <T> CompletableFuture<Set<T>> getSetAll(String key) {
+        return toFuture(commands().smembers(rawKey(RedisTypeEnum.SET, key)), rawSet -> {
+            Set<T> values = new LinkedHashSet<>(rawSet.size() * 2);
+            for (byte[] raw : rawSet) {
+                values.add(this.<T>deserialize(raw));
+            }
+            return values;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Long> scard(String setKey) {
+        return toFuture(commands().scard(rawKey(RedisTypeEnum.SET, setKey)));
+    }
+
+    /** ===============Redis-SET数据结构接口END=============== */
+
+    /** ===============Redis-LIST数据结构接口START=============== */
+
+    @Override
+    public <T> CompletableFuture<Long> rPush(String key, T... obj) {
+        byte[][] values = new byte[obj.length][];
+        for (int i = 0; i < obj.length; i++) {
+            values[i] = rawValue(JSON.toJSONString(obj[i]));
+        }
+        return toFuture(commands().rpush(rawString(key), values));
+    }
+
+    @Override
+    public CompletableFuture<String> lPop(String key) {
+        return toFuture(commands().lpop(rawString(key)), raw -> {
+            Object o = deserialize(raw);
+            return o == null ? null : o.toString();
+        });
+    }
+
+    @Override
+    public CompletableFuture<Long> llen(String key) {
+        return toFuture(commands().llen(rawString(key)));
+    }
+
+    @Override
+    public <T> CompletableFuture<Long> rPushAll(String key, Collection<T> values) {
+        byte[][] rawValues = new byte[values.size()][];
+        int i = 0;
+        for (T value : values) {
+            rawValues[i++] = rawValue(value);
+        }
+        return toFuture(commands().rpush(rawKey(RedisTypeEnum.LIST, key), rawValues));
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> lRange(String key, long start, long end) {
+        return toFuture(commands().lrange(rawKey(RedisTypeEnum.LIST, key), start, end), raws -> {
+            List<T> values = new ArrayList<>(raws.size());
+            for (byte[] raw : raws) {
+                values.add(this.<T>deserialize(raw));
+            }
+            return values;
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<T> lPopTyped(String key) {
+        return toFuture(commands().lpop(rawKey(RedisTypeEnum.LIST, key)), this::deserialize);
+    }
+
+    @Override
+    public CompletableFuture<Long> lLenTyped(String key) {
+        return toFuture(commands().llen(rawKey(RedisTypeEnum.LIST, key)));
+    }
+
+    /** ===============Redis-LIST数据结构接口END=============== */
+
+    /** ===============Redis接口START=============== */
+
+    @Override
+    public CompletableFuture<Boolean> expire(RedisTypeEnum typeEnum, String key, long timeout) {
+        CompletableFuture<Boolean> future = toFuture(commands().expire(rawKey(typeEnum, key), timeout));
+        return evictNearCache(future, typeEnum, key);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> expireAt(RedisTypeEnum typeEnum, String key, Date date) {
+        CompletableFuture<Boolean> future = toFuture(commands().expireat(rawKey(typeEnum, key), date));
+        return evictNearCache(future, typeEnum, key);
+    }
+
+    @Override
+    public CompletableFuture<Long> delete(RedisTypeEnum typeEnum, String key) {
+        return deleteAll(typeEnum, Collections.singletonList(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> deleteAll(RedisTypeEnum typeEnum, List<String> keys) {
+        // DEL不带参数会报错，与同步接口一致返回0
+        if (keys.isEmpty()) {
+            return CompletableFuture.completedFuture(0L);
+        }
+        CompletableFuture<Long> future = toFuture(commands().del(rawKeys(typeEnum, keys)));
+        return evictNearCache(future, typeEnum, keys);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> hasKey(RedisTypeEnum typeEnum, String key) {
+        return toFuture(commands().exists(rawKey(typeEnum, key)), count -> count != null && count > 0);
+    }
+
+    @Override
+    public CompletableFuture<Long> increase(String key) {
+        CompletableFuture<Long> future = toFuture(commands().incr(rawKey(RedisTypeEnum.STRING, key)));
+        return evictNearCache(future, RedisTypeEnum.STRING, key);
+    }
+
+    @Override
+    public CompletableFuture<Long> decrease(String key) {
+        CompletableFuture<Long> future = toFuture(commands().decr(rawKey(RedisTypeEnum.STRING, key)));
+        return evictNearCache(future, RedisTypeEnum.STRING, key);
+    }
+
+    @Override
+    public CompletableFuture<Long> getExpireTime(RedisTypeEnum typeEnum, String key) {
+        return toFuture(commands().ttl(rawKey(typeEnum, key)));
+    }
+
+    /** ===============Redis接口END=============== */
+}
@@ -0,0 +1,213 @@
+package com.xinyan.service;
+
+import io.lettuce.core.cluster.SlotHash;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式锁续期看门狗
+ * 定时为本节点持有的锁延长有效期，每个周期所有到期需续期的锁合并为一次脚本调用(集群模式下每个slot一次)；
+ * 锁被释放、已被他人持有(续期失败)或持有线程已结束时停止续期。redis.lock.watchdog.enabled=true时启用。
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Component
+@ConditionalOnProperty(prefix = "redis.lock.watchdog", name = "enabled", havingValue = "true")
+@Slf4j
+public class LockWatchdog {
+
+    /**
+     * 续期脚本名称
+     */
+    private static final String RENEW_SCRIPT = "lockWatchdog:renew";
+
+    /**
+     * 批量续期脚本，ARGV依次为每个key的token和有效期(毫秒)，返回每个key是否续期成功
+     */
+    private static final String RENEW_SCRIPT_TEXT = "local result = {} "
+            + "for i, key in ipairs(KEYS) do "
+            + "    if redis.call('get', key) == ARGV[i * 2 - 1] then "
+            + "        redis.call('pexpire', key, ARGV[i * 2]) "
+            + "        result[i] = 1 "
+            + "    else "
+            + "        result[i] = 0 "
+            + "    end "
+            + "end "
+            + "return result ";
+
+    @Resource
+    private RedisScriptRegistry redisScriptRegistry;
+
+    @Resource
+    private LettuceConnectionFactory lettuceConnectionFactory;
+
+    /**
+     * 检查周期，单位：毫秒，应小于最短租期的1/3
+     */
+    @Value("${redis.lock.watchdog.interval-millis:100}")
+    private long intervalMillis;
+
+    /**
+     * 本节点持有并需要续期的锁，key为lockKey
+     */
+    private final ConcurrentMap<String, Lease> leases = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 集群模式下脚本的key必须在同一slot，按slot分组续期
+     */
+    private boolean cluster;
+
+    @PostConstruct
+    public void start() {
+        redisScriptRegistry.register(RENEW_SCRIPT, RENEW_SCRIPT_TEXT, ReturnType.MULTI);
+        cluster = lettuceConnectionFactory.isClusterAware();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "redis-lock-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::renew, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("lock watchdog enabled, interval: {}ms", intervalMillis);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 登记需要续期的锁，持有线程为当前线程
+     *
+     * @param lockKey     锁的key
+     * @param token       锁的token
+     * @param leaseMillis 每次续期的有效期，单位：毫秒
+     */
+    public void watch(String lockKey, String token, long leaseMillis) {
+        leases.put(lockKey, new Lease(token, leaseMillis, Thread.currentThread()));
+    }
+
+    /**
+     * 停止续期，token不一致时忽略
+     *
+     * @param lockKey 锁的key
+     * @param token   锁的token
+     */
+    public void unwatch(String lockKey, String token) {
+        leases.computeIfPresent(lockKey, (key, lease) -> lease.token.equals(token) ? null : lease);
+    }
+
+    /**
+     * 续期到期的锁，已过1/3租期即续期
+     */
+    void renew() {
+        try {
+            long now = System.currentTimeMillis();
+            List<String> keys = new ArrayList<>();
+            List<Lease> due = new ArrayList<>();
+            for (Map.Entry<String, Lease> entry : leases.entrySet()) {
+                Lease lease = entry.getValue();
+                if (!lease.owner.isAlive()) {
+                    log.warn("lock {} owner thread {} terminated, stop renewing", entry.getKey(), lease.owner.getName());
+                    leases.remove(entry.getKey(), lease);
+                } else if (now - lease.renewedAt >= lease.leaseMillis / 3) {
+                    keys.add(entry.getKey());
+                    due.add(lease);
+                }
+            }
+            if (keys.isEmpty()) {
+                return;
+            }
+            if (!cluster) {
+                renew(keys, due, now);
+                return;
+            }
+            Map<Integer, List<Integer>> slots = new TreeMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                slots.computeIfAbsent(SlotHash.getSlot(keys.get(i).getBytes(StandardCharsets.UTF_8)), slot -> new ArrayList<>()).add(i);
+            }
+            for (Map.Entry<Integer, List<Integer>> slot : slots.entrySet()) {
+                List<String> slotKeys = new ArrayList<>(slot.getValue().size());
+                List<Lease> slotLeases = new ArrayList<>(slot.getValue().size());
+                for (int i : slot.getValue()) {
+                    slotKeys.add(keys.get(i));
+                    slotLeases.add(due.get(i));
+                }
+                // 单个slot失败不影响其他slot的续期，下个周期重试
+                try {
+                    renew(slotKeys, slotLeases, now);
+                } catch (Exception e) {
+                    log.error("renew locks error, slot: {}", slot.getKey(), e);
+                }
+            }
+        } catch (Exception e) {
+            log.error("renew locks error", e);
+        }
+    }
+
+    private void renew(List<String> keys, List<Lease> due, long now) {
+        byte[][] keysAndArgs = new byte[keys.size() * 3][];
+        for (int i = 0; i < keys.size(); i++) {
+            keysAndArgs[i] = keys.get(i).getBytes(StandardCharsets.UTF_8);
+            keysAndArgs[keys.size() + i * 2] = due.get(i).rawToken;
+            keysAndArgs[keys.size() + i * 2 + 1] = due.get(i).rawLeaseMillis;
+        }
+        List<Long> results = redisScriptRegistry.execute(RENEW_SCRIPT, keys.size(), keysAndArgs);
+        for (int i = 0; i < keys.size(); i++) {
+            Lease lease = due.get(i);
+            if (results != null && Long.valueOf(1).equals(results.get(i))) {
+                lease.renewedAt = now;
+            } else {
+                log.warn("lock {} is no longer held, stop renewing", keys.get(i));
+                leases.remove(keys.get(i), lease);
+            }
+        }
+    }
+
+    /**
+     * 续期信息
+     */
+    private static class Lease {
+
+        private final String token;
+
+        private final byte[] rawToken;
+
+        private final long leaseMillis;
+
+        private final byte[] rawLeaseMillis;
+
+        private final Thread owner;
+
+        private volatile long renewedAt;
+
+        private Lease(String token, long leaseMillis, Thread owner) {
+            this.token = token;
+            this.rawToken = token.getBytes(StandardCharsets.UTF_8);
+            this.leaseMillis = leaseMillis;
+            this.rawLeaseMillis = String.valueOf(leaseMillis).getBytes(StandardCharsets.UTF_8);
+            this.owner = owner;
+            this.renewedAt = System.currentTimeMillis();
+        }
+    }
+}
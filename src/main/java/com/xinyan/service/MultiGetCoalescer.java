@@ -0,0 +1,195 @@
+package com.xinyan.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 单key读请求合并器
+ * 将极短时间窗口内并发的单key GET收集为一次MGET，结果按key分发给各调用线程；
+ * 同一key的并发请求在批次发出前共享一次Redis调用；批次发出后到达的请求进入下一批次，保证能读到调用前完成的写入。
+ * redis.get-coalescer.enabled=true时启用。
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Component
+@ConditionalOnProperty(prefix = "redis.get-coalescer", name = "enabled", havingValue = "true")
+@Slf4j
+public class MultiGetCoalescer {
+
+    @SuppressWarnings("rawtypes")
+    @Resource
+    private RedisTemplate redisTemplate;
+
+    /**
+     * 收集窗口，单位：微秒
+     */
+    @Value("${redis.get-coalescer.window-micros:200}")
+    private long windowMicros;
+
+    /**
+     * 单次MGET最多包含的key数量
+     */
+    @Value("${redis.get-coalescer.max-batch-size:128}")
+    private int maxBatchSize;
+
+    /**
+     * 并发执行MGET的线程数
+     */
+    @Value("${redis.get-coalescer.dispatch-threads:4}")
+    private int dispatchThreads;
+
+    /**
+     * 调用方等待结果的超时时间，单位：毫秒
+     */
+    @Value("${redis.get-coalescer.timeout-millis:3000}")
+    private long timeoutMillis;
+
+    /**
+     * 排队中尚未发出的请求，同一key只保留一个Future
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final LinkedBlockingQueue<String> pending = new LinkedBlockingQueue<>();
+
+    private ExecutorService dispatchExecutor;
+
+    private Thread collector;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 线程全忙时由收集线程自己执行，形成背压
+        dispatchExecutor = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 0L, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(), r -> {
+            Thread thread = new Thread(r, "redis-mget-dispatch-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        running = true;
+        collector = new Thread(this::collect, "redis-mget-collector");
+        collector.setDaemon(true);
+        collector.start();
+        log.info("get coalescer enabled, windowMicros: {}, maxBatchSize: {}", windowMicros, maxBatchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        collector.interrupt();
+        dispatchExecutor.shutdown();
+        RedisSystemException closed = new RedisSystemException("get coalescer is shut down", null);
+        for (CompletableFuture<Object> future : inFlight.values()) {
+            future.completeExceptionally(closed);
+        }
+    }
+
+    /**
+     * 合并读取，阻塞至本批次MGET返回
+     *
+     * @param key Redis中存储的key
+     * @return key对应的值
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key) {
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> future = inFlight.putIfAbsent(key, created);
+        if (future == null) {
+            future = created;
+            pending.offer(key);
+        }
+        try {
+            return (T) future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RedisSystemException("coalesced get failed, key: " + key, e.getCause());
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("coalesced get timed out, key: " + key, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisSystemException("coalesced get interrupted, key: " + key, e);
+        }
+    }
+
+    private void collect() {
+        long windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        while (running) {
+            try {
+                String first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                if (windowNanos > 0 && pending.size() < maxBatchSize - 1) {
+                    LockSupport.parkNanos(windowNanos);
+                }
+                List<String> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                pending.drainTo(batch, maxBatchSize - 1);
+                // 发出前移除，之后到达的请求(可能在本节点写入之后)不再合并到本批次
+                List<CompletableFuture<Object>> futures = new ArrayList<>(batch.size());
+                for (String key : batch) {
+                    futures.add(inFlight.remove(key));
+                }
+                dispatchExecutor.execute(() -> dispatch(batch, futures));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("get coalescer collect error", e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void dispatch(List<String> keys, List<CompletableFuture<Object>> futures) {
+        List<Object> values;
+        try {
+            values = redisTemplate.opsForValue().multiGet(keys);
+        } catch (RuntimeException e) {
+            for (CompletableFuture<Object> future : futures) {
+                complete(future, null, e);
+            }
+            return;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            complete(futures.get(i), values == null ? null : values.get(i), null);
+        }
+    }
+
+    private void complete(CompletableFuture<Object> future, Object value, Throwable error) {
+        if (future == null) {
+            return;
+        }
+        if (error != null) {
+            future.completeExceptionally(error);
+        } else {
+            future.complete(value);
+        }
+    }
+}
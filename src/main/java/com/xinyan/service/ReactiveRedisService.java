@@ -0,0 +1,338 @@
+package com.xinyan.service;
+
+import com.xinyan.common.RedisTypeEnum;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * redis非阻塞操作类
+ * 与RedisService的key命名规则、序列化方式一致，两者写入的数据可互相读取
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+public interface ReactiveRedisService {
+
+    /** ===============Redis-String数据结构接口START=============== */
+    /**
+     * 设置字符串
+     *
+     * @param key   key
+     * @param value 字符串值
+     * @return Mono<Boolean> 是否设置成功
+     */
+    Mono<Boolean> set(String key, String value);
+
+    /**
+     * 设置字符串(含过期时间)
+     *
+     * @param key     key
+     * @param value   字符串值
+     * @param timeout 过期时间，单位：秒
+     * @return Mono<Boolean> 是否设置成功
+     */
+    Mono<Boolean> set(String key, String value, long timeout);
+
+    /**
+     * 设置多个字符串
+     *
+     * @param paramMap 字符串Map
+     * @return Mono<Boolean> 是否设置成功
+     */
+    Mono<Boolean> mset(Map<String, String> paramMap);
+
+    /**
+     * 根据key获取字符串
+     *
+     * @param key key
+     * @return Mono<String> key对应的字符串值，不存在时为空
+     */
+    Mono<String> get(String key);
+
+    /**
+     * 根据key列表获取字符串列表
+     *
+     * @param keys key列表
+     * @return Mono<List<String>> key列表对应的字符串列表
+     */
+    Mono<List<String>> mget(List<String> keys);
+
+    /**
+     * 设置对象(采用Redis的String存储)
+     *
+     * @param key key
+     * @param T   对象
+     * @return Mono<Boolean> 是否设置成功
+     */
+    <T> Mono<Boolean> setObject(String key, T T);
+
+    /**
+     * 设置对象(采用Redis的String存储，含过期时间)
+     *
+     * @param key     key
+     * @param T       对象
+     * @param timeout 过期时间，单位：秒
+     * @return Mono<Boolean> 是否设置成功
+     */
+    <T> Mono<Boolean> setObject(String key, T T, long timeout);
+
+    /**
+     * 根据key获取对象(对象采用Redis的String存储)
+     *
+     * @param key key
+     * @return Mono<T> 对象，不存在时为空
+     */
+    <T> Mono<T> getObject(String key);
+
+    /**
+     * 根据key列表获取同一对象列表(列表中的对象采用Redis的String存储)
+     *
+     * @param keys keys列表
+     * @return Mono<List<T>> 对象列表
+     */
+    <T> Mono<List<T>> mgetObject(List<String> keys);
+
+    /** ===============Redis-String数据结构接口END=============== */
+
+    /** ===============Redis-Hash数据结构接口START=============== */
+    /**
+     * Hash设置(可用于保存对象或者保存对象的单个field)
+     *
+     * @param key   Hash表的key
+     * @param field Hash表中的域field
+     * @param T     对象
+     * @return Mono<Boolean> 是否为新增的field
+     */
+    <T> Mono<Boolean> hset(String key, String field, T T);
+
+    /**
+     * Hash批量设置(可用于保存多个对象或者保存单个对象的多个field)
+     *
+     * @param key      Hash表的key
+     * @param paramMap Hash表的field和Value组成的Map
+     * @return Mono<Boolean> 是否设置成功
+     */
+    <T> Mono<Boolean> hmset(String key, Map<String, T> paramMap);
+
+    /**
+     * 根据Hash表的key和域Field获取对应的Value
+     *
+     * @param key   Hash表的key
+     * @param field Hash表中的域field
+     * @return Mono<T> 对应的Value，不存在时为空
+     */
+    <T> Mono<T> hget(String key, String field);
+
+    /**
+     * 根据Hash表的key和域Field列表获取对应的Value列表
+     *
+     * @param key    Hash表的key
+     * @param fields 域Field列表
+     * @return Mono<List<T>> 对应的Value列表
+     */
+    <T> Mono<List<T>> hmget(String key, List<String> fields);
+
+    /**
+     * 根据Hash表的key获取对应的所有对象
+     *
+     * @param key Hash表的key
+     * @return Mono<Map<String, T>> Hash表的key对应的所有对象Map
+     */
+    <T> Mono<Map<String, T>> hgetAll(String key);
+
+    /**
+     * 根据Hash表的key和域Field进行删除
+     *
+     * @param key    Hash表的key
+     * @param fields Hash表对应域Field数组
+     * @return Mono<Long> 删除的field数量
+     */
+    Mono<Long> hDel(String key, Object... fields);
+
+    /** ===============Redis-Hash数据结构接口END=============== */
+
+    /** ===============Redis-Set无序集合数据结构接口START=============== */
+
+    <T> Mono<Boolean> isMember(String key, T T);
+
+    /**
+     * Set设置(可用于保存对象)
+     *
+     * @param key
+     * @param T   对象
+     * @return Mono<Long> 新增的元素数量
+     */
+    <T> Mono<Long> addSet(String key, T T);
+
+    /**
+     * Set删除元素
+     *
+     * @param key
+     * @param T   对象
+     * @return Mono<Long> 删除的元素数量
+     */
+    <T> Mono<Long> setRemove(String key, T T);
+
+    /**
+     * 根据Set-key获取所有元素
+     *
+     * @param key
+     * @return Flux<T> 所有元素
+     */
+    <T> Flux<T> getSetAll(String key);
+
+    /**
+     * key对应set的大小
+     *
+     * @param setKey
+     * @return Mono<Long> set的大小
+     */
+    Mono<Long> scard(String setKey);
+
+    /** ===============Redis-Set无序集合数据结构接口END=============== */
+
+    /** ===============Redis-LIST列表数据结构接口START=============== */
+
+    /**
+     * List 增加一个或多个value
+     * 与RedisService.rPush一致：元素以fastjson字符串存储，key不加命名空间
+     *
+     * @param key
+     * @param obj
+     * @return Mono<Long> 操作后list的大小
+     * @deprecated 元素先经fastjson再经值序列化器两次编码，且key不含命名空间，请使用rPushAll
+     */
+    @Deprecated
+    <T> Mono<Long> rPush(String key, T... obj);
+
+    /**
+     * List 获取一个值
+     *
+     * @param key
+     * @return Mono<String> 弹出的值，list为空时为空
+     * @deprecated 请使用lPopTyped，旧数据可通过RedisService.lPopTyped(key, legacyType)迁移
+     */
+    @Deprecated
+    Mono<String> lPop(String key);
+
+    /**
+     * key对应list的大小
+     *
+     * @param key
+     * @return Mono<Long> list的大小
+     * @deprecated key不含命名空间，只能读取rPush写入的旧List，请使用lLenTyped
+     */
+    @Deprecated
+    Mono<Long> llen(String key);
+
+    /**
+     * 从List右侧批量追加对象，与RedisService.rPushAll一致：值序列化器一次编码
+     *
+     * @param key    key
+     * @param values 对象集合
+     * @return Mono<Long> 追加后List的长度
+     */
+    <T> Mono<Long> rPushAll(String key, Collection<T> values);
+
+    /**
+     * 获取List指定区间的对象
+     *
+     * @param key   key
+     * @param start 开始下标，从0开始
+     * @param end   结束下标(包含)，-1表示最后一个
+     * @return Flux<T> 对象列表
+     */
+    <T> Flux<T> lRange(String key, long start, long end);
+
+    /**
+     * 从List左侧弹出一个对象
+     *
+     * @param key key
+     * @return Mono<T> 对象，list为空时为空
+     */
+    <T> Mono<T> lPopTyped(String key);
+
+    /**
+     * 获取List的长度
+     *
+     * @param key key
+     * @return Mono<Long> List的长度，key不存在时为0
+     */
+    Mono<Long> lLenTyped(String key);
+
+    /** ===============Redis-LIST列表数据结构接口END=============== */
+
+    /** ===============Redis接口START=============== */
+    /**
+     * 设置key在多少秒后过期
+     *
+     * @param key     key
+     * @param timeout 过期时间，单位：秒
+     * @return Mono<Boolean> 是否设置成功
+     */
+    Mono<Boolean> expire(RedisTypeEnum typeEnum, String key, long timeout);
+
+    /**
+     * 设置key在固定的某个时刻后过期
+     *
+     * @param key  key
+     * @param date 固定的某个时刻
+     * @return Mono<Boolean> 是否设置成功
+     */
+    Mono<Boolean> expireAt(RedisTypeEnum typeEnum, String key, Date date);
+
+    /**
+     * 根据key删除单个对象
+     *
+     * @param key Redis中存储的key
+     * @return Mono<Long> 删除的key数量
+     */
+    Mono<Long> delete(RedisTypeEnum typeEnum, String key);
+
+    /**
+     * 根据key列表删除多个对象
+     *
+     * @param keys keys列表
+     * @return Mono<Long> 删除的key数量
+     */
+    Mono<Long> deleteAll(RedisTypeEnum typeEnum, List<String> keys);
+
+    /**
+     * 判断key是否存在
+     *
+     * @param key
+     * @return Mono<Boolean> 是否存在
+     */
+    Mono<Boolean> hasKey(RedisTypeEnum typeEnum, String key);
+
+    /**
+     * 自增
+     *
+     * @param key
+     * @return Mono<Long> 自增后的值
+     */
+    Mono<Long> increase(String key);
+
+    /**
+     * 自减
+     *
+     * @param key
+     * @return Mono<Long> 自减后的值
+     */
+    Mono<Long> decrease(String key);
+
+    /**
+     * 获取key的剩余有效期，单位：秒，-1表示永久有效，-2表示key不存在
+     *
+     * @param key
+     * @return Mono<Long> 剩余有效期
+     */
+    Mono<Long> getExpireTime(RedisTypeEnum typeEnum, String key);
+
+    /** ===============Redis接口END=============== */
+}
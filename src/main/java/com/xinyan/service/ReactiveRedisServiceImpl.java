@@ -0,0 +1,341 @@
+package com.xinyan.service;
+
+import com.alibaba.fastjson.JSON;
+import com.xinyan.cache.NearCache;
+import com.xinyan.common.RedisTypeEnum;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveSetOperations;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Resource;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * redis非阻塞操作类
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Service("reactiveRedisService")
+public class ReactiveRedisServiceImpl implements ReactiveRedisService {
+
+    @Resource
+    private ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+
+    @Resource
+    private RedisKeyGenerator redisKeyGenerator;
+
+    /**
+     * 进程内近端缓存，写操作后需通知失效
+     */
+    @Autowired(required = false)
+    private NearCache nearCache;
+
+    private String getKey(RedisTypeEnum typeEnum, String key) {
+        return redisKeyGenerator.getKey(typeEnum, key);
+    }
+
+    private List<String> getKeyList(RedisTypeEnum typeEnum, List<String> keys) {
+        List<String> newKeys = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            newKeys.add(getKey(typeEnum, key));
+        }
+        return newKeys;
+    }
+
+    private <T> Map<String, T> getKeyMap(RedisTypeEnum typeEnum, Map<String, T> paramMap) {
+        Map<String, T> newKeys = new HashMap<>(paramMap.size());
+        for (Map.Entry<String, T> entry : paramMap.entrySet()) {
+            newKeys.put(getKey(typeEnum, entry.getKey()), entry.getValue());
+        }
+        return newKeys;
+    }
+
+    /**
+     * 写操作完成后失效近端缓存，结果原样返回
+     */
+    private <R> Mono<R> evictNearCache(Mono<R> write, List<String> keys) {
+        if (nearCache == null) {
+            return write;
+        }
+        return write.flatMap(result -> {
+            for (String key : keys) {
+                nearCache.evictLocal(key);
+            }
+            if (nearCache.getChannel() == null) {
+                return Mono.just(result);
+            }
+            ByteBuffer channel = ByteBuffer.wrap(nearCache.getChannel().getBytes(StandardCharsets.UTF_8));
+            return reactiveRedisTemplate.execute(connection -> Flux.fromIterable(keys)
+                    .flatMap(key -> connection.pubSubCommands().publish(channel.duplicate(),
+                            ByteBuffer.wrap(nearCache.invalidationMessage(key).getBytes(StandardCharsets.UTF_8)))))
+                    .then(Mono.just(result));
+        });
+    }
+
+    private <R> Mono<R> evictNearCache(Mono<R> write, String key) {
+        return nearCache == null ? write : evictNearCache(write, Collections.singletonList(key));
+    }
+
+    private <R> Mono<R> evictNearCache(Mono<R> write, RedisTypeEnum typeEnum, List<String> keys) {
+        return typeEnum == RedisTypeEnum.STRING || typeEnum == RedisTypeEnum.HASH ? evictNearCache(write, keys) : write;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ReactiveValueOperations<String, T> valueOps() {
+        return (ReactiveValueOperations<String, T>) (ReactiveValueOperations<String, ?>) reactiveRedisTemplate.opsForValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ReactiveHashOperations<String, String, T> hashOps() {
+        return (ReactiveHashOperations<String, String, T>) (ReactiveHashOperations<String, ?, ?>) reactiveRedisTemplate.opsForHash();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ReactiveSetOperations<String, T> setOps() {
+        return (ReactiveSetOperations<String, T>) (ReactiveSetOperations<String, ?>) reactiveRedisTemplate.opsForSet();
+    }
+
+    /** ===============Redis-String数据结构接口START=============== */
+
+    @Override
+    public Mono<Boolean> set(String key, String value) {
+        key = getKey(RedisTypeEnum.STRING, key);
+        return evictNearCache(this.<String>valueOps().set(key, value), key);
+    }
+
+    @Override
+    public Mono<Boolean> set(String key, String value, long timeout) {
+        key = getKey(RedisTypeEnum.STRING, key);
+        return evictNearCache(this.<String>valueOps().set(key, value, Duration.ofSeconds(timeout)), key);
+    }
+
+    @Override
+    public Mono<Boolean> mset(Map<String, String> paramMap) {
+        paramMap = getKeyMap(RedisTypeEnum.STRING, paramMap);
+        return evictNearCache(this.<String>valueOps().multiSet(paramMap), new ArrayList<>(paramMap.keySet()));
+    }
+
+    @Override
+    public Mono<String> get(String key) {
+        key = getKey(RedisTypeEnum.STRING, key);
+        return this.<String>valueOps().get(key);
+    }
+
+    @Override
+    public Mono<List<String>> mget(List<String> keys) {
+        keys = getKeyList(RedisTypeEnum.STRING, keys);
+        return this.<String>valueOps().multiGet(keys);
+    }
+
+    @Override
+    public <T> Mono<Boolean> setObject(String key, T T) {
+        key = getKey(RedisTypeEnum.STRING, key);
+        return evictNearCache(this.<T>valueOps().set(key, T), key);
+    }
+
+    @Override
+    public <T> Mono<Boolean> setObject(String key, T T, long timeout) {
+        key = getKey(RedisTypeEnum.STRING, key);
+        return evictNearCache(this.<T>valueOps().set(key, T, Duration.ofSeconds(timeout)), key);
+    }
+
+    @Override
+    public <T> Mono<T> getObject(String key) {
+        key = getKey(RedisTypeEnum.STRING, key);
+        return this.<T>valueOps().get(key);
+    }
+
+    @Override
+    public <T> Mono<List<T>> mgetObject(List<String> keys) {
+        keys = getKeyList(RedisTypeEnum.STRING, keys);
+        return this.<T>valueOps().multiGet(keys);
+    }
+
+    /** ===============Redis-String数据结构接口END=============== */
+
+    /** ===============Redis-HASH数据结构接口START=============== */
+
+    @Override
+    public <T> Mono<Boolean> hset(String key, String field, T T) {
+        key = getKey(RedisTypeEnum.HASH, key);
+        return evictNearCache(this.<T>hashOps().put(key, field, T), key);
+    }
+
+    @Override
+    public <T> Mono<Boolean> hmset(String key, Map<String, T> paramMap) {
+        key = getKey(RedisTypeEnum.HASH, key);
+        return evictNearCache(this.<T>hashOps().putAll(key, paramMap), key);
+    }
+
+    @Override
+    public <T> Mono<T> hget(String key, String field) {
+        key = getKey(RedisTypeEnum.HASH, key);
+        return this.<T>hashOps().get(key, field);
+    }
+
+    @Override
+    public <T> Mono<List<T>> hmget(String key, List<String> fields) {
+        key = getKey(RedisTypeEnum.HASH, key);
+        return this.<T>hashOps().multiGet(key, fields);
+    }
+
+    @Override
+    public <T> Mono<Map<String, T>> hgetAll(String key) {
+        key = getKey(RedisTypeEnum.HASH, key);
+        return this.<T>hashOps().entries(key).collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    @Override
+    public Mono<Long> hDel(String key, Object... fields) {
+        key = getKey(RedisTypeEnum.HASH, key);
+        return evictNearCache(hashOps().remove(key, fields), key);
+    }
+
+    /** ===============Redis-HASH数据结构接口END=============== */
+
+    /** ===============Redis-SET数据结构接口START=============== */
+
+    @Override
+    public <T> Mono<Boolean> isMember(String key, T val) {
+        key = getKey(RedisTypeEnum.SET, key);
+        return this.<T>setOps().isMember(key, val);
+    }
+
+    @Override
+    public <T> Mono<Long> addSet(String key, T val) {
+        key = getKey(RedisTypeEnum.SET, key);
+        return this.<T>setOps().add(key, val);
+    }
+
+    @Override
+    public <T> Mono<Long> setRemove(String key, T val) {
+        key = getKey(RedisTypeEnum.SET, key);
+        return this.<T>setOps().remove(key, val);
+    }
+
+    @Override
+    public <T> Flux<T> getSetAll(String key) {
+        key = getKey(RedisTypeEnum.SET, key);
+        return this.<T>setOps().members(key);
+    }
+
+    @Override
+    public Mono<Long> scard(String key) {
+        key = getKey(RedisTypeEnum.SET, key);
+        return setOps().size(key);
+    }
+
+    /** ===============Redis-SET数据结构接口END=============== */
+
+    /** ===============Redis-LIST数据结构接口START=============== */
+
+    @Override
+    public <T> Mono<Long> rPush(String key, T... obj) {
+        Object[] values = new Object[obj.length];
+        for (int i = 0; i < obj.length; i++) {
+            values[i] = JSON.toJSONString(obj[i]);
+        }
+        return reactiveRedisTemplate.opsForList().rightPushAll(key, values);
+    }
+
+    @Override
+    public Mono<String> lPop(String key) {
+        return reactiveRedisTemplate.opsForList().leftPop(key).map(Object::toString);
+    }
+
+    @Override
+    public Mono<Long> llen(String key) {
+        return reactiveRedisTemplate.opsForList().size(key);
+    }
+
+    @Override
+    public <T> Mono<Long> rPushAll(String key, Collection<T> values) {
+        return reactiveRedisTemplate.opsForList().rightPushAll(getKey(RedisTypeEnum.LIST, key), new ArrayList<>(values));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> Flux<T> lRange(String key, long start, long end) {
+        return reactiveRedisTemplate.opsForList().range(getKey(RedisTypeEnum.LIST, key), start, end).map(value -> (T) value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> Mono<T> lPopTyped(String key) {
+        return reactiveRedisTemplate.opsForList().leftPop(getKey(RedisTypeEnum.LIST, key)).map(value -> (T) value);
+    }
+
+    @Override
+    public Mono<Long> lLenTyped(String key) {
+        return reactiveRedisTemplate.opsForList().size(getKey(RedisTypeEnum.LIST, key));
+    }
+
+    /** ===============Redis-LIST数据结构接口END=============== */
+
+    /** ===============Redis接口START=============== */
+
+    @Override
+    public Mono<Boolean> expire(RedisTypeEnum typeEnum, String key, long timeout) {
+        key = getKey(typeEnum, key);
+        return evictNearCache(reactiveRedisTemplate.expire(key, Duration.ofSeconds(timeout)), typeEnum, Collections.singletonList(key));
+    }
+
+    @Override
+    public Mono<Boolean> expireAt(RedisTypeEnum typeEnum, String key, Date date) {
+        key = getKey(typeEnum, key);
+        return evictNearCache(reactiveRedisTemplate.expireAt(key, date.toInstant()), typeEnum, Collections.singletonList(key));
+    }
+
+    @Override
+    public Mono<Long> delete(RedisTypeEnum typeEnum, String key) {
+        key = getKey(typeEnum, key);
+        return evictNearCache(reactiveRedisTemplate.delete(key), typeEnum, Collections.singletonList(key));
+    }
+
+    @Override
+    public Mono<Long> deleteAll(RedisTypeEnum typeEnum, List<String> keys) {
+        keys = getKeyList(typeEnum, keys);
+        return evictNearCache(reactiveRedisTemplate.delete(keys.toArray(new String[0])), typeEnum, keys);
+    }
+
+    @Override
+    public Mono<Boolean> hasKey(RedisTypeEnum typeEnum, String key) {
+        key = getKey(typeEnum, key);
+        return reactiveRedisTemplate.hasKey(key);
+    }
+
+    @Override
+    public Mono<Long> increase(String key) {
+        key = getKey(RedisTypeEnum.STRING, key);
+        return evictNearCache(valueOps().increment(key), key);
+    }
+
+    @Override
+    public Mono<Long> decrease(String key) {
+        key = getKey(RedisTypeEnum.STRING, key);
+        return evictNearCache(valueOps().decrement(key), key);
+    }
+
+    @Override
+    public Mono<Long> getExpireTime(RedisTypeEnum typeEnum, String key) {
+        ByteBuffer rawKey = ByteBuffer.wrap(redisKeyGenerator.rawKey(typeEnum, key));
+        return reactiveRedisTemplate.createMono(connection -> connection.keyCommands().ttl(rawKey));
+    }
+
+    /** ===============Redis接口END=============== */
+}
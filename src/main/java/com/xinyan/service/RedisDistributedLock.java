@@ -1,19 +1,41 @@
 package com.xinyan.service;
 
+import com.xinyan.common.LockWaitModeEnum;
+import com.xinyan.common.SymbolEnum;
+import io.lettuce.core.cluster.SlotHash;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
 import org.springframework.data.redis.connection.RedisStringCommands;
 import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * redis分布式锁
@@ -23,13 +45,92 @@ import java.util.concurrent.TimeUnit;
  */
 @Component
 @Slf4j
-public class RedisDistributedLock {
+public class RedisDistributedLock implements MessageListener {
+
+    /**
+     * 释放锁脚本名称
+     */
+    private static final String UNLOCK_SCRIPT = "distributedLock:unlock";
+
+    private static final String LOCK_ALL_SCRIPT = "distributedLock:lockAll";
+
+    private static final String UNLOCK_ALL_SCRIPT = "distributedLock:unlockAll";
+
+    /**
+     * 批量获取锁的重试间隔，单位：毫秒
+     */
+    private static final long LOCK_ALL_RETRY_MILLIS = 50;
+
+    /**
+     * PUBSUB模式下持有者崩溃未发布释放消息时，最长等待该时间后重试
+     */
+    private static final long MAX_SIGNAL_WAIT_MILLIS = 1000;
+
+    private static final String WATCHDOG_DISABLED = "lock watchdog is disabled, set redis.lock.watchdog.enabled=true";
 
     @Resource
     private RedisTemplate redisTemplate;
 
+    @Resource
+    private RedisScriptRegistry redisScriptRegistry;
+
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Resource
+    private RedisKeyGenerator redisKeyGenerator;
+
+    @Resource
+    private LettuceConnectionFactory lettuceConnectionFactory;
+
+    /**
+     * 续期看门狗，redis.lock.watchdog.enabled=true时启用
+     */
+    @Autowired(required = false)
+    private LockWatchdog lockWatchdog;
+
+    /**
+     * 等待锁的方式
+     */
+    @Value("${redis.lock.wait-mode:SPIN}")
+    private LockWaitModeEnum waitMode;
+
+    /**
+     * 是否先获取本地锁，同一节点同一把锁只有一个线程访问Redis，且同一线程可重入
+     */
+    @Value("${redis.lock.local-first:false}")
+    private boolean localFirst;
+
     private static String unlockScript;
 
+    private static String unlockAndPublishScript;
+
+    private static String lockAllScript;
+
+    private static String unlockAllScript;
+
+    /**
+     * 是否集群模式，集群模式下批量加锁按slot分组
+     */
+    private boolean cluster;
+
+    /**
+     * 锁释放消息的频道，消息内容为lockKey
+     */
+    private String releaseChannel;
+
+    private byte[] rawReleaseChannel;
+
+    /**
+     * 本节点正在等待的锁，key为lockKey
+     */
+    private final ConcurrentMap<String, LockWaiters> waiters = new ConcurrentHashMap<>();
+
+    /**
+     * 本节点持有或正在获取的本地锁，key为lockKey
+     */
+    private final ConcurrentMap<String, LocalLock> localLocks = new ConcurrentHashMap<>();
+
     /**
      * 释放锁脚本，原子操作
      * 封装Redis Script
@@ -44,6 +145,56 @@ public class RedisDistributedLock {
         sb.append("    return 0 ");
         sb.append("end ");
         unlockScript = sb.toString();
+
+        sb = new StringBuilder();
+        sb.append("if redis.call(\"get\",KEYS[1]) == ARGV[1] ");
+        sb.append("then ");
+        sb.append("    redis.call(\"del\",KEYS[1]) ");
+        sb.append("    redis.call(\"publish\",ARGV[2],KEYS[1]) ");
+        sb.append("    return 1 ");
+        sb.append("else ");
+        sb.append("    return 0 ");
+        sb.append("end ");
+        unlockAndPublishScript = sb.toString();
+
+        // 批量加锁，全部成功或全部失败，ARGV[1]为token，ARGV[2]为有效期(毫秒)
+        sb = new StringBuilder();
+        sb.append("for i = 1, #KEYS do ");
+        sb.append("    if redis.call('exists', KEYS[i]) == 1 then return 0 end ");
+        sb.append("end ");
+        sb.append("for i = 1, #KEYS do ");
+        sb.append("    redis.call('set', KEYS[i], ARGV[1], 'PX', ARGV[2]) ");
+        sb.append("end ");
+        sb.append("return 1 ");
+        lockAllScript = sb.toString();
+
+        // 批量释放，返回释放的数量，ARGV[1]为token，ARGV[2]为释放消息的频道，为空时不发布
+        sb = new StringBuilder();
+        sb.append("local released = 0 ");
+        sb.append("for i = 1, #KEYS do ");
+        sb.append("    if redis.call('get', KEYS[i]) == ARGV[1] then ");
+        sb.append("        redis.call('del', KEYS[i]) ");
+        sb.append("        released = released + 1 ");
+        sb.append("        if ARGV[2] ~= '' then redis.call('publish', ARGV[2], KEYS[i]) end ");
+        sb.append("    end ");
+        sb.append("end ");
+        sb.append("return released ");
+        unlockAllScript = sb.toString();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (waitMode == LockWaitModeEnum.PUBSUB) {
+            releaseChannel = redisKeyGenerator.getNamespace() + "lock" + SymbolEnum.COLON.getSymbol() + "released";
+            rawReleaseChannel = releaseChannel.getBytes(StandardCharsets.UTF_8);
+            redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(releaseChannel));
+            redisScriptRegistry.register(UNLOCK_SCRIPT, unlockAndPublishScript, ReturnType.BOOLEAN);
+        } else {
+            redisScriptRegistry.register(UNLOCK_SCRIPT, unlockScript, ReturnType.BOOLEAN);
+        }
+        redisScriptRegistry.register(LOCK_ALL_SCRIPT, lockAllScript, ReturnType.BOOLEAN);
+        redisScriptRegistry.register(UNLOCK_ALL_SCRIPT, unlockAllScript, ReturnType.INTEGER);
+        cluster = lettuceConnectionFactory.isClusterAware();
     }
 
     /**
@@ -54,9 +205,30 @@ public class RedisDistributedLock {
      * @return
      */
     public String tryLock(String lockKey, long msExpire) {
-        String token = UUID.randomUUID().toString().replace("-", "");
+        Assert.isTrue(msExpire > 0, "msExpire must greater than 0");
+        if (!localFirst) {
+            return acquire(lockKey, msExpire);
+        }
+        LocalLock local = reenter(lockKey);
+        if (local != null) {
+            return local.token;
+        }
+        local = acquireLocal(lockKey);
+        if (!local.lock.tryLock()) {
+            releaseLocal(lockKey, local);
+            return null;
+        }
+        return holdLocal(lockKey, local, acquire(lockKey, msExpire));
+    }
+
+    /**
+     * SET NX获取锁，只尝试一次
+     */
+    private String acquire(String lockKey, long msExpire) {
+        String token = newToken();
         try {
-            RedisCallback<Boolean> callback = (connection) -> connection.set(lockKey.getBytes(Charset.forName("UTF-8")), token.getBytes(Charset.forName("UTF-8")), Expiration.seconds(TimeUnit.MILLISECONDS.toSeconds(msExpire)), RedisStringCommands.SetOption.SET_IF_ABSENT);
+            // 毫秒精度(SET PX)，不足1秒的有效期不会被截断
+            RedisCallback<Boolean> callback = (connection) -> connection.set(lockKey.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8), Expiration.milliseconds(msExpire), RedisStringCommands.SetOption.SET_IF_ABSENT);
             if ((Boolean) redisTemplate.execute(callback)) {
                 return token;
             }
@@ -68,7 +240,7 @@ public class RedisDistributedLock {
     }
 
     /**
-     * 指定时间内自旋获取分布式锁
+     * 指定时间内获取分布式锁，等待方式由redis.lock.wait-mode决定
      *
      * @param lockKey
      * @param msExpire key失效时间
@@ -78,10 +250,42 @@ public class RedisDistributedLock {
     public String tryLock(String lockKey, long msExpire, long timeout) {
         // 限制阻塞时间，根据自己的业务系统设置。如果尝试加锁的线程多的话最好不要设置的太大，要不然会有太多的线程在自旋，耗费CPU
         Assert.isTrue(timeout > 0 && timeout <= 60000, "timeout must greater than 0 and less than 1 min");
+        Assert.isTrue(msExpire > 0, "msExpire must greater than 0");
+        if (!localFirst) {
+            return acquire(lockKey, msExpire, timeout);
+        }
+        LocalLock local = reenter(lockKey);
+        if (local != null) {
+            return local.token;
+        }
+        long deadline = System.currentTimeMillis() + timeout;
+        local = acquireLocal(lockKey);
+        try {
+            if (!local.lock.tryLock(timeout, TimeUnit.MILLISECONDS)) {
+                releaseLocal(lockKey, local);
+                return null;
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            releaseLocal(lockKey, local);
+            return null;
+        }
+        long remaining = deadline - System.currentTimeMillis();
+        String token = remaining > 0 ? acquire(lockKey, msExpire, remaining) : acquire(lockKey, msExpire);
+        return holdLocal(lockKey, local, token);
+    }
+
+    /**
+     * 指定时间内在Redis上获取锁
+     */
+    private String acquire(String lockKey, long msExpire, long timeout) {
+        if (waitMode == LockWaitModeEnum.PUBSUB) {
+            return waitForRelease(lockKey, msExpire, timeout);
+        }
         long startTime = System.currentTimeMillis();
         String token;
         do {
-            token = tryLock(lockKey, msExpire);
+            token = acquire(lockKey, msExpire);
             // 加锁失败
             if (StringUtils.isBlank(token)) {
                 if ((System.currentTimeMillis() - startTime) > (timeout - 50)) {
@@ -100,6 +304,302 @@ public class RedisDistributedLock {
         return token;
     }
 
+    /**
+     * 获取分布式锁并由看门狗自动续期，直到释放锁或当前线程结束
+     * 有效期可以设置得较短，持有者崩溃后其他节点最多等待一个有效期
+     *
+     * @param lockKey
+     * @param msLease 每次续期的有效期，单位：毫秒
+     * @return
+     */
+    public String tryLockWithWatchdog(String lockKey, long msLease) {
+        Assert.state(lockWatchdog != null, WATCHDOG_DISABLED);
+        return watch(lockKey, tryLock(lockKey, msLease), msLease);
+    }
+
+    /**
+     * 指定时间内获取分布式锁并由看门狗自动续期
+     *
+     * @param lockKey
+     * @param msLease 每次续期的有效期，单位：毫秒
+     * @param timeout 获取锁超时时间
+     * @return
+     */
+    public String tryLockWithWatchdog(String lockKey, long msLease, long timeout) {
+        Assert.state(lockWatchdog != null, WATCHDOG_DISABLED);
+        return watch(lockKey, tryLock(lockKey, msLease, timeout), msLease);
+    }
+
+    /**
+     * 是否启用了续期看门狗，未启用时不能使用tryLockWithWatchdog
+     */
+    public boolean isWatchdogEnabled() {
+        return lockWatchdog != null;
+    }
+
+    private String watch(String lockKey, String token, long msLease) {
+        if (token != null) {
+            lockWatchdog.watch(lockKey, token, msLease);
+        }
+        return token;
+    }
+
+    /**
+     * 批量获取分布式锁，全部获取成功或全部失败 -> 只尝试获取一次
+     * 所有锁共用一个token；单机模式一次脚本完成，集群模式按slot分组、按slot顺序逐组获取，某组失败时回滚已获取的组。
+     * 批量锁不经过本地锁，不可重入，也不支持看门狗续期
+     *
+     * @param lockKeys
+     * @param msExpire 有效期，单位：毫秒
+     * @return 获取成功返回token，否则返回null
+     */
+    public String tryLockAll(Collection<String> lockKeys, long msExpire) {
+        Assert.notEmpty(lockKeys, "lockKeys must not be empty");
+        Assert.isTrue(msExpire > 0, "msExpire must greater than 0");
+        String token = newToken();
+        List<byte[][]> acquired = new ArrayList<>();
+        try {
+            for (byte[][] keys : slotGroups(lockKeys)) {
+                Boolean locked = redisScriptRegistry.execute(LOCK_ALL_SCRIPT, keys.length,
+                        concat(keys, token.getBytes(StandardCharsets.UTF_8), String.valueOf(msExpire).getBytes(StandardCharsets.UTF_8)));
+                if (locked == null || !locked) {
+                    releaseGroups(acquired, token);
+                    return null;
+                }
+                acquired.add(keys);
+            }
+            return token;
+        } catch (Exception e) {
+            log.error("redis lock all error", e);
+            releaseGroups(acquired, token);
+            return null;
+        }
+    }
+
+    /**
+     * 指定时间内批量获取分布式锁，全部获取成功或全部失败
+     *
+     * @param lockKeys
+     * @param msExpire 有效期，单位：毫秒
+     * @param timeout  获取锁超时时间，单位：毫秒
+     * @return 获取成功返回token，否则返回null
+     */
+    public String tryLockAll(Collection<String> lockKeys, long msExpire, long timeout) {
+        Assert.isTrue(timeout > 0 && timeout <= 60000, "timeout must greater than 0 and less than 1 min");
+        long deadline = System.currentTimeMillis() + timeout;
+        String token;
+        while ((token = tryLockAll(lockKeys, msExpire)) == null) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            try {
+                Thread.sleep(Math.min(LOCK_ALL_RETRY_MILLIS, remaining));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                log.warn("lockKeys: {} wait interrupted", lockKeys);
+                break;
+            }
+        }
+        return token;
+    }
+
+    /**
+     * 批量释放锁
+     *
+     * @param lockKeys
+     * @param token    批量获取锁时返回的token
+     * @return 是否全部释放成功，部分锁已过期时返回false
+     */
+    public boolean releaseAll(Collection<String> lockKeys, String token) {
+        Assert.notEmpty(lockKeys, "lockKeys must not be empty");
+        Assert.notNull(token, "Token must not be null");
+        List<byte[][]> groups = slotGroups(lockKeys);
+        long released = releaseGroups(groups, token);
+        return released == groups.stream().mapToLong(keys -> keys.length).sum();
+    }
+
+    private long releaseGroups(List<byte[][]> groups, String token) {
+        byte[] channel = waitMode == LockWaitModeEnum.PUBSUB ? rawReleaseChannel : new byte[0];
+        long released = 0;
+        for (byte[][] keys : groups) {
+            Long count = redisScriptRegistry.execute(UNLOCK_ALL_SCRIPT, keys.length,
+                    concat(keys, token.getBytes(StandardCharsets.UTF_8), channel));
+            released += count == null ? 0 : count;
+            if (waitMode == LockWaitModeEnum.PUBSUB) {
+                for (byte[] key : keys) {
+                    signal(new String(key, StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return released;
+    }
+
+    /**
+     * 去重排序后的lockKey，集群模式下按slot分组并按slot升序，各节点获取顺序一致
+     */
+    private List<byte[][]> slotGroups(Collection<String> lockKeys) {
+        TreeSet<String> sorted = new TreeSet<>(lockKeys);
+        List<byte[][]> groups = new ArrayList<>();
+        if (!cluster) {
+            groups.add(sorted.stream().map(key -> key.getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new));
+            return groups;
+        }
+        Map<Integer, List<byte[]>> slots = new TreeMap<>();
+        for (String key : sorted) {
+            byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+            slots.computeIfAbsent(SlotHash.getSlot(rawKey), slot -> new ArrayList<>()).add(rawKey);
+        }
+        slots.values().forEach(keys -> groups.add(keys.toArray(new byte[0][])));
+        return groups;
+    }
+
+    private static byte[][] concat(byte[][] keys, byte[]... args) {
+        byte[][] keysAndArgs = new byte[keys.length + args.length][];
+        System.arraycopy(keys, 0, keysAndArgs, 0, keys.length);
+        System.arraycopy(args, 0, keysAndArgs, keys.length, args.length);
+        return keysAndArgs;
+    }
+
+    /**
+     * 订阅释放消息等待锁
+     * 同一节点对同一把锁只有持有poller的线程访问Redis，其余线程在本地排队，锁释放后立即被唤醒重试
+     */
+    private String waitForRelease(String lockKey, long msExpire, long timeout) {
+        String token = acquire(lockKey, msExpire);
+        if (token != null) {
+            return token;
+        }
+        long deadline = System.currentTimeMillis() + timeout;
+        LockWaiters entry = acquireWaiters(lockKey);
+        try {
+            long remaining;
+            while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+                if (!entry.poller.tryLock(remaining, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+                try {
+                    while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+                        // 先清空旧信号再尝试，尝试失败后到达的释放信号不会丢失
+                        entry.signal.drainPermits();
+                        token = acquire(lockKey, msExpire);
+                        if (token != null) {
+                            log.debug("tryLock 获取锁token: {} 完成.", token);
+                            return token;
+                        }
+                        entry.signal.tryAcquire(signalWaitMillis(lockKey, remaining), TimeUnit.MILLISECONDS);
+                    }
+                } finally {
+                    entry.poller.unlock();
+                }
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            log.warn("lockKey: {} wait interrupted", lockKey);
+        } finally {
+            releaseWaiters(lockKey, entry);
+        }
+        return null;
+    }
+
+    /**
+     * 本次最长等待时间，不超过锁的剩余有效期，避免持有者崩溃时一直等到超时
+     */
+    private long signalWaitMillis(String lockKey, long remaining) {
+        RedisCallback<Long> callback = (connection) -> connection.pTtl(lockKey.getBytes(StandardCharsets.UTF_8));
+        Long pttl = (Long) redisTemplate.execute(callback);
+        if (pttl == null || pttl < 0) {
+            // 锁已不存在或没有过期时间
+            return pttl != null && pttl == -2 ? 0 : Math.min(remaining, MAX_SIGNAL_WAIT_MILLIS);
+        }
+        return Math.min(remaining, Math.max(pttl, 1));
+    }
+
+    private LockWaiters acquireWaiters(String lockKey) {
+        return waiters.compute(lockKey, (key, entry) -> {
+            if (entry == null) {
+                entry = new LockWaiters();
+            }
+            entry.refs++;
+            return entry;
+        });
+    }
+
+    private void releaseWaiters(String lockKey, LockWaiters entry) {
+        waiters.computeIfPresent(lockKey, (key, current) -> {
+            if (current == entry && --current.refs == 0) {
+                return null;
+            }
+            return current;
+        });
+    }
+
+    /**
+     * 生成锁的token，读写锁、信号量共用
+     */
+    static String newToken() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    /**
+     * 当前线程已持有该锁时重入，不访问Redis
+     */
+    private LocalLock reenter(String lockKey) {
+        LocalLock local = localLocks.get(lockKey);
+        if (local != null && local.lock.isHeldByCurrentThread() && local.token != null) {
+            local.lock.lock();
+            return local;
+        }
+        return null;
+    }
+
+    /**
+     * 已获得本地锁后记录Redis锁的token，Redis上获取失败时释放本地锁
+     */
+    private String holdLocal(String lockKey, LocalLock local, String token) {
+        if (token == null) {
+            local.lock.unlock();
+            releaseLocal(lockKey, local);
+            return null;
+        }
+        local.token = token;
+        return token;
+    }
+
+    private LocalLock acquireLocal(String lockKey) {
+        return localLocks.compute(lockKey, (key, local) -> {
+            if (local == null) {
+                local = new LocalLock();
+            }
+            local.refs++;
+            return local;
+        });
+    }
+
+    private void releaseLocal(String lockKey, LocalLock local) {
+        localLocks.computeIfPresent(lockKey, (key, current) -> {
+            if (current == local && --current.refs == 0) {
+                return null;
+            }
+            return current;
+        });
+    }
+
+    /**
+     * 唤醒本节点等待该锁的线程
+     */
+    private void signal(String lockKey) {
+        LockWaiters entry = waiters.get(lockKey);
+        if (entry != null) {
+            entry.signal.release();
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        signal(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
     /**
      * 释放锁
      *
@@ -110,8 +610,43 @@ public class RedisDistributedLock {
     public boolean releaseLock(String lockKey, String token) {
         Assert.notNull(lockKey, "lockKey must not be null");
         Assert.notNull(token, "Token must not be null");
-        RedisCallback<Boolean> callback = (connection) -> connection.eval(unlockScript.getBytes(), ReturnType.BOOLEAN, 1, lockKey.getBytes(Charset.forName("UTF-8")), token.getBytes(Charset.forName("UTF-8")));
-        return (Boolean) redisTemplate.execute(callback);
+        LocalLock local = localFirst ? localLocks.get(lockKey) : null;
+        if (local == null || !token.equals(local.token)) {
+            return release(lockKey, token);
+        }
+        Assert.state(local.lock.isHeldByCurrentThread(), "lock must be released by the thread that acquired it");
+        if (local.lock.getHoldCount() > 1) {
+            // 重入释放，不访问Redis
+            local.lock.unlock();
+            return true;
+        }
+        try {
+            return release(lockKey, token);
+        } finally {
+            local.token = null;
+            local.lock.unlock();
+            releaseLocal(lockKey, local);
+        }
+    }
+
+    /**
+     * 在Redis上释放锁
+     */
+    private boolean release(String lockKey, String token) {
+        if (lockWatchdog != null) {
+            lockWatchdog.unwatch(lockKey, token);
+        }
+        Boolean released;
+        if (waitMode == LockWaitModeEnum.PUBSUB) {
+            released = redisScriptRegistry.execute(UNLOCK_SCRIPT, 1, lockKey.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8), rawReleaseChannel);
+            if (released != null && released) {
+                // 本节点的等待线程直接唤醒，无需等待订阅消息
+                signal(lockKey);
+            }
+        } else {
+            released = redisScriptRegistry.execute(UNLOCK_SCRIPT, 1, lockKey.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+        }
+        return released != null && released;
     }
 
     /**
@@ -130,4 +665,43 @@ public class RedisDistributedLock {
         return null;
     }
 
-}
\ No newline at end of file
+    /**
+     * 同一把锁在本节点的等待者
+     */
+    private static class LockWaiters {
+
+        /**
+         * 持有者负责访问Redis，其余线程公平排队
+         */
+        private final ReentrantLock poller = new ReentrantLock(true);
+
+        /**
+         * 锁释放信号
+         */
+        private final Semaphore signal = new Semaphore(0);
+
+        /**
+         * 引用计数，只在waiters.compute中修改
+         */
+        private int refs;
+    }
+
+    /**
+     * 同一把锁在本节点的本地锁
+     */
+    private static class LocalLock {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * Redis锁的token，只由持有本地锁的线程读写
+         */
+        private volatile String token;
+
+        /**
+         * 引用计数，只在localLocks.compute中修改
+         */
+        private int refs;
+    }
+
+}
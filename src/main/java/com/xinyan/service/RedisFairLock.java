@@ -0,0 +1,280 @@
+package com.xinyan.service;
+
+import com.xinyan.common.SymbolEnum;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * redis分布式公平锁
+ * 等待者按到达顺序进入Redis端队列(List)，只有队首等待者能获取锁，避免RedisDistributedLock自旋时部分线程长期抢不到锁。
+ * 每个等待者在Sorted Set中登记心跳截止时间(score)，等待者崩溃或放弃后，轮到它时即被移出队列，不会阻塞后续等待者。
+ * 锁、队列、心跳三个key共用hash tag：{lockKey}、{lockKey}:queue、{lockKey}:timeout，集群模式下位于同一slot。
+ * 释放锁时发布消息唤醒本节点的等待者，等待耗时记录到redis.lock.fair.wait(含p50/p95/p99)。
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Component
+@Slf4j
+public class RedisFairLock implements MessageListener {
+
+    private static final String LOCK_SCRIPT = "fairLock:lock";
+
+    private static final String UNLOCK_SCRIPT = "fairLock:unlock";
+
+    private static final String CANCEL_SCRIPT = "fairLock:cancel";
+
+    /**
+     * 等待者心跳间隔，单位：毫秒，未收到释放消息时也按该间隔重试
+     */
+    private static final long HEARTBEAT_MILLIS = 100;
+
+    /**
+     * 等待者心跳超时，单位：毫秒，超过该时间未重试的等待者轮到时会被移出队列
+     */
+    private static final long WAITER_TIMEOUT_MILLIS = HEARTBEAT_MILLIS * 5;
+
+    @Resource
+    private RedisScriptRegistry redisScriptRegistry;
+
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Resource
+    private RedisKeyGenerator redisKeyGenerator;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private static String lockScript;
+
+    private static String unlockScript;
+
+    private static String cancelScript;
+
+    private byte[] rawReleaseChannel;
+
+    private Timer acquiredTimer;
+
+    private Timer timeoutTimer;
+
+    /**
+     * 本节点正在等待的线程，key为lockKey
+     */
+    private final ConcurrentMap<String, Set<Thread>> waiters = new ConcurrentHashMap<>();
+
+    /**
+     * 公平锁脚本，原子操作
+     * KEYS[1]为锁，KEYS[2]为等待队列，KEYS[3]为等待者心跳，
+     * ARGV[1]为token，ARGV[2]为有效期(毫秒)，ARGV[3]为心跳超时(毫秒)，ARGV[4]为客户端当前时间(毫秒)，
+     * ARGV[3]为0表示只尝试一次，获取失败不入队。获取成功返回1，否则返回0
+     */
+    static {
+        StringBuilder sb = new StringBuilder();
+        sb.append("local now = tonumber(ARGV[4]) ");
+        sb.append("while true do ");
+        sb.append("    local first = redis.call('lindex', KEYS[2], 0) ");
+        sb.append("    if first == false then break end ");
+        sb.append("    local deadline = tonumber(redis.call('zscore', KEYS[3], first)) ");
+        sb.append("    if deadline and deadline > now then break end ");
+        sb.append("    redis.call('lpop', KEYS[2]) ");
+        sb.append("    redis.call('zrem', KEYS[3], first) ");
+        sb.append("end ");
+        sb.append("if redis.call('exists', KEYS[1]) == 0 then ");
+        sb.append("    local first = redis.call('lindex', KEYS[2], 0) ");
+        sb.append("    if first == false or first == ARGV[1] then ");
+        sb.append("        if first then ");
+        sb.append("            redis.call('lpop', KEYS[2]) ");
+        sb.append("            redis.call('zrem', KEYS[3], ARGV[1]) ");
+        sb.append("        end ");
+        sb.append("        redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2]) ");
+        sb.append("        return 1 ");
+        sb.append("    end ");
+        sb.append("end ");
+        sb.append("local timeout = tonumber(ARGV[3]) ");
+        sb.append("if timeout == 0 then return 0 end ");
+        sb.append("if redis.call('zadd', KEYS[3], now + timeout, ARGV[1]) == 1 then ");
+        sb.append("    redis.call('rpush', KEYS[2], ARGV[1]) ");
+        sb.append("end ");
+        sb.append("redis.call('pexpire', KEYS[2], timeout) ");
+        sb.append("redis.call('pexpire', KEYS[3], timeout) ");
+        sb.append("return 0 ");
+        lockScript = sb.toString();
+
+        // ARGV[1]为token，ARGV[2]为释放消息的频道
+        sb = new StringBuilder();
+        sb.append("if redis.call('get', KEYS[1]) ~= ARGV[1] then return 0 end ");
+        sb.append("redis.call('del', KEYS[1]) ");
+        sb.append("redis.call('publish', ARGV[2], KEYS[1]) ");
+        sb.append("return 1 ");
+        unlockScript = sb.toString();
+
+        // 等待超时放弃，ARGV[1]为token，ARGV[2]为释放消息的频道；放弃的是队首时唤醒下一个等待者
+        sb = new StringBuilder();
+        sb.append("local first = redis.call('lindex', KEYS[2], 0) ");
+        sb.append("redis.call('lrem', KEYS[2], 1, ARGV[1]) ");
+        sb.append("redis.call('zrem', KEYS[3], ARGV[1]) ");
+        sb.append("if first == ARGV[1] then redis.call('publish', ARGV[2], KEYS[1]) end ");
+        sb.append("return 1 ");
+        cancelScript = sb.toString();
+    }
+
+    @PostConstruct
+    public void init() {
+        String releaseChannel = redisKeyGenerator.getNamespace() + "fairLock" + SymbolEnum.COLON.getSymbol() + "released";
+        rawReleaseChannel = releaseChannel.getBytes(StandardCharsets.UTF_8);
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(releaseChannel));
+        redisScriptRegistry.register(LOCK_SCRIPT, lockScript, ReturnType.BOOLEAN);
+        redisScriptRegistry.register(UNLOCK_SCRIPT, unlockScript, ReturnType.BOOLEAN);
+        redisScriptRegistry.register(CANCEL_SCRIPT, cancelScript, ReturnType.BOOLEAN);
+        acquiredTimer = waitTimer("acquired");
+        timeoutTimer = waitTimer("timeout");
+    }
+
+    private Timer waitTimer(String result) {
+        return Timer.builder("redis.lock.fair.wait")
+                .description("Time spent waiting for a fair lock")
+                .tag("result", result)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 获取锁，只尝试一次；有等待者排队时不插队
+     *
+     * @param lockKey
+     * @param msExpire 有效期，单位：毫秒
+     * @return 获取成功返回token，否则返回null
+     */
+    public String tryLock(String lockKey, long msExpire) {
+        Assert.isTrue(msExpire > 0, "msExpire must greater than 0");
+        String token = RedisDistributedLock.newToken();
+        return attempt(lockKey, token, msExpire, 0) ? token : null;
+    }
+
+    /**
+     * 指定时间内按到达顺序获取锁
+     *
+     * @param lockKey
+     * @param msExpire 有效期，单位：毫秒
+     * @param timeout  获取锁超时时间，单位：毫秒
+     * @return 获取成功返回token，否则返回null
+     */
+    public String tryLock(String lockKey, long msExpire, long timeout) {
+        Assert.isTrue(msExpire > 0, "msExpire must greater than 0");
+        Assert.isTrue(timeout > 0 && timeout <= 60000, "timeout must greater than 0 and less than 1 min");
+        String token = RedisDistributedLock.newToken();
+        long start = System.nanoTime();
+        long deadline = System.currentTimeMillis() + timeout;
+        Thread current = Thread.currentThread();
+        Set<Thread> threads = waiters.computeIfAbsent(lockKey, k -> ConcurrentHashMap.newKeySet());
+        threads.add(current);
+        boolean acquired = false;
+        try {
+            // 先登记再尝试，尝试与park之间到达的释放消息不会丢失
+            while (!(acquired = attempt(lockKey, token, msExpire, WAITER_TIMEOUT_MILLIS))) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(Math.min(HEARTBEAT_MILLIS, remaining)));
+                if (Thread.interrupted()) {
+                    current.interrupt();
+                    log.warn("lockKey: {} wait interrupted", lockKey);
+                    break;
+                }
+            }
+        } finally {
+            threads.remove(current);
+            waiters.computeIfPresent(lockKey, (k, v) -> v.isEmpty() ? null : v);
+            if (!acquired) {
+                cancel(lockKey, token);
+            }
+            (acquired ? acquiredTimer : timeoutTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return acquired ? token : null;
+    }
+
+    /**
+     * 释放锁，并唤醒等待者
+     *
+     * @param lockKey
+     * @param token   获取锁时返回的token
+     * @return 是否释放成功
+     */
+    public boolean releaseLock(String lockKey, String token) {
+        Assert.notNull(lockKey, "lockKey must not be null");
+        Assert.notNull(token, "Token must not be null");
+        Boolean released = redisScriptRegistry.execute(UNLOCK_SCRIPT, 3,
+                concat(keys(lockKey), raw(token), rawReleaseChannel));
+        return released != null && released;
+    }
+
+    /**
+     * 收到释放消息，唤醒本节点等待该锁的线程，由队首等待者获取锁
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String lockKey = unwrap(new String(message.getBody(), StandardCharsets.UTF_8));
+        Set<Thread> threads = waiters.get(lockKey);
+        if (threads != null) {
+            threads.forEach(LockSupport::unpark);
+        }
+    }
+
+    private boolean attempt(String lockKey, String token, long msExpire, long waiterTimeout) {
+        Boolean acquired = redisScriptRegistry.execute(LOCK_SCRIPT, 3, concat(keys(lockKey), raw(token),
+                raw(String.valueOf(msExpire)), raw(String.valueOf(waiterTimeout)), raw(String.valueOf(System.currentTimeMillis()))));
+        return acquired != null && acquired;
+    }
+
+    private void cancel(String lockKey, String token) {
+        try {
+            redisScriptRegistry.execute(CANCEL_SCRIPT, 3, concat(keys(lockKey), raw(token), rawReleaseChannel));
+        } catch (Exception e) {
+            // 移出队列失败时等待者心跳超时后也会被清理
+            log.warn("lockKey: {} cancel waiter failed", lockKey, e);
+        }
+    }
+
+    /**
+     * 锁、等待队列、等待者心跳三个key
+     */
+    private static byte[][] keys(String lockKey) {
+        String lock = "{" + lockKey + "}";
+        return new byte[][]{raw(lock), raw(lock + SymbolEnum.COLON.getSymbol() + "queue"),
+                raw(lock + SymbolEnum.COLON.getSymbol() + "timeout")};
+    }
+
+    private static String unwrap(String lock) {
+        return lock.length() >= 2 && lock.startsWith("{") && lock.endsWith("}") ? lock.substring(1, lock.length() - 1) : lock;
+    }
+
+    private static byte[][] concat(byte[][] keys, byte[]... args) {
+        byte[][] keysAndArgs = new byte[keys.length + args.length][];
+        System.arraycopy(keys, 0, keysAndArgs, 0, keys.length);
+        System.arraycopy(args, 0, keysAndArgs, keys.length, args.length);
+        return keysAndArgs;
+    }
+
+    private static byte[] raw(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
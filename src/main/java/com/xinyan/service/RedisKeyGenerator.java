@@ -0,0 +1,80 @@
+package com.xinyan.service;
+
+import com.xinyan.common.RedisTypeEnum;
+import com.xinyan.common.SymbolEnum;
+import com.xinyan.serializer.Utf8StringRedisSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Redis key生成器，key格式为"环境:应用名:数据类型:key"
+ * 各数据类型的前缀在启动时预先计算好字符串和UTF-8字节两种形式，
+ * 生成key时只做一次拼接，直接操作连接的场景可用rawKey一次写出完整的key字节。
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Component
+public class RedisKeyGenerator {
+
+    private final String namespace;
+
+    private final String[] prefixes;
+
+    private final byte[][] rawPrefixes;
+
+    public RedisKeyGenerator(@Value("${spring.profiles.active}") String env,
+                             @Value("${spring.application.name}") String applicationName) {
+        this.namespace = env + SymbolEnum.COLON.getSymbol() + applicationName + SymbolEnum.COLON.getSymbol();
+        RedisTypeEnum[] types = RedisTypeEnum.values();
+        this.prefixes = new String[types.length];
+        this.rawPrefixes = new byte[types.length][];
+        for (RedisTypeEnum type : types) {
+            prefixes[type.ordinal()] = namespace + type.getType() + SymbolEnum.COLON.getSymbol();
+            rawPrefixes[type.ordinal()] = prefixes[type.ordinal()].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 生成完整的key
+     *
+     * @param typeEnum 数据类型
+     * @param key      业务key
+     * @return 环境:应用名:数据类型:key
+     */
+    public String getKey(RedisTypeEnum typeEnum, String key) {
+        return prefixes[typeEnum.ordinal()].concat(key);
+    }
+
+    /**
+     * 生成完整key的UTF-8字节，不创建中间字符串
+     *
+     * @param typeEnum 数据类型
+     * @param key      业务key
+     * @return 环境:应用名:数据类型:key 的UTF-8字节
+     */
+    public byte[] rawKey(RedisTypeEnum typeEnum, String key) {
+        return Utf8StringRedisSerializer.encode(rawPrefixes[typeEnum.ordinal()], key);
+    }
+
+    /**
+     * 数据类型前缀
+     *
+     * @param typeEnum 数据类型
+     * @return 环境:应用名:数据类型:
+     */
+    public String getPrefix(RedisTypeEnum typeEnum) {
+        return prefixes[typeEnum.ordinal()];
+    }
+
+    /**
+     * 应用命名空间
+     *
+     * @return 环境:应用名:
+     */
+    public String getNamespace() {
+        return namespace;
+    }
+}
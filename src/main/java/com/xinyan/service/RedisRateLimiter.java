@@ -0,0 +1,253 @@
+package com.xinyan.service;
+
+import com.xinyan.common.RedisTypeEnum;
+import com.xinyan.common.SymbolEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * redis分布式限流器，提供滑动窗口与令牌桶两种算法，每次判断在一个Lua脚本中原子完成
+ * 滑动窗口：按固定窗口计数，以上一窗口计数按剩余比例加权估算滑动窗口内的请求数，每个key只保存两个计数；
+ * 令牌桶：按速率补充令牌，桶容量即允许的突发请求数。
+ * 限额较大的热点key一次从Redis预留多个许可，在本地缓存中消费，预留许可未在reserve-millis内用完即作废(只会少放行，不会超限)；
+ * 被拒绝时按脚本返回的等待时间在本地直接拒绝，期间不再访问Redis。
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Component
+@Slf4j
+public class RedisRateLimiter {
+
+    private static final String SLIDING_WINDOW_SCRIPT = "rateLimiter:slidingWindow";
+
+    private static final String TOKEN_BUCKET_SCRIPT = "rateLimiter:tokenBucket";
+
+    /**
+     * 本地预留缓存超过该数量时清理已过期的条目
+     */
+    private static final int MAX_LOCAL_ENTRIES = 10000;
+
+    @Resource
+    private RedisService redisService;
+
+    /**
+     * 每次最多预留的许可数，1表示不预留，每个许可都访问Redis
+     */
+    @Value("${redis.rate-limiter.reserve-size:20}")
+    private int reserveSize;
+
+    /**
+     * 预留许可的有效期，单位：毫秒，应远小于限流窗口
+     */
+    @Value("${redis.rate-limiter.reserve-millis:100}")
+    private long reserveMillis;
+
+    private static String slidingWindowScript;
+
+    private static String tokenBucketScript;
+
+    /**
+     * 本节点预留的许可，key与Redis中的key相同：脚本名称+限流key
+     */
+    private final ConcurrentMap<String, Reservation> reservations = new ConcurrentHashMap<>();
+
+    /**
+     * 限流脚本，原子操作，返回{获得的许可数, 未获得全部许可时建议的等待时间(毫秒)}
+     * KEYS[1]为限流的key(Hash)，ARGV[1]为客户端当前时间(毫秒)，ARGV[4]为请求的许可数
+     * 滑动窗口：ARGV[2]为窗口大小(毫秒)，ARGV[3]为窗口内的许可数
+     */
+    static {
+        StringBuilder sb = new StringBuilder();
+        sb.append("local now = tonumber(ARGV[1]) ");
+        sb.append("local window = tonumber(ARGV[2]) ");
+        sb.append("local limit = tonumber(ARGV[3]) ");
+        sb.append("local requested = tonumber(ARGV[4]) ");
+        sb.append("local current = math.floor(now / window) ");
+        sb.append("local data = redis.call('hmget', KEYS[1], 'window', 'count', 'previous') ");
+        sb.append("local count = tonumber(data[2]) or 0 ");
+        sb.append("local previous = tonumber(data[3]) or 0 ");
+        sb.append("local last = tonumber(data[1]) ");
+        sb.append("if last ~= current then ");
+        sb.append("    if last == current - 1 then previous = count else previous = 0 end ");
+        sb.append("    count = 0 ");
+        sb.append("end ");
+        sb.append("local used = previous * (1 - (now % window) / window) + count ");
+        sb.append("local granted = math.max(math.min(requested, math.floor(limit - used)), 0) ");
+        sb.append("redis.call('hmset', KEYS[1], 'window', current, 'count', count + granted, 'previous', previous) ");
+        sb.append("redis.call('pexpire', KEYS[1], window * 2) ");
+        sb.append("local retry = 0 ");
+        sb.append("if granted < requested then retry = math.ceil(window / limit) end ");
+        sb.append("return {granted, retry} ");
+        slidingWindowScript = sb.toString();
+
+        // 令牌桶：ARGV[2]为桶容量，ARGV[3]为每秒补充的令牌数
+        sb = new StringBuilder();
+        sb.append("local now = tonumber(ARGV[1]) ");
+        sb.append("local capacity = tonumber(ARGV[2]) ");
+        sb.append("local rate = tonumber(ARGV[3]) / 1000 ");
+        sb.append("local requested = tonumber(ARGV[4]) ");
+        sb.append("local data = redis.call('hmget', KEYS[1], 'tokens', 'timestamp') ");
+        sb.append("local tokens = tonumber(data[1]) ");
+        sb.append("local timestamp = tonumber(data[2]) ");
+        sb.append("if tokens == nil then ");
+        sb.append("    tokens = capacity ");
+        sb.append("    timestamp = now ");
+        sb.append("end ");
+        // 各节点时钟不一致时时间不回退
+        sb.append("if now > timestamp then ");
+        sb.append("    tokens = math.min(capacity, tokens + (now - timestamp) * rate) ");
+        sb.append("    timestamp = now ");
+        sb.append("end ");
+        sb.append("local granted = math.min(requested, math.floor(tokens)) ");
+        sb.append("tokens = tokens - granted ");
+        sb.append("redis.call('hmset', KEYS[1], 'tokens', tokens, 'timestamp', timestamp) ");
+        sb.append("redis.call('pexpire', KEYS[1], math.ceil(capacity / rate) + 1000) ");
+        sb.append("local retry = 0 ");
+        sb.append("if granted < requested then retry = math.ceil((1 - tokens) / rate) end ");
+        sb.append("return {granted, retry} ");
+        tokenBucketScript = sb.toString();
+    }
+
+    @PostConstruct
+    public void init() {
+        redisService.registerScript(SLIDING_WINDOW_SCRIPT, slidingWindowScript, ReturnType.MULTI);
+        redisService.registerScript(TOKEN_BUCKET_SCRIPT, tokenBucketScript, ReturnType.MULTI);
+    }
+
+    /**
+     * 滑动窗口限流，获取一个许可
+     *
+     * @param key          限流的key
+     * @param limit        窗口内的许可数
+     * @param windowMillis 窗口大小，单位：毫秒
+     * @return 是否获得许可
+     */
+    public boolean tryAcquireSlidingWindow(String key, long limit, long windowMillis) {
+        Assert.isTrue(limit > 0, "limit must greater than 0");
+        Assert.isTrue(windowMillis > 0, "windowMillis must greater than 0");
+        return tryAcquire(SLIDING_WINDOW_SCRIPT, key, limit, String.valueOf(windowMillis), String.valueOf(limit));
+    }
+
+    /**
+     * 令牌桶限流，获取一个许可
+     *
+     * @param key              限流的key
+     * @param capacity         桶容量，即允许的突发请求数
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @return 是否获得许可
+     */
+    public boolean tryAcquireTokenBucket(String key, long capacity, double permitsPerSecond) {
+        Assert.isTrue(capacity > 0, "capacity must greater than 0");
+        Assert.isTrue(permitsPerSecond > 0, "permitsPerSecond must greater than 0");
+        return tryAcquire(TOKEN_BUCKET_SCRIPT, key, capacity, String.valueOf(capacity), String.valueOf(permitsPerSecond));
+    }
+
+    /**
+     * 清除本节点预留的许可，不影响Redis中的计数
+     */
+    public void clearLocal() {
+        reservations.clear();
+    }
+
+    private boolean tryAcquire(String script, String key, long limit, String... args) {
+        String localKey = script + SymbolEnum.COLON.getSymbol() + key;
+        long now = System.currentTimeMillis();
+        Reservation reservation = reservations.get(localKey);
+        if (reservation != null) {
+            if (reservation.tryTake(now)) {
+                return true;
+            }
+            if (now < reservation.deniedUntil) {
+                return false;
+            }
+        }
+        // 限额较小时每次只取一个许可，避免单个节点占用过多额度
+        long requested = Math.max(1, Math.min(reserveSize, limit / 20));
+        List<Long> result = redisService.executeScript(script, RedisTypeEnum.HASH,
+                Collections.singletonList(localKey),
+                String.valueOf(now), args[0], args[1], String.valueOf(requested));
+        long granted = result.get(0);
+        long retry = result.get(1);
+        if (reservations.size() > MAX_LOCAL_ENTRIES) {
+            reservations.values().removeIf(r -> r.isExpired(now));
+        }
+        // 第一个许可本次使用，其余留在本地；多个线程同时补充时累加到同一预留上，避免互相覆盖浪费许可；
+        // 未获得许可且本地已无剩余时记录拒绝截止时间
+        long extra = Math.max(granted - 1, 0);
+        reservations.compute(localKey, (k, r) -> {
+            if (r != null && !r.isExpired(now) && now >= r.deniedUntil && (granted > 0 || r.remaining.get() > 0)) {
+                r.add(extra, now + reserveMillis);
+                return r;
+            }
+            if (granted == 0) {
+                return new Reservation(0, now + reserveMillis, now + retry);
+            }
+            return extra > 0 ? new Reservation(extra, now + reserveMillis, 0) : null;
+        });
+        return granted > 0;
+    }
+
+    /**
+     * 本地预留的许可
+     */
+    private static class Reservation {
+
+        private final AtomicLong remaining;
+
+        /**
+         * 仅在compute中修改，同一key串行
+         */
+        private volatile long expireAt;
+
+        /**
+         * 被拒绝时，该时间之前直接拒绝
+         */
+        private final long deniedUntil;
+
+        Reservation(long remaining, long expireAt, long deniedUntil) {
+            this.remaining = new AtomicLong(remaining);
+            this.expireAt = Math.max(expireAt, deniedUntil);
+            this.deniedUntil = deniedUntil;
+        }
+
+        /**
+         * 追加许可并延长有效期
+         */
+        void add(long permits, long expireAt) {
+            if (permits > 0) {
+                this.expireAt = Math.max(this.expireAt, expireAt);
+                remaining.addAndGet(permits);
+            }
+        }
+
+        boolean tryTake(long now) {
+            if (now >= expireAt) {
+                return false;
+            }
+            long current;
+            do {
+                current = remaining.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!remaining.compareAndSet(current, current - 1));
+            return true;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expireAt;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.xinyan.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * redis分布式读写锁
+ * 锁为一个Hash：mode为read/write，读锁每个持有者一个token域并以readers计数，写锁只有一个token域。
+ * 读写交替进行，互不饿死：写锁获取失败时记录writeWaiting，期间不再接受新的读锁；
+ * 读锁因写锁获取失败时记录readWaiting，写锁释放后开启一个读轮次(readTurn)，期间写锁让位于等待的读请求。
+ * token规则与RedisDistributedLock一致，释放时校验token。
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Component
+@Slf4j
+public class RedisReadWriteLock {
+
+    private static final String READ_LOCK_SCRIPT = "readWriteLock:readLock";
+
+    private static final String READ_UNLOCK_SCRIPT = "readWriteLock:readUnlock";
+
+    private static final String WRITE_LOCK_SCRIPT = "readWriteLock:writeLock";
+
+    private static final String WRITE_UNLOCK_SCRIPT = "readWriteLock:writeUnlock";
+
+    /**
+     * 等待标记(writeWaiting、readWaiting)及读轮次(readTurn)的有效期，单位：毫秒，需大于重试间隔
+     */
+    private static final long INTENT_MILLIS = 100;
+
+    /**
+     * 重试间隔，单位：毫秒
+     */
+    private static final long RETRY_INTERVAL_MILLIS = 50;
+
+    @Resource
+    private RedisScriptRegistry redisScriptRegistry;
+
+    private static String readLockScript;
+
+    private static String readUnlockScript;
+
+    private static String writeLockScript;
+
+    private static String writeUnlockScript;
+
+    /**
+     * 读写锁脚本，原子操作
+     * KEYS[1]为锁的key，ARGV[1]为token，ARGV[2]为有效期(毫秒)，ARGV[3]为客户端当前时间(毫秒)，ARGV[4]为等待标记的有效期(毫秒)
+     */
+    static {
+        StringBuilder sb = new StringBuilder();
+        sb.append("local now = tonumber(ARGV[3]) ");
+        sb.append("local mode = redis.call('hget', KEYS[1], 'mode') ");
+        sb.append("if mode == 'write' then ");
+        sb.append("    redis.call('hset', KEYS[1], 'readWaiting', now + tonumber(ARGV[4])) ");
+        sb.append("    return 0 ");
+        sb.append("end ");
+        sb.append("local readTurn = tonumber(redis.call('hget', KEYS[1], 'readTurn')) ");
+        sb.append("if not (readTurn and readTurn > now) then ");
+        sb.append("    local writeWaiting = tonumber(redis.call('hget', KEYS[1], 'writeWaiting')) ");
+        sb.append("    if writeWaiting and writeWaiting > now then return 0 end ");
+        sb.append("end ");
+        sb.append("redis.call('hset', KEYS[1], 'mode', 'read') ");
+        sb.append("redis.call('hset', KEYS[1], ARGV[1], 1) ");
+        sb.append("redis.call('hincrby', KEYS[1], 'readers', 1) ");
+        sb.append("if redis.call('pttl', KEYS[1]) < tonumber(ARGV[2]) then ");
+        sb.append("    redis.call('pexpire', KEYS[1], ARGV[2]) ");
+        sb.append("end ");
+        sb.append("return 1 ");
+        readLockScript = sb.toString();
+
+        sb = new StringBuilder();
+        sb.append("if redis.call('hget', KEYS[1], 'mode') ~= 'read' then return 0 end ");
+        sb.append("if redis.call('hdel', KEYS[1], ARGV[1]) == 0 then return 0 end ");
+        sb.append("if redis.call('hincrby', KEYS[1], 'readers', -1) <= 0 then ");
+        sb.append("    redis.call('hdel', KEYS[1], 'mode', 'readers') ");
+        sb.append("    if redis.call('hlen', KEYS[1]) == 0 then redis.call('del', KEYS[1]) end ");
+        sb.append("end ");
+        sb.append("return 1 ");
+        readUnlockScript = sb.toString();
+
+        sb = new StringBuilder();
+        sb.append("local now = tonumber(ARGV[3]) ");
+        sb.append("local mode = redis.call('hget', KEYS[1], 'mode') ");
+        sb.append("local readTurn = tonumber(redis.call('hget', KEYS[1], 'readTurn')) ");
+        sb.append("if mode == false and not (readTurn and readTurn > now) then ");
+        sb.append("    redis.call('del', KEYS[1]) ");
+        sb.append("    redis.call('hmset', KEYS[1], 'mode', 'write', ARGV[1], 1) ");
+        sb.append("    redis.call('pexpire', KEYS[1], ARGV[2]) ");
+        sb.append("    return 1 ");
+        sb.append("end ");
+        sb.append("if mode ~= 'write' then ");
+        sb.append("    redis.call('hset', KEYS[1], 'writeWaiting', now + tonumber(ARGV[4])) ");
+        sb.append("end ");
+        sb.append("return 0 ");
+        writeLockScript = sb.toString();
+
+        // ARGV[2]为客户端当前时间(毫秒)，ARGV[3]为等待标记的有效期(毫秒)
+        sb = new StringBuilder();
+        sb.append("if redis.call('hget', KEYS[1], 'mode') ~= 'write' or redis.call('hexists', KEYS[1], ARGV[1]) == 0 then return 0 end ");
+        sb.append("local readWaiting = tonumber(redis.call('hget', KEYS[1], 'readWaiting')) ");
+        sb.append("redis.call('del', KEYS[1]) ");
+        sb.append("if readWaiting and readWaiting > tonumber(ARGV[2]) then ");
+        sb.append("    redis.call('hset', KEYS[1], 'readTurn', tonumber(ARGV[2]) + tonumber(ARGV[3])) ");
+        sb.append("    redis.call('pexpire', KEYS[1], ARGV[3]) ");
+        sb.append("end ");
+        sb.append("return 1 ");
+        writeUnlockScript = sb.toString();
+    }
+
+    @PostConstruct
+    public void init() {
+        redisScriptRegistry.register(READ_LOCK_SCRIPT, readLockScript, ReturnType.BOOLEAN);
+        redisScriptRegistry.register(READ_UNLOCK_SCRIPT, readUnlockScript, ReturnType.BOOLEAN);
+        redisScriptRegistry.register(WRITE_LOCK_SCRIPT, writeLockScript, ReturnType.BOOLEAN);
+        redisScriptRegistry.register(WRITE_UNLOCK_SCRIPT, writeUnlockScript, ReturnType.BOOLEAN);
+    }
+
+    /**
+     * 获取读锁，只尝试一次
+     *
+     * @param lockKey
+     * @param msExpire 有效期，单位：毫秒
+     * @return 获取成功返回token，否则返回null
+     */
+    public String tryReadLock(String lockKey, long msExpire) {
+        Assert.isTrue(msExpire > 0, "msExpire must greater than 0");
+        String token = RedisDistributedLock.newToken();
+        return execute(READ_LOCK_SCRIPT, lockKey, token, String.valueOf(msExpire), String.valueOf(System.currentTimeMillis()),
+                String.valueOf(INTENT_MILLIS)) ? token : null;
+    }
+
+    /**
+     * 指定时间内获取读锁
+     *
+     * @param lockKey
+     * @param msExpire 有效期，单位：毫秒
+     * @param timeout  获取锁超时时间，单位：毫秒
+     * @return 获取成功返回token，否则返回null
+     */
+    public String tryReadLock(String lockKey, long msExpire, long timeout) {
+        return retry(lockKey, timeout, () -> tryReadLock(lockKey, msExpire));
+    }
+
+    /**
+     * 获取写锁，只尝试一次；存在读锁时标记写等待，阻止新的读锁
+     *
+     * @param lockKey
+     * @param msExpire 有效期，单位：毫秒
+     * @return 获取成功返回token，否则返回null
+     */
+    public String tryWriteLock(String lockKey, long msExpire) {
+        Assert.isTrue(msExpire > 0, "msExpire must greater than 0");
+        String token = RedisDistributedLock.newToken();
+        return execute(WRITE_LOCK_SCRIPT, lockKey, token, String.valueOf(msExpire), String.valueOf(System.currentTimeMillis()),
+                String.valueOf(INTENT_MILLIS)) ? token : null;
+    }
+
+    /**
+     * 指定时间内获取写锁
+     *
+     * @param lockKey
+     * @param msExpire 有效期，单位：毫秒
+     * @param timeout  获取锁超时时间，单位：毫秒
+     * @return 获取成功返回token，否则返回null
+     */
+    public String tryWriteLock(String lockKey, long msExpire, long timeout) {
+        return retry(lockKey, timeout, () -> tryWriteLock(lockKey, msExpire));
+    }
+
+    /**
+     * 释放读锁
+     *
+     * @param lockKey
+     * @param token   获取读锁时返回的token
+     * @return 是否释放成功
+     */
+    public boolean releaseReadLock(String lockKey, String token) {
+        Assert.notNull(token, "Token must not be null");
+        return execute(READ_UNLOCK_SCRIPT, lockKey, token);
+    }
+
+    /**
+     * 释放写锁
+     *
+     * @param lockKey
+     * @param token   获取写锁时返回的token
+     * @return 是否释放成功
+     */
+    public boolean releaseWriteLock(String lockKey, String token) {
+        Assert.notNull(token, "Token must not be null");
+        return execute(WRITE_UNLOCK_SCRIPT, lockKey, token, String.valueOf(System.currentTimeMillis()), String.valueOf(INTENT_MILLIS));
+    }
+
+    private String retry(String lockKey, long timeout, Supplier<String> attempt) {
+        Assert.isTrue(timeout > 0 && timeout <= 60000, "timeout must greater than 0 and less than 1 min");
+        long deadline = System.currentTimeMillis() + timeout;
+        String token;
+        while ((token = attempt.get()) == null) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            try {
+                Thread.sleep(Math.min(RETRY_INTERVAL_MILLIS, remaining));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                log.warn("lockKey: {} wait interrupted", lockKey);
+                break;
+            }
+        }
+        return token;
+    }
+
+    private boolean execute(String script, String lockKey, String... args) {
+        byte[][] keysAndArgs = new byte[args.length + 1][];
+        keysAndArgs[0] = lockKey.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < args.length; i++) {
+            keysAndArgs[i + 1] = args[i].getBytes(StandardCharsets.UTF_8);
+        }
+        Boolean result = redisScriptRegistry.execute(script, 1, keysAndArgs);
+        return result != null && result;
+    }
+}
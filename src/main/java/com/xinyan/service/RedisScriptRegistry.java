@@ -0,0 +1,126 @@
+package com.xinyan.service;
+
+import com.xinyan.common.LuaScript;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import javax.annotation.Resource;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Lua脚本注册表
+ * 脚本注册时SCRIPT LOAD一次，之后通过EVALSHA只发送SHA1；
+ * Redis重启、SCRIPT FLUSH或集群中未加载过该脚本的节点返回NOSCRIPT时，自动回退为EVAL(同时会在该节点缓存脚本)。
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Component
+@Slf4j
+public class RedisScriptRegistry {
+
+    private static final String NO_SCRIPT = "NOSCRIPT";
+
+    @SuppressWarnings("rawtypes")
+    @Resource
+    private RedisTemplate redisTemplate;
+
+    private final ConcurrentMap<String, LuaScript> scripts = new ConcurrentHashMap<>();
+
+    /**
+     * 注册脚本，同名脚本内容不同时覆盖
+     *
+     * @param name       脚本名称
+     * @param script     脚本内容
+     * @param returnType 返回值类型
+     * @return 已注册的脚本
+     */
+    public LuaScript register(String name, String script, ReturnType returnType) {
+        Assert.hasText(name, "script name must not be empty");
+        Assert.hasText(script, "script must not be empty");
+        LuaScript luaScript = new LuaScript(name, script, returnType);
+        LuaScript previous = scripts.put(name, luaScript);
+        if (previous == null || !previous.getSha1().equals(luaScript.getSha1())) {
+            load(luaScript);
+        }
+        return luaScript;
+    }
+
+    /**
+     * 获取已注册的脚本
+     *
+     * @param name 脚本名称
+     * @return 脚本
+     */
+    public LuaScript get(String name) {
+        LuaScript luaScript = scripts.get(name);
+        Assert.notNull(luaScript, "script not registered: " + name);
+        return luaScript;
+    }
+
+    /**
+     * 在已有连接上执行脚本(非管道/事务模式)
+     *
+     * @param connection  连接
+     * @param name        脚本名称
+     * @param numKeys     key的数量
+     * @param keysAndArgs key和参数
+     * @return 脚本返回值，类型由注册时的ReturnType决定
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(RedisConnection connection, String name, int numKeys, byte[]... keysAndArgs) {
+        LuaScript luaScript = get(name);
+        try {
+            return (T) connection.evalSha(luaScript.getSha1(), luaScript.getReturnType(), numKeys, keysAndArgs);
+        } catch (DataAccessException e) {
+            if (!isNoScript(e)) {
+                throw e;
+            }
+            log.debug("script {} not cached on server, fall back to EVAL", name);
+            return (T) connection.eval(luaScript.getScript(), luaScript.getReturnType(), numKeys, keysAndArgs);
+        }
+    }
+
+    /**
+     * 执行脚本
+     *
+     * @param name        脚本名称
+     * @param numKeys     key的数量
+     * @param keysAndArgs key和参数
+     * @return 脚本返回值，类型由注册时的ReturnType决定
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String name, int numKeys, byte[]... keysAndArgs) {
+        RedisCallback<T> callback = connection -> execute(connection, name, numKeys, keysAndArgs);
+        return (T) redisTemplate.execute(callback);
+    }
+
+    /**
+     * SCRIPT LOAD，失败时仅记录日志，执行时会回退为EVAL
+     */
+    @SuppressWarnings("unchecked")
+    private void load(LuaScript luaScript) {
+        try {
+            RedisCallback<String> callback = connection -> connection.scriptLoad(luaScript.getScript());
+            redisTemplate.execute(callback);
+        } catch (Exception e) {
+            log.warn("load script {} error", luaScript.getName(), e);
+        }
+    }
+
+    private static boolean isNoScript(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains(NO_SCRIPT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
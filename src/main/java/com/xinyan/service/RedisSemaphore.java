@@ -0,0 +1,149 @@
+package com.xinyan.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * redis分布式信号量(许可池)
+ * 许可以Sorted Set保存，member为token，score为许可到期时间(客户端时间，毫秒)，获取许可前先清理已到期的许可，
+ * 持有者崩溃后许可最多占用一个有效期。各节点时钟偏差会相应缩短或延长许可有效期。
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Component
+@Slf4j
+public class RedisSemaphore {
+
+    private static final String ACQUIRE_SCRIPT = "semaphore:acquire";
+
+    private static final String AVAILABLE_SCRIPT = "semaphore:available";
+
+    /**
+     * 重试间隔，单位：毫秒
+     */
+    private static final long RETRY_INTERVAL_MILLIS = 50;
+
+    @Resource
+    private RedisTemplate redisTemplate;
+
+    @Resource
+    private RedisScriptRegistry redisScriptRegistry;
+
+    private static String acquireScript;
+
+    private static String availableScript;
+
+    /**
+     * 信号量脚本，原子操作
+     * KEYS[1]为信号量的key，ARGV[1]为token，ARGV[2]为许可总数，ARGV[3]为有效期(毫秒)，ARGV[4]为客户端当前时间(毫秒)
+     */
+    static {
+        StringBuilder sb = new StringBuilder();
+        sb.append("redis.call('zremrangebyscore', KEYS[1], '-inf', ARGV[4]) ");
+        sb.append("if redis.call('zcard', KEYS[1]) >= tonumber(ARGV[2]) then return 0 end ");
+        sb.append("redis.call('zadd', KEYS[1], tonumber(ARGV[4]) + tonumber(ARGV[3]), ARGV[1]) ");
+        sb.append("if redis.call('pttl', KEYS[1]) < tonumber(ARGV[3]) then ");
+        sb.append("    redis.call('pexpire', KEYS[1], ARGV[3]) ");
+        sb.append("end ");
+        sb.append("return 1 ");
+        acquireScript = sb.toString();
+
+        // ARGV[1]为许可总数，ARGV[2]为客户端当前时间(毫秒)
+        sb = new StringBuilder();
+        sb.append("local used = redis.call('zcount', KEYS[1], '(' .. ARGV[2], '+inf') ");
+        sb.append("return math.max(tonumber(ARGV[1]) - used, 0) ");
+        availableScript = sb.toString();
+    }
+
+    @PostConstruct
+    public void init() {
+        redisScriptRegistry.register(ACQUIRE_SCRIPT, acquireScript, ReturnType.BOOLEAN);
+        redisScriptRegistry.register(AVAILABLE_SCRIPT, availableScript, ReturnType.INTEGER);
+    }
+
+    /**
+     * 获取一个许可，只尝试一次
+     *
+     * @param key      信号量的key
+     * @param permits  许可总数
+     * @param msExpire 许可有效期，单位：毫秒
+     * @return 获取成功返回token，否则返回null
+     */
+    public String tryAcquire(String key, int permits, long msExpire) {
+        Assert.isTrue(permits > 0, "permits must greater than 0");
+        Assert.isTrue(msExpire > 0, "msExpire must greater than 0");
+        String token = RedisDistributedLock.newToken();
+        Boolean acquired = redisScriptRegistry.execute(ACQUIRE_SCRIPT, 1, raw(key), raw(token), raw(String.valueOf(permits)),
+                raw(String.valueOf(msExpire)), raw(String.valueOf(System.currentTimeMillis())));
+        return acquired != null && acquired ? token : null;
+    }
+
+    /**
+     * 指定时间内获取一个许可
+     *
+     * @param key      信号量的key
+     * @param permits  许可总数
+     * @param msExpire 许可有效期，单位：毫秒
+     * @param timeout  获取许可超时时间，单位：毫秒
+     * @return 获取成功返回token，否则返回null
+     */
+    public String tryAcquire(String key, int permits, long msExpire, long timeout) {
+        Assert.isTrue(timeout > 0 && timeout <= 60000, "timeout must greater than 0 and less than 1 min");
+        long deadline = System.currentTimeMillis() + timeout;
+        String token;
+        while ((token = tryAcquire(key, permits, msExpire)) == null) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            try {
+                Thread.sleep(Math.min(RETRY_INTERVAL_MILLIS, remaining));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                log.warn("semaphore: {} wait interrupted", key);
+                break;
+            }
+        }
+        return token;
+    }
+
+    /**
+     * 归还许可
+     *
+     * @param key   信号量的key
+     * @param token 获取许可时返回的token
+     * @return 是否归还成功，许可已过期时返回false
+     */
+    public boolean release(String key, String token) {
+        Assert.notNull(token, "Token must not be null");
+        RedisCallback<Long> callback = (connection) -> connection.zRem(raw(key), raw(token));
+        Long removed = (Long) redisTemplate.execute(callback);
+        return removed != null && removed > 0;
+    }
+
+    /**
+     * 当前可用的许可数
+     *
+     * @param key     信号量的key
+     * @param permits 许可总数
+     * @return 可用许可数
+     */
+    public long availablePermits(String key, int permits) {
+        Long available = redisScriptRegistry.execute(AVAILABLE_SCRIPT, 1, raw(key), raw(String.valueOf(permits)),
+                raw(String.valueOf(System.currentTimeMillis())));
+        return available == null ? 0 : available;
+    }
+
+    private static byte[] raw(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
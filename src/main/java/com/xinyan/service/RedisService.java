@@ -1,13 +1,21 @@
 package com.xinyan.service;
 
+import com.xinyan.common.LoadOptions;
+import com.xinyan.common.PurgeResult;
+import com.xinyan.common.RedisEntry;
 import com.xinyan.common.RedisTypeEnum;
+import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.serializer.SerializationException;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * redis操作类
@@ -92,6 +100,15 @@ public interface RedisService {
      */
     <T extends Serializable> void msetObject(Map<String, T> paramMap);
 
+    /**
+     * 批量设置对象，每个key可带独立过期时间(采用Redis的String存储)
+     * 以管道分批执行，适用于大批量缓存预热
+     *
+     * @param entries 条目列表
+     * @return List<Boolean> 与entries一一对应的设置结果
+     */
+    <T> List<Boolean> msetWithExpire(List<RedisEntry<T>> entries);
+
     /**
      * 根据key获取对象(对象采用Redis的String存储)
      *
@@ -137,6 +154,15 @@ public interface RedisService {
      */
     <T extends Serializable> void hmset(String key, Map<String, T> paramMap);
 
+    /**
+     * 多个Hash表批量设置并设置各自的过期时间
+     * 以管道分批执行，条目的value为Hash表的field和Value组成的Map
+     *
+     * @param entries 条目列表
+     * @return List<Boolean> 与entries一一对应的设置结果，Map为空的条目不写入，结果为false
+     */
+    <T> List<Boolean> hmsetWithExpire(List<RedisEntry<Map<String, T>>> entries);
+
     /**
      * 根据Hash表的key和域Field获取对应的Value(可用于获取对象或者获取对象的单个field)
      *
@@ -164,6 +190,17 @@ public interface RedisService {
      */
     <T> Map<String, T> hgetAll(String key);
 
+    /**
+     * 以HSCAN游标逐批遍历Hash表，适用于大Hash表，内存占用与COUNT相关而与Hash表大小无关
+     * 流是惰性的，消费完一批才拉取下一批；使用完毕必须关闭(try-with-resources)以归还连接。
+     * 遍历期间有修改时，元素可能重复返回
+     *
+     * @param key   Hash表的key
+     * @param count 每批建议返回的条目数(SCAN的COUNT)
+     * @return Stream<Map.Entry<String, T>> field与对象的流
+     */
+    <T> Stream<Map.Entry<String, T>> hscan(String key, int count);
+
     /**
      * 根据Hash表的key和域Field进行删除
      *
@@ -205,6 +242,15 @@ public interface RedisService {
      */
     <T extends Object> Set<T> getSetAll(String key);
 
+    /**
+     * 以SSCAN游标逐批遍历Set，流是惰性的，使用完毕必须关闭以归还连接；遍历期间有修改时，元素可能重复返回
+     *
+     * @param key   Set的key
+     * @param count 每批建议返回的元素数(SCAN的COUNT)
+     * @return Stream<T> 元素的流
+     */
+    <T> Stream<T> sscan(String key, int count);
+
     /**
      * key对应set的大小
      *
@@ -215,6 +261,164 @@ public interface RedisService {
 
     /** ===============Redis-Set无序集合数据结构接口END=============== */
 
+    /** ===============Redis-SortedSet有序集合数据结构接口START=============== */
+
+    /**
+     * 添加成员或更新成员的分数
+     *
+     * @param key    有序集合的key
+     * @param member 成员
+     * @param score  分数
+     * @return Boolean 是否新增成员，更新已有成员返回false
+     */
+    <T> Boolean zadd(String key, T member, double score);
+
+    /**
+     * 批量添加成员或更新成员的分数，每redis.bulk.chunk-size个成员一条ZADD，所有ZADD在一个管道中发送
+     *
+     * @param key    有序集合的key
+     * @param scores 成员与分数
+     * @return long 新增的成员数
+     */
+    <T> long zadd(String key, Map<T, Double> scores);
+
+    /**
+     * 成员分数增加delta，成员不存在时以delta为分数添加
+     *
+     * @param key    有序集合的key
+     * @param member 成员
+     * @param delta  增量，可为负数
+     * @return Double 增加后的分数
+     */
+    <T> Double zincrby(String key, T member, double delta);
+
+    /**
+     * 批量增加成员分数，每redis.bulk.chunk-size个ZINCRBY一个管道，适用于大排行榜的批量计分
+     *
+     * @param key    有序集合的key
+     * @param deltas 成员与增量
+     * @return List<Double> 增加后的分数，顺序与deltas的迭代顺序一致
+     */
+    <T> List<Double> zincrbyAll(String key, Map<T, Double> deltas);
+
+    /**
+     * 获取成员的分数
+     *
+     * @param key    有序集合的key
+     * @param member 成员
+     * @return Double 分数，成员不存在时返回null
+     */
+    <T> Double zscore(String key, T member);
+
+    /**
+     * 获取成员按分数从高到低的排名
+     *
+     * @param key    有序集合的key
+     * @param member 成员
+     * @return Long 排名，从0开始，成员不存在时返回null
+     */
+    <T> Long zrevrank(String key, T member);
+
+    /**
+     * 按排名获取区间内的成员，分数从低到高
+     *
+     * @param key   有序集合的key
+     * @param start 开始排名，从0开始
+     * @param end   结束排名(包含)，-1表示最后一个
+     * @return Set<T> 有序的成员集合
+     */
+    <T> Set<T> zrange(String key, long start, long end);
+
+    /**
+     * 按排名获取区间内的成员及分数，分数从高到低(排行榜)
+     *
+     * @param key   有序集合的key
+     * @param start 开始排名，从0开始
+     * @param end   结束排名(包含)，-1表示最后一个
+     * @return LinkedHashMap<T, Double> 按排名有序的成员与分数
+     */
+    <T> LinkedHashMap<T, Double> zrevrangeWithScores(String key, long start, long end);
+
+    /**
+     * 按分数区间分页获取成员及分数，分数从低到高
+     *
+     * @param key    有序集合的key
+     * @param min    最小分数(包含)
+     * @param max    最大分数(包含)
+     * @param offset 跳过的成员数
+     * @param count  最多返回的成员数
+     * @return LinkedHashMap<T, Double> 按分数有序的成员与分数
+     */
+    <T> LinkedHashMap<T, Double> zrangeByScore(String key, double min, double max, long offset, long count);
+
+    /**
+     * 按分数区间分页获取成员及分数，分数从高到低
+     *
+     * @param key    有序集合的key
+     * @param max    最大分数(包含)
+     * @param min    最小分数(包含)
+     * @param offset 跳过的成员数
+     * @param count  最多返回的成员数
+     * @return LinkedHashMap<T, Double> 按分数有序的成员与分数
+     */
+    <T> LinkedHashMap<T, Double> zrevrangeByScore(String key, double max, double min, long offset, long count);
+
+    /**
+     * 原子地弹出分数最低的count个成员
+     *
+     * @param key   有序集合的key
+     * @param count 弹出的成员数
+     * @return LinkedHashMap<T, Double> 弹出的成员与分数，分数从低到高
+     */
+    <T> LinkedHashMap<T, Double> zpopmin(String key, long count);
+
+    /**
+     * 原子地弹出分数最高的count个成员
+     *
+     * @param key   有序集合的key
+     * @param count 弹出的成员数
+     * @return LinkedHashMap<T, Double> 弹出的成员与分数，分数从高到低
+     */
+    <T> LinkedHashMap<T, Double> zpopmax(String key, long count);
+
+    /**
+     * 删除成员
+     *
+     * @param key     有序集合的key
+     * @param members 成员
+     * @return Long 删除的成员数
+     */
+    <T> Long zrem(String key, T... members);
+
+    /**
+     * 删除分数区间内的成员，可用于清理按时间戳索引的过期数据
+     *
+     * @param key 有序集合的key
+     * @param min 最小分数(包含)
+     * @param max 最大分数(包含)
+     * @return Long 删除的成员数
+     */
+    Long zremrangeByScore(String key, double min, double max);
+
+    /**
+     * 有序集合的成员数
+     *
+     * @param key 有序集合的key
+     * @return Long 成员数
+     */
+    Long zcard(String key);
+
+    /**
+     * 以ZSCAN游标逐批遍历有序集合，流是惰性的，使用完毕必须关闭以归还连接；遍历期间有修改时，元素可能重复返回
+     *
+     * @param key   有序集合的key
+     * @param count 每批建议返回的成员数(SCAN的COUNT)
+     * @return Stream<Map.Entry<T, Double>> 成员与分数的流
+     */
+    <T> Stream<Map.Entry<T, Double>> zscan(String key, int count);
+
+    /** ===============Redis-SortedSet有序集合数据结构接口END=============== */
+
     /** ===============Redis-LIST列表数据结构接口END=============== */
 
     /**
@@ -223,24 +427,104 @@ public interface RedisService {
      * @param key
      * @param obj
      * @return
+     * @deprecated 元素先经fastjson再经值序列化器两次编码，且key不含命名空间，请使用rPushAll
      */
+    @Deprecated
     <T> Long rPush(String key, T... obj);
 
     /**
      * List 获取一个值
      *
      * @param key $@return
+     * @deprecated 请使用lPopTyped，迁移期间使用lPopTyped(key, legacyType)兼容读取旧数据
      */
+    @Deprecated
     String lPop(String key);
 
+    /**
+     * 从List右侧批量追加对象，值序列化器一次编码(采用Redis的List存储)
+     *
+     * @param key    key
+     * @param values 对象集合
+     * @return Long 追加后List的长度
+     */
+    <T> Long rPushAll(String key, Collection<T> values);
+
+    /**
+     * 获取List指定区间的对象
+     *
+     * @param key   key
+     * @param start 开始下标，从0开始
+     * @param end   结束下标(包含)，-1表示最后一个
+     * @return List<T> 对象列表
+     */
+    <T> List<T> lRange(String key, long start, long end);
+
+    /**
+     * 从List左侧弹出一个对象
+     *
+     * @param key key
+     * @return T 对象，List为空时返回null
+     */
+    <T> T lPopTyped(String key);
+
+    /**
+     * 从List左侧弹出一个对象，兼容rPush写入的旧数据：
+     * 先弹出旧List(不含命名空间的key、fastjson编码)中的元素并按legacyType解码，旧List为空后再弹出新List
+     *
+     * @param key        key
+     * @param legacyType 旧数据的类型
+     * @return T 对象，两个List均为空时返回null
+     */
+    <T> T lPopTyped(String key, Class<T> legacyType);
+
+    /**
+     * 读取rPush写入的旧List(不含命名空间的key、fastjson编码)指定区间的元素
+     *
+     * @param key   key
+     * @param start 开始下标，从0开始
+     * @param end   结束下标(包含)，-1表示最后一个
+     * @param type  元素类型
+     * @return List<T> 对象列表
+     */
+    <T> List<T> lRangeLegacy(String key, long start, long end, Class<T> type);
+
+    /**
+     * 只保留List指定区间的元素
+     *
+     * @param key   key
+     * @param start 开始下标，从0开始
+     * @param end   结束下标(包含)，-1表示最后一个
+     */
+    void lTrim(String key, long start, long end);
+
     /**
      * key对应list的大小
      *
      * @param key
      * @return
+     * @deprecated key不含命名空间，只能读取rPush写入的旧List，请使用lLenTyped
      */
+    @Deprecated
     Long llen(String key);
 
+    /**
+     * 获取List的长度
+     *
+     * @param key key
+     * @return Long List的长度，key不存在时为0
+     */
+    Long lLenTyped(String key);
+
+    /**
+     * 获取List的长度，includeLegacy为true时加上rPush写入的旧List(不含命名空间的key)的长度，与lPopTyped(key, legacyType)可弹出的元素个数一致
+     *
+     * @param key           key
+     * @param includeLegacy 是否包含旧List
+     * @return Long List的长度，key不存在时为0
+     */
+    Long lLenTyped(String key, boolean includeLegacy);
+
     /** ===============Redis-LIST列表数据结构接口END=============== */
 
     /** ===============Redis接口START=============== */
@@ -305,7 +589,87 @@ public interface RedisService {
      */
     Long getExpireTime(RedisTypeEnum typeEnum, String key);
 
+    /**
+     * 以SCAN游标逐批遍历本应用命名空间下指定数据类型的key，流是惰性的，使用完毕必须关闭以归还连接
+     * 集群模式下逐个主节点扫描，与deleteByPattern一致
+     *
+     * @param typeEnum 数据类型
+     * @param pattern  业务key的匹配模式(glob风格)，如"order:*"
+     * @param count    每批建议返回的key数(SCAN的COUNT)
+     * @return Stream<String> 业务key(不含命名空间前缀)的流
+     */
+    Stream<String> scan(RedisTypeEnum typeEnum, String pattern, int count);
+
+    /**
+     * 按模式删除本应用命名空间下的key，SCAN逐批扫描后以UNLINK异步释放内存(服务端不支持时使用DEL)
+     * 集群模式下扫描全部主节点；按redis.purge.max-keys-per-second限速，定期输出进度日志
+     *
+     * @param typeEnum 数据类型
+     * @param pattern  业务key的匹配模式(glob风格)，如"tenant:1001:*"
+     * @return PurgeResult 扫描及删除的数量
+     */
+    PurgeResult deleteByPattern(RedisTypeEnum typeEnum, String pattern);
+
+    /**
+     * 按模式设置本应用命名空间下key的过期时间，扫描与限速方式同deleteByPattern
+     *
+     * @param typeEnum 数据类型
+     * @param pattern  业务key的匹配模式(glob风格)
+     * @param timeout  过期时间，单位：秒
+     * @return PurgeResult 扫描及设置成功的数量
+     */
+    PurgeResult expireByPattern(RedisTypeEnum typeEnum, String pattern, long timeout);
+
     /** ===============Redis接口END=============== */
 
+    /** ===============Redis-Lua脚本接口START=============== */
+    /**
+     * 注册Lua脚本，注册时SCRIPT LOAD，之后按名称通过EVALSHA执行
+     *
+     * @param name       脚本名称
+     * @param script     脚本内容
+     * @param returnType 返回值类型
+     */
+    void registerScript(String name, String script, ReturnType returnType);
+
+    /**
+     * 执行已注册的Lua脚本，key按数据类型加命名空间，参数按UTF-8字符串传入
+     *
+     * @param name     脚本名称
+     * @param typeEnum key的数据类型
+     * @param keys     脚本中的KEYS
+     * @param args     脚本中的ARGV
+     * @return 脚本返回值，VALUE类型返回String，MULTI类型中的字符串元素同样转换为String
+     */
+    <T> T executeScript(String name, RedisTypeEnum typeEnum, List<String> keys, String... args);
+
+    /** ===============Redis-Lua脚本接口END=============== */
+
+    /** ===============Redis-缓存加载接口START=============== */
+
+    /**
+     * 读取缓存，未命中时加载并写入(采用Redis的String存储)
+     * 同一节点同一key只有一个线程执行加载，其余线程等待其结果；临近过期时按XFetch概率提前在后台刷新
+     *
+     * @param key     key
+     * @param loader  加载函数，返回null时不缓存
+     * @param timeout 过期时间，单位：秒
+     * @return T 对象
+     */
+    <T> T getOrLoad(String key, Supplier<T> loader, long timeout);
+
+    /**
+     * 读取缓存，未命中时加载并写入(采用Redis的String存储)
+     * 在过期后的staleTimeout内返回旧值并在后台刷新；lockTimeout大于0时通过分布式锁保证同一时刻只有一个节点加载
+     *
+     * @param key     key
+     * @param loader  加载函数，返回null时不缓存
+     * @param options 加载选项
+     * @return T 对象
+     */
+    <T> T getOrLoad(String key, Supplier<T> loader, LoadOptions options);
+
+    /** ===============Redis-缓存加载接口END=============== */
+
 
 }
\ No newline at end of file
@@ -1,25 +1,75 @@
 package com.xinyan.service;
 
 import com.alibaba.fastjson.JSON;
+import com.xinyan.cache.NearCache;
+import com.xinyan.common.CacheEnvelope;
+import com.xinyan.common.LoadOptions;
+import com.xinyan.common.PurgeResult;
+import com.xinyan.common.RedisEntry;
 import com.xinyan.common.RedisTypeEnum;
 import com.xinyan.common.SymbolEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.connection.DefaultTuple;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.SetOperations;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.SerializationException;
 import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * redis操作类
@@ -28,26 +78,142 @@ import java.util.concurrent.TimeUnit;
  * @date 2019/6/20
  */
 @Service("redisService")
+@Slf4j
 public class RedisServiceImpl implements RedisService {
 
+    /**
+     * 按模式处理时每条命令携带的key数
+     */
+    private static final int PURGE_COMMAND_KEYS = 100;
+
+    /**
+     * 按模式处理时每处理该数量的key输出一次进度
+     */
+    private static final long PURGE_PROGRESS_INTERVAL = 10000;
+
+    /**
+     * getOrLoad加载锁的最长等待时间，与RedisDistributedLock.tryLock的限制一致
+     */
+    private static final long MAX_LOCK_TIMEOUT_MILLIS = 60000;
+
+    private static final String ZPOP_SCRIPT = "redisService:zpop";
+
+    private static String zpopScript;
+
+    /**
+     * 原子弹出有序集合两端的成员，兼容不支持ZPOPMIN/ZPOPMAX(Redis 5.0+)的服务端
+     * KEYS[1]为有序集合，ARGV[1]为弹出数量，ARGV[2]为zrange(最低分)或zrevrange(最高分)，返回成员与分数交替的列表
+     */
+    static {
+        StringBuilder sb = new StringBuilder();
+        sb.append("local items = redis.call(ARGV[2], KEYS[1], 0, tonumber(ARGV[1]) - 1, 'WITHSCORES') ");
+        sb.append("local n = #items / 2 ");
+        sb.append("if n > 0 then ");
+        sb.append("    if ARGV[2] == 'zrange' then ");
+        sb.append("        redis.call('zremrangebyrank', KEYS[1], 0, n - 1) ");
+        sb.append("    else ");
+        sb.append("        redis.call('zremrangebyrank', KEYS[1], -n, -1) ");
+        sb.append("    end ");
+        sb.append("end ");
+        sb.append("return items ");
+        zpopScript = sb.toString();
+    }
+
     @SuppressWarnings("rawtypes")
     @Resource
     private RedisTemplate redisTemplate;
 
-    @Value("${spring.profiles.active}")
-    private String env;
+    @Resource
+    private RedisKeyGenerator redisKeyGenerator;
+
+    @Resource
+    private RedisScriptRegistry redisScriptRegistry;
+
+    @Resource
+    private RedisDistributedLock redisDistributedLock;
+
+    @Resource
+    private LettuceConnectionFactory lettuceConnectionFactory;
+
+    /**
+     * 进程内近端缓存，redis.near-cache.enabled=true时启用
+     */
+    @Autowired(required = false)
+    private NearCache nearCache;
+
+    /**
+     * 单key读请求合并器，redis.get-coalescer.enabled=true时启用
+     */
+    @Autowired(required = false)
+    private MultiGetCoalescer multiGetCoalescer;
+
+    /**
+     * 管道批量写入时每批的条目数
+     */
+    @Value("${redis.bulk.chunk-size:1000}")
+    private int bulkChunkSize;
+
+    /**
+     * getOrLoad后台刷新线程数
+     */
+    @Value("${redis.load.refresh-threads:2}")
+    private int refreshThreads;
+
+    /**
+     * getOrLoad跨节点加载锁的有效期，单位：毫秒；启用看门狗时加载期间自动续期，否则应大于加载耗时
+     */
+    @Value("${redis.load.lock-lease-millis:30000}")
+    private long loadLockLeaseMillis;
+
+    /**
+     * 按模式删除/设置过期时每批扫描及处理的key数
+     */
+    @Value("${redis.purge.batch-size:500}")
+    private int purgeBatchSize;
+
+    /**
+     * 按模式删除/设置过期的限速，每秒最多处理的key数
+     */
+    @Value("${redis.purge.max-keys-per-second:20000}")
+    private int purgeMaxKeysPerSecond;
+
+    /**
+     * 服务端是否支持UNLINK(Redis 4.0+)，不支持时改用DEL
+     */
+    private volatile boolean unlinkSupported = true;
+
+    /**
+     * 本节点正在同步加载的key，同一key只有一个线程加载，其余线程等待其结果
+     */
+    private final ConcurrentMap<String, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * 本节点正在后台刷新的key，与同步加载互不等待
+     */
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolExecutor refreshExecutor;
+
+    @PostConstruct
+    public void init() {
+        redisScriptRegistry.register(ZPOP_SCRIPT, zpopScript, ReturnType.MULTI);
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 刷新线程全忙时放弃本次刷新，下次读取时再触发
+        refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0L, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(), r -> {
+            Thread thread = new Thread(r, "redis-load-refresh-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
 
-    @Value("${spring.application.name}")
-    private String applicationName;
+    @PreDestroy
+    public void destroy() {
+        refreshExecutor.shutdown();
+    }
 
     private String getKey(RedisTypeEnum typeEnum, String key) {
-        return new StringBuilder(env)
-                .append(SymbolEnum.COLON.getSymbol())
-                .append(applicationName)
-                .append(SymbolEnum.COLON.getSymbol())
-                .append(typeEnum.getType())
-                .append(SymbolEnum.COLON.getSymbol())
-                .append(key).toString();
+        return redisKeyGenerator.getKey(typeEnum, key);
     }
 
     private List<String> getKeyList(RedisTypeEnum typeEnum, List<String> keys) {
@@ -66,6 +232,109 @@ public class RedisServiceImpl implements RedisService {
         return newKeys;
     }
 
+    /**
+     * 读取String结构的值，启用合并器时合并为MGET
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T readValue(String key) {
+        if (multiGetCoalescer != null) {
+            return multiGetCoalescer.get(key);
+        }
+        ValueOperations<String, T> valueOperations = redisTemplate.opsForValue();
+        return valueOperations.get(key);
+    }
+
+    /**
+     * 先读近端缓存，未命中时GET与PTTL在一个管道中执行(不经过合并器)并回填，回填的条目不晚于key在Redis中过期
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T readThrough(String key) {
+        if (nearCache == null) {
+            return readValue(key);
+        }
+        Object cached = nearCache.get(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+        long stamp = nearCache.stamp(key);
+        byte[] rawKey = redisTemplate.getKeySerializer().serialize(key);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.get(rawKey);
+            connection.pTtl(rawKey);
+            return null;
+        });
+        T value = (T) results.get(0);
+        if (value != null) {
+            nearCache.put(key, value, stamp, (Long) results.get(1));
+        }
+        return value;
+    }
+
+    /**
+     * 批量读取，先读近端缓存，未命中的key在一个管道中MGET并取各自的PTTL，回填近端缓存
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> multiReadThrough(List<String> keys) {
+        if (nearCache == null) {
+            ValueOperations<String, T> valueOperations = redisTemplate.opsForValue();
+            return valueOperations.multiGet(keys);
+        }
+        List<T> values = new ArrayList<>(keys.size());
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            T cached = (T) nearCache.get(keys.get(i));
+            values.add(cached);
+            if (cached == null) {
+                missing.add(i);
+            }
+        }
+        if (missing.isEmpty()) {
+            return values;
+        }
+        RedisSerializer<String> keySerializer = redisTemplate.getKeySerializer();
+        byte[][] rawKeys = new byte[missing.size()][];
+        long[] stamps = new long[missing.size()];
+        for (int j = 0; j < missing.size(); j++) {
+            String key = keys.get(missing.get(j));
+            rawKeys[j] = keySerializer.serialize(key);
+            stamps[j] = nearCache.stamp(key);
+        }
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.mGet(rawKeys);
+            for (byte[] rawKey : rawKeys) {
+                connection.pTtl(rawKey);
+            }
+            return null;
+        });
+        List<T> loaded = (List<T>) results.get(0);
+        for (int j = 0; j < missing.size(); j++) {
+            T value = loaded.get(j);
+            values.set(missing.get(j), value);
+            if (value != null) {
+                nearCache.put(keys.get(missing.get(j)), value, stamps[j], (Long) results.get(j + 1));
+            }
+        }
+        return values;
+    }
+
+    private void evictNearCache(String key) {
+        if (nearCache != null) {
+            nearCache.evict(key);
+        }
+    }
+
+    private void evictNearCache(RedisTypeEnum typeEnum, String key) {
+        if (typeEnum == RedisTypeEnum.STRING || typeEnum == RedisTypeEnum.HASH) {
+            evictNearCache(key);
+        }
+    }
+
+    private void evictNearCache(RedisTypeEnum typeEnum, List<String> keys) {
+        if (nearCache != null && (typeEnum == RedisTypeEnum.STRING || typeEnum == RedisTypeEnum.HASH)) {
+            nearCache.evict(keys);
+        }
+    }
+
     /** ===============Redis-String数据结构接口START=============== */
     /**
      * 设置字符串
@@ -79,6 +348,7 @@ public class RedisServiceImpl implements RedisService {
         key = getKey(RedisTypeEnum.STRING, key);
         ValueOperations<String, String> valueOperations = redisTemplate.opsForValue();
         valueOperations.set(key, value);
+        evictNearCache(key);
     }
 
     /**
@@ -94,6 +364,7 @@ public class RedisServiceImpl implements RedisService {
         key = getKey(RedisTypeEnum.STRING, key);
         ValueOperations<String, String> valueOperations = redisTemplate.opsForValue();
         valueOperations.set(key, value, timeout, TimeUnit.SECONDS);
+        evictNearCache(key);
     }
 
     /**
@@ -107,6 +378,7 @@ public class RedisServiceImpl implements RedisService {
         paramMap = getKeyMap(RedisTypeEnum.STRING, paramMap);
         ValueOperations<String, String> valueOperations = redisTemplate.opsForValue();
         valueOperations.multiSet(paramMap);
+        evictNearCache(RedisTypeEnum.STRING, new ArrayList<>(paramMap.keySet()));
     }
 
     /**
@@ -119,8 +391,7 @@ public class RedisServiceImpl implements RedisService {
     @Override
     public String get(String key) throws SerializationException {
         key = getKey(RedisTypeEnum.STRING, key);
-        ValueOperations<String, String> valueOperations = redisTemplate.opsForValue();
-        return valueOperations.get(key);
+        return readThrough(key);
     }
 
     /**
@@ -133,8 +404,7 @@ public class RedisServiceImpl implements RedisService {
     @Override
     public List<String> mget(List<String> keys) {
         keys = getKeyList(RedisTypeEnum.STRING, keys);
-        ValueOperations<String, String> valueOperations = redisTemplate.opsForValue();
-        return valueOperations.multiGet(keys);
+        return multiReadThrough(keys);
     }
 
     /**
@@ -149,6 +419,7 @@ public class RedisServiceImpl implements RedisService {
         key = getKey(RedisTypeEnum.STRING, key);
         ValueOperations<String, T> valueOperations = redisTemplate.opsForValue();
         valueOperations.set(key, T);
+        evictNearCache(key);
     }
 
     /**
@@ -164,6 +435,7 @@ public class RedisServiceImpl implements RedisService {
         key = getKey(RedisTypeEnum.STRING, key);
         ValueOperations<String, T> valueOperations = redisTemplate.opsForValue();
         valueOperations.set(key, T, timeout, TimeUnit.SECONDS);
+        evictNearCache(key);
     }
 
     /**
@@ -179,6 +451,7 @@ public class RedisServiceImpl implements RedisService {
         key = getKey(RedisTypeEnum.STRING, key);
         ValueOperations<String, T> valueOperations = redisTemplate.opsForValue();
         valueOperations.set(key, T, timeout, TimeUnit.SECONDS);
+        evictNearCache(key);
     }
 
     /**
@@ -192,6 +465,42 @@ public class RedisServiceImpl implements RedisService {
         paramMap = getKeyMap(RedisTypeEnum.STRING, paramMap);
         ValueOperations<String, T> valueOperations = redisTemplate.opsForValue();
         valueOperations.multiSet(paramMap);
+        evictNearCache(RedisTypeEnum.STRING, new ArrayList<>(paramMap.keySet()));
+    }
+
+    /**
+     * 批量设置对象，每个key可带独立过期时间(采用Redis的String存储)
+     *
+     * @param entries 条目列表
+     * @return List<Boolean> 与entries一一对应的设置结果
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> List<Boolean> msetWithExpire(List<RedisEntry<T>> entries) {
+        RedisSerializer<Object> valueSerializer = redisTemplate.getValueSerializer();
+        List<Boolean> results = new ArrayList<>(entries.size());
+        for (int from = 0; from < entries.size(); from += bulkChunkSize) {
+            List<RedisEntry<T>> chunk = entries.subList(from, Math.min(from + bulkChunkSize, entries.size()));
+            List<Object> chunkResults = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (RedisEntry<T> entry : chunk) {
+                    Expiration expiration = entry.getTimeout() > 0 ? Expiration.seconds(entry.getTimeout()) : Expiration.persistent();
+                    connection.set(redisKeyGenerator.rawKey(RedisTypeEnum.STRING, entry.getKey()), valueSerializer.serialize(entry.getValue()),
+                            expiration, RedisStringCommands.SetOption.UPSERT);
+                }
+                return null;
+            });
+            for (Object result : chunkResults) {
+                results.add(Boolean.TRUE.equals(result));
+            }
+        }
+        if (nearCache != null) {
+            List<String> keys = new ArrayList<>(entries.size());
+            for (RedisEntry<T> entry : entries) {
+                keys.add(getKey(RedisTypeEnum.STRING, entry.getKey()));
+            }
+            nearCache.evict(keys);
+        }
+        return results;
     }
 
     /**
@@ -204,8 +513,7 @@ public class RedisServiceImpl implements RedisService {
     @Override
     public <T extends Serializable> T getObject(String key) throws SerializationException {
         key = getKey(RedisTypeEnum.STRING, key);
-        ValueOperations<String, T> valueOperations = redisTemplate.opsForValue();
-        return valueOperations.get(key);
+        return readThrough(key);
     }
 
     /**
@@ -218,9 +526,7 @@ public class RedisServiceImpl implements RedisService {
     @Override
     public <T extends Object> T getObjectByKey(String key) throws SerializationException {
         key = getKey(RedisTypeEnum.STRING, key);
-        ValueOperations<String, T> valueOperations = redisTemplate.opsForValue();
-        return valueOperations.get(key);
-
+        return readThrough(key);
     }
 
     /**
@@ -233,8 +539,7 @@ public class RedisServiceImpl implements RedisService {
     @Override
     public <T extends Serializable> List<T> mgetObject(List<String> keys) {
         keys = getKeyList(RedisTypeEnum.STRING, keys);
-        ValueOperations<String, T> valueOperations = redisTemplate.opsForValue();
-        return valueOperations.multiGet(keys);
+        return multiReadThrough(keys);
     }
 
     /** ===============Redis-String数据结构接口END=============== */
@@ -253,6 +558,7 @@ public class RedisServiceImpl implements RedisService {
         key = getKey(RedisTypeEnum.HASH, key);
         HashOperations<String, String, T> hashOperations = redisTemplate.opsForHash();
         hashOperations.put(key, field, T);
+        evictNearCache(key);
     }
 
     /**
@@ -267,6 +573,65 @@ public class RedisServiceImpl implements RedisService {
         key = getKey(RedisTypeEnum.HASH, key);
         HashOperations<String, String, T> hashOperations = redisTemplate.opsForHash();
         hashOperations.putAll(key, paramMap);
+        evictNearCache(key);
+    }
+
+    /**
+     * 多个Hash表批量设置并设置各自的过期时间
+     * 没有field的条目不发送HMSET(空参数会使整个管道失败)，结果为false
+     *
+     * @param entries 条目列表
+     * @return List<Boolean> 与entries一一对应的设置结果
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> List<Boolean> hmsetWithExpire(List<RedisEntry<Map<String, T>>> entries) {
+        RedisSerializer<String> hashKeySerializer = redisTemplate.getHashKeySerializer();
+        RedisSerializer<Object> hashValueSerializer = redisTemplate.getHashValueSerializer();
+        List<Boolean> results = new ArrayList<>(entries.size());
+        for (int from = 0; from < entries.size(); from += bulkChunkSize) {
+            List<RedisEntry<Map<String, T>>> chunk = entries.subList(from, Math.min(from + bulkChunkSize, entries.size()));
+            // HMSET为状态回复，不计入管道结果，管道结果只包含EXPIRE的返回值
+            List<Object> chunkResults = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (RedisEntry<Map<String, T>> entry : chunk) {
+                    if (isEmpty(entry)) {
+                        continue;
+                    }
+                    byte[] rawKey = redisKeyGenerator.rawKey(RedisTypeEnum.HASH, entry.getKey());
+                    Map<byte[], byte[]> rawHash = new HashMap<>(entry.getValue().size());
+                    for (Map.Entry<String, T> field : entry.getValue().entrySet()) {
+                        rawHash.put(hashKeySerializer.serialize(field.getKey()), hashValueSerializer.serialize(field.getValue()));
+                    }
+                    connection.hMSet(rawKey, rawHash);
+                    if (entry.getTimeout() > 0) {
+                        connection.expire(rawKey, entry.getTimeout());
+                    }
+                }
+                return null;
+            });
+            int resultIndex = 0;
+            for (RedisEntry<Map<String, T>> entry : chunk) {
+                if (isEmpty(entry)) {
+                    results.add(false);
+                } else {
+                    results.add(entry.getTimeout() <= 0 || Boolean.TRUE.equals(chunkResults.get(resultIndex++)));
+                }
+            }
+        }
+        if (nearCache != null) {
+            List<String> keys = new ArrayList<>(entries.size());
+            for (RedisEntry<Map<String, T>> entry : entries) {
+                if (!isEmpty(entry)) {
+                    keys.add(getKey(RedisTypeEnum.HASH, entry.getKey()));
+                }
+            }
+            nearCache.evict(keys);
+        }
+        return results;
+    }
+
+    private static boolean isEmpty(RedisEntry<? extends Map<?, ?>> entry) {
+        return entry.getValue() == null || entry.getValue().isEmpty();
     }
 
     /**
@@ -281,7 +646,27 @@ public class RedisServiceImpl implements RedisService {
     public <T extends Serializable> T hget(String key, String field) {
         key = getKey(RedisTypeEnum.HASH, key);
         HashOperations<String, String, T> hashOperations = redisTemplate.opsForHash();
-        return hashOperations.get(key, field);
+        if (nearCache == null) {
+            return hashOperations.get(key, field);
+        }
+        T cached = (T) nearCache.getField(key, field);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = nearCache.stamp(key);
+        // HGET与PTTL在一个管道中执行
+        byte[] rawKey = redisTemplate.getKeySerializer().serialize(key);
+        byte[] rawField = redisTemplate.getHashKeySerializer().serialize(field);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.hGet(rawKey, rawField);
+            connection.pTtl(rawKey);
+            return null;
+        }, redisTemplate.getHashValueSerializer());
+        T value = (T) results.get(0);
+        if (value != null) {
+            nearCache.putField(key, field, value, stamp, (Long) results.get(1));
+        }
+        return value;
     }
 
     /**
@@ -314,6 +699,14 @@ public class RedisServiceImpl implements RedisService {
         return hashOperations.entries(key);
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> Stream<Map.Entry<String, T>> hscan(String key, int count) {
+        key = getKey(RedisTypeEnum.HASH, key);
+        HashOperations<String, String, T> hashOperations = redisTemplate.opsForHash();
+        return stream(hashOperations.scan(key, scanOptions(null, count)));
+    }
+
     /**
      * 根据Hash表的key和域Field进行删除
      *
@@ -327,6 +720,7 @@ public class RedisServiceImpl implements RedisService {
         key = getKey(RedisTypeEnum.HASH, key);
         HashOperations<String, String, T> hashOperations = redisTemplate.opsForHash();
         hashOperations.delete(key, fields);
+        evictNearCache(key);
     }
 
     /** ===============Redis-HASH数据结构接口END=============== */
@@ -363,6 +757,14 @@ public class RedisServiceImpl implements RedisService {
         return setOperations.members(key);
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> Stream<T> sscan(String key, int count) {
+        key = getKey(RedisTypeEnum.SET, key);
+        SetOperations<String, T> setOperations = redisTemplate.opsForSet();
+        return stream(setOperations.scan(key, scanOptions(null, count)));
+    }
+
     @Override
     public Long scard(String key) {
         key = getKey(RedisTypeEnum.SET, key);
@@ -371,6 +773,203 @@ public class RedisServiceImpl implements RedisService {
 
     /** ===============Redis-SET数据结构接口END=============== */
 
+    /** ===============Redis-SORTED_SET数据结构接口START=============== */
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> Boolean zadd(String key, T member, double score) {
+        key = getKey(RedisTypeEnum.SORTED_SET, key);
+        ZSetOperations<String, T> zSetOperations = redisTemplate.opsForZSet();
+        return zSetOperations.add(key, member, score);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> long zadd(String key, Map<T, Double> scores) {
+        if (scores.isEmpty()) {
+            return 0;
+        }
+        byte[] rawKey = redisKeyGenerator.rawKey(RedisTypeEnum.SORTED_SET, key);
+        RedisSerializer<Object> valueSerializer = redisTemplate.getValueSerializer();
+        List<Set<RedisZSetCommands.Tuple>> chunks = new ArrayList<>();
+        Set<RedisZSetCommands.Tuple> chunk = new LinkedHashSet<>();
+        for (Map.Entry<T, Double> entry : scores.entrySet()) {
+            chunk.add(new DefaultTuple(valueSerializer.serialize(entry.getKey()), entry.getValue()));
+            if (chunk.size() == bulkChunkSize) {
+                chunks.add(chunk);
+                chunk = new LinkedHashSet<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Set<RedisZSetCommands.Tuple> tuples : chunks) {
+                connection.zAdd(rawKey, tuples);
+            }
+            return null;
+        });
+        return sum(results);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> Double zincrby(String key, T member, double delta) {
+        key = getKey(RedisTypeEnum.SORTED_SET, key);
+        ZSetOperations<String, T> zSetOperations = redisTemplate.opsForZSet();
+        return zSetOperations.incrementScore(key, member, delta);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> List<Double> zincrbyAll(String key, Map<T, Double> deltas) {
+        byte[] rawKey = redisKeyGenerator.rawKey(RedisTypeEnum.SORTED_SET, key);
+        RedisSerializer<Object> valueSerializer = redisTemplate.getValueSerializer();
+        List<Map.Entry<T, Double>> entries = new ArrayList<>(deltas.entrySet());
+        List<Double> results = new ArrayList<>(entries.size());
+        for (int from = 0; from < entries.size(); from += bulkChunkSize) {
+            List<Map.Entry<T, Double>> chunk = entries.subList(from, Math.min(from + bulkChunkSize, entries.size()));
+            List<Object> chunkResults = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Map.Entry<T, Double> entry : chunk) {
+                    connection.zIncrBy(rawKey, entry.getValue(), valueSerializer.serialize(entry.getKey()));
+                }
+                return null;
+            });
+            for (Object result : chunkResults) {
+                results.add((Double) result);
+            }
+        }
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> Double zscore(String key, T member) {
+        key = getKey(RedisTypeEnum.SORTED_SET, key);
+        ZSetOperations<String, T> zSetOperations = redisTemplate.opsForZSet();
+        return zSetOperations.score(key, member);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> Long zrevrank(String key, T member) {
+        key = getKey(RedisTypeEnum.SORTED_SET, key);
+        ZSetOperations<String, T> zSetOperations = redisTemplate.opsForZSet();
+        return zSetOperations.reverseRank(key, member);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> Set<T> zrange(String key, long start, long end) {
+        key = getKey(RedisTypeEnum.SORTED_SET, key);
+        ZSetOperations<String, T> zSetOperations = redisTemplate.opsForZSet();
+        return zSetOperations.range(key, start, end);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> LinkedHashMap<T, Double> zrevrangeWithScores(String key, long start, long end) {
+        key = getKey(RedisTypeEnum.SORTED_SET, key);
+        ZSetOperations<String, T> zSetOperations = redisTemplate.opsForZSet();
+        return toScoreMap(zSetOperations.reverseRangeWithScores(key, start, end));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> LinkedHashMap<T, Double> zrangeByScore(String key, double min, double max, long offset, long count) {
+        key = getKey(RedisTypeEnum.SORTED_SET, key);
+        ZSetOperations<String, T> zSetOperations = redisTemplate.opsForZSet();
+        return toScoreMap(zSetOperations.rangeByScoreWithScores(key, min, max, offset, count));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> LinkedHashMap<T, Double> zrevrangeByScore(String key, double max, double min, long offset, long count) {
+        key = getKey(RedisTypeEnum.SORTED_SET, key);
+        ZSetOperations<String, T> zSetOperations = redisTemplate.opsForZSet();
+        return toScoreMap(zSetOperations.reverseRangeByScoreWithScores(key, min, max, offset, count));
+    }
+
+    @Override
+    public <T> LinkedHashMap<T, Double> zpopmin(String key, long count) {
+        return zpop(key, count, "zrange");
+    }
+
+    @Override
+    public <T> LinkedHashMap<T, Double> zpopmax(String key, long count) {
+        return zpop(key, count, "zrevrange");
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> LinkedHashMap<T, Double> zpop(String key, long count, String rangeCommand) {
+        Assert.isTrue(count > 0, "count must greater than 0");
+        List<byte[]> items = redisScriptRegistry.execute(ZPOP_SCRIPT, 1, redisKeyGenerator.rawKey(RedisTypeEnum.SORTED_SET, key),
+                String.valueOf(count).getBytes(StandardCharsets.UTF_8), rangeCommand.getBytes(StandardCharsets.UTF_8));
+        LinkedHashMap<T, Double> popped = new LinkedHashMap<>();
+        if (items == null) {
+            return popped;
+        }
+        RedisSerializer<Object> valueSerializer = redisTemplate.getValueSerializer();
+        for (int i = 0; i + 1 < items.size(); i += 2) {
+            popped.put((T) valueSerializer.deserialize(items.get(i)), parseScore(new String(items.get(i + 1), StandardCharsets.UTF_8)));
+        }
+        return popped;
+    }
+
+    /**
+     * Lua返回的分数为字符串，正负无穷为inf/-inf
+     */
+    private static Double parseScore(String score) {
+        if ("inf".equals(score) || "+inf".equals(score)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if ("-inf".equals(score)) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return Double.valueOf(score);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> Long zrem(String key, T... members) {
+        key = getKey(RedisTypeEnum.SORTED_SET, key);
+        ZSetOperations<String, T> zSetOperations = redisTemplate.opsForZSet();
+        return zSetOperations.remove(key, (Object[]) members);
+    }
+
+    @Override
+    public Long zremrangeByScore(String key, double min, double max) {
+        key = getKey(RedisTypeEnum.SORTED_SET, key);
+        return redisTemplate.opsForZSet().removeRangeByScore(key, min, max);
+    }
+
+    @Override
+    public Long zcard(String key) {
+        key = getKey(RedisTypeEnum.SORTED_SET, key);
+        return redisTemplate.opsForZSet().zCard(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> Stream<Map.Entry<T, Double>> zscan(String key, int count) {
+        key = getKey(RedisTypeEnum.SORTED_SET, key);
+        ZSetOperations<String, T> zSetOperations = redisTemplate.opsForZSet();
+        return stream(zSetOperations.scan(key, scanOptions(null, count)))
+                .map(tuple -> new AbstractMap.SimpleImmutableEntry<>(tuple.getValue(), tuple.getScore()));
+    }
+
+    private static <T> LinkedHashMap<T, Double> toScoreMap(Set<ZSetOperations.TypedTuple<T>> tuples) {
+        LinkedHashMap<T, Double> scores = new LinkedHashMap<>();
+        if (tuples != null) {
+            for (ZSetOperations.TypedTuple<T> tuple : tuples) {
+                scores.put(tuple.getValue(), tuple.getScore());
+            }
+        }
+        return scores;
+    }
+
+    /** ===============Redis-SORTED_SET数据结构接口END=============== */
+
     /**
      * ===============Redis-LIST数据结构接口START===============
      */
@@ -390,11 +989,99 @@ public class RedisServiceImpl implements RedisService {
         return o == null ? null : o.toString();
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> Long rPushAll(String key, Collection<T> values) {
+        key = getKey(RedisTypeEnum.LIST, key);
+        ListOperations<String, T> listOperations = redisTemplate.opsForList();
+        return listOperations.rightPushAll(key, values);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> List<T> lRange(String key, long start, long end) {
+        key = getKey(RedisTypeEnum.LIST, key);
+        ListOperations<String, T> listOperations = redisTemplate.opsForList();
+        return listOperations.range(key, start, end);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T lPopTyped(String key) {
+        key = getKey(RedisTypeEnum.LIST, key);
+        ListOperations<String, T> listOperations = redisTemplate.opsForList();
+        return listOperations.leftPop(key);
+    }
+
+    @Override
+    public <T> T lPopTyped(String key, Class<T> legacyType) {
+        // 旧数据先写入，先弹出旧List保证顺序
+        Object legacy = redisTemplate.opsForList().leftPop(key);
+        if (legacy != null) {
+            return decodeLegacy(legacy, legacyType);
+        }
+        return lPopTyped(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> List<T> lRangeLegacy(String key, long start, long end, Class<T> type) {
+        List<Object> values = redisTemplate.opsForList().range(key, start, end);
+        List<T> decoded = new ArrayList<>(values.size());
+        for (Object value : values) {
+            decoded.add(decodeLegacy(value, type));
+        }
+        return decoded;
+    }
+
+    @Override
+    public void lTrim(String key, long start, long end) {
+        key = getKey(RedisTypeEnum.LIST, key);
+        redisTemplate.opsForList().trim(key, start, end);
+    }
+
+    /**
+     * rPush写入的元素为fastjson编码后的字符串
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T decodeLegacy(Object value, Class<T> type) {
+        if (value instanceof String && type != String.class) {
+            return JSON.parseObject((String) value, type);
+        }
+        if (value instanceof String) {
+            // fastjson编码的字符串带引号
+            return (T) JSON.parseObject((String) value, String.class);
+        }
+        return (T) value;
+    }
+
     @Override
     public Long llen(String key) {
         return redisTemplate.opsForList().size(key);
     }
 
+    @Override
+    public Long lLenTyped(String key) {
+        key = getKey(RedisTypeEnum.LIST, key);
+        return redisTemplate.opsForList().size(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Long lLenTyped(String key, boolean includeLegacy) {
+        if (!includeLegacy) {
+            return lLenTyped(key);
+        }
+        byte[] rawLegacyKey = key.getBytes(StandardCharsets.UTF_8);
+        byte[] rawKey = redisKeyGenerator.rawKey(RedisTypeEnum.LIST, key);
+        List<Object> sizes = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.lLen(rawLegacyKey);
+            connection.lLen(rawKey);
+            return null;
+        });
+        return (Long) sizes.get(0) + (Long) sizes.get(1);
+    }
+
     /** ===============Redis-LIST数据结构接口END=============== */
 
     /** ===============Redis接口START=============== */
@@ -409,7 +1096,9 @@ public class RedisServiceImpl implements RedisService {
     @Override
     public boolean expire(RedisTypeEnum typeEnum, String key, long timeout) {
         key = getKey(typeEnum, key);
-        return redisTemplate.expire(key, timeout, TimeUnit.SECONDS);
+        boolean result = redisTemplate.expire(key, timeout, TimeUnit.SECONDS);
+        evictNearCache(typeEnum, key);
+        return result;
     }
 
     /**
@@ -423,7 +1112,9 @@ public class RedisServiceImpl implements RedisService {
     @Override
     public boolean expireAt(RedisTypeEnum typeEnum, String key, Date date) {
         key = getKey(typeEnum, key);
-        return redisTemplate.expireAt(key, date);
+        boolean result = redisTemplate.expireAt(key, date);
+        evictNearCache(typeEnum, key);
+        return result;
     }
 
     /**
@@ -449,6 +1140,7 @@ public class RedisServiceImpl implements RedisService {
     public void delete(RedisTypeEnum typeEnum, String key) {
         key = getKey(typeEnum, key);
         redisTemplate.delete(key);
+        evictNearCache(typeEnum, key);
     }
 
     /**
@@ -461,6 +1153,7 @@ public class RedisServiceImpl implements RedisService {
     public void deleteAll(RedisTypeEnum typeEnum, List<String> keys) {
         keys = getKeyList(typeEnum, keys);
         redisTemplate.delete(keys);
+        evictNearCache(typeEnum, keys);
     }
 
     /**
@@ -472,14 +1165,18 @@ public class RedisServiceImpl implements RedisService {
     @Override
     public Long increase(String key) {
         key = getKey(RedisTypeEnum.STRING, key);
-        return redisTemplate.boundValueOps(key).increment(1);
+        Long value = redisTemplate.boundValueOps(key).increment(1);
+        evictNearCache(key);
+        return value;
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public Long decrease(String key) {
         key = getKey(RedisTypeEnum.STRING, key);
-        return redisTemplate.boundValueOps(key).increment(-1);
+        Long value = redisTemplate.boundValueOps(key).increment(-1);
+        evictNearCache(key);
+        return value;
     }
 
     /**
@@ -494,5 +1191,439 @@ public class RedisServiceImpl implements RedisService {
         return redisTemplate.getExpire(key);
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public Stream<String> scan(RedisTypeEnum typeEnum, String pattern, int count) {
+        ScanOptions options = scanOptions(getKey(typeEnum, pattern), count);
+        int prefixLength = getKey(typeEnum, "").length();
+        RedisConnection connection = lettuceConnectionFactory.getConnection();
+        List<Cursor<byte[]>> cursors;
+        try {
+            cursors = openScanCursors(connection, options);
+        } catch (RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+        // 集群模式下逐个主节点扫描，关闭流时关闭全部游标及连接
+        return cursors.stream()
+                .flatMap(RedisServiceImpl::stream)
+                .map(rawKey -> new String(rawKey, StandardCharsets.UTF_8).substring(prefixLength))
+                .onClose(() -> {
+                    cursors.forEach(RedisServiceImpl::closeCursor);
+                    connection.close();
+                });
+    }
+
+    /**
+     * 打开SCAN游标，集群模式下每个主节点一个游标
+     */
+    private static List<Cursor<byte[]>> openScanCursors(RedisConnection connection, ScanOptions options) {
+        List<Cursor<byte[]>> cursors = new ArrayList<>();
+        if (connection instanceof RedisClusterConnection) {
+            RedisClusterConnection clusterConnection = (RedisClusterConnection) connection;
+            for (RedisClusterNode node : clusterConnection.clusterGetNodes()) {
+                if (node.isMaster()) {
+                    cursors.add(clusterConnection.scan(node, options));
+                }
+            }
+        } else {
+            cursors.add(connection.scan(options));
+        }
+        return cursors;
+    }
+
+    private static ScanOptions scanOptions(String pattern, int count) {
+        Assert.isTrue(count > 0, "count must greater than 0");
+        ScanOptions.ScanOptionsBuilder builder = ScanOptions.scanOptions().count(count);
+        if (pattern != null) {
+            builder.match(pattern);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 游标包装为惰性的流，关闭流时关闭游标
+     */
+    private static <T> Stream<T> stream(Cursor<T> cursor) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize((Iterator<T>) cursor, Spliterator.NONNULL), false)
+                .onClose(() -> closeCursor(cursor));
+    }
+
+    private static void closeCursor(Cursor<?> cursor) {
+        try {
+            cursor.close();
+        } catch (IOException e) {
+            log.warn("close cursor error", e);
+        }
+    }
+
+    @Override
+    public PurgeResult deleteByPattern(RedisTypeEnum typeEnum, String pattern) {
+        return scanAndApply(typeEnum, pattern, "delete", this::unlink);
+    }
+
+    @Override
+    public PurgeResult expireByPattern(RedisTypeEnum typeEnum, String pattern, long timeout) {
+        Assert.isTrue(timeout > 0, "timeout must greater than 0");
+        return scanAndApply(typeEnum, pattern, "expire", (connection, keys) -> sum(pipelined(connection, keys, chunk -> {
+            // 管道模式下expire返回null，结果由closePipeline逐条返回
+            long affected = 0;
+            for (byte[] key : chunk) {
+                affected += Boolean.TRUE.equals(connection.expire(key, timeout)) ? 1 : 0;
+            }
+            return affected;
+        })));
+    }
+
+    /**
+     * SCAN逐批扫描(集群模式下逐个主节点)，每批执行一次action并限速
+     */
+    private PurgeResult scanAndApply(RedisTypeEnum typeEnum, String pattern, String actionName,
+                                     BiFunction<RedisConnection, List<byte[]>, Long> action) {
+        Assert.hasText(pattern, "pattern must not be empty");
+        ScanOptions options = scanOptions(getKey(typeEnum, pattern), purgeBatchSize);
+        int prefixLength = getKey(typeEnum, "").length();
+        long start = System.currentTimeMillis();
+        long[] counts = new long[2];
+        RedisConnection connection = lettuceConnectionFactory.getConnection();
+        try {
+            List<Cursor<byte[]>> cursors = openScanCursors(connection, options);
+            List<byte[]> batch = new ArrayList<>(purgeBatchSize);
+            for (Cursor<byte[]> cursor : cursors) {
+                try (Cursor<byte[]> current = cursor) {
+                    while (current.hasNext()) {
+                        batch.add(current.next());
+                        if (batch.size() == purgeBatchSize) {
+                            applyBatch(connection, typeEnum, batch, prefixLength, action, counts, start, actionName, pattern);
+                        }
+                    }
+                } catch (IOException e) {
+                    log.warn("close cursor error", e);
+                }
+            }
+            if (!batch.isEmpty()) {
+                applyBatch(connection, typeEnum, batch, prefixLength, action, counts, start, actionName, pattern);
+            }
+        } finally {
+            connection.close();
+        }
+        PurgeResult result = new PurgeResult(counts[0], counts[1], System.currentTimeMillis() - start);
+        log.info("{} by pattern {} of {} finished, {}", actionName, pattern, typeEnum, result);
+        return result;
+    }
+
+    private void applyBatch(RedisConnection connection, RedisTypeEnum typeEnum, List<byte[]> batch, int prefixLength,
+                            BiFunction<RedisConnection, List<byte[]>, Long> action, long[] counts, long start,
+                            String actionName, String pattern) {
+        counts[1] += action.apply(connection, batch);
+        long before = counts[0];
+        counts[0] += batch.size();
+        if (nearCache != null && (typeEnum == RedisTypeEnum.STRING || typeEnum == RedisTypeEnum.HASH)) {
+            List<String> keys = new ArrayList<>(batch.size());
+            for (byte[] rawKey : batch) {
+                keys.add(new String(rawKey, StandardCharsets.UTF_8).substring(prefixLength));
+            }
+            evictNearCache(typeEnum, getKeyList(typeEnum, keys));
+        }
+        batch.clear();
+        if (before / PURGE_PROGRESS_INTERVAL != counts[0] / PURGE_PROGRESS_INTERVAL) {
+            log.info("{} by pattern {} of {} in progress, scanned: {}, affected: {}", actionName, pattern, typeEnum, counts[0], counts[1]);
+        }
+        // 限速：按已处理的数量计算应耗时间，提前完成时休眠
+        long expectedMillis = counts[0] * 1000 / purgeMaxKeysPerSecond;
+        long sleepMillis = expectedMillis - (System.currentTimeMillis() - start);
+        if (sleepMillis > 0) {
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while " + actionName + " by pattern " + pattern, e);
+            }
+        }
+    }
+
+    /**
+     * UNLINK一批key，服务端不支持时改用DEL
+     */
+    private long unlink(RedisConnection connection, List<byte[]> keys) {
+        if (unlinkSupported) {
+            try {
+                return sum(pipelined(connection, keys, connection::unlink));
+            } catch (RuntimeException e) {
+                if (!isUnknownCommand(e)) {
+                    throw e;
+                }
+                log.warn("UNLINK is not supported by server, fall back to DEL");
+                unlinkSupported = false;
+            }
+        }
+        return sum(pipelined(connection, keys, connection::del));
+    }
+
+    /**
+     * 单机模式下管道执行，每条命令处理PURGE_COMMAND_KEYS个key；集群模式下不支持管道，逐条执行(多slot的命令由集群连接拆分)
+     */
+    private static List<Object> pipelined(RedisConnection connection, List<byte[]> keys, Function<byte[][], Object> command) {
+        List<byte[][]> chunks = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += PURGE_COMMAND_KEYS) {
+            chunks.add(keys.subList(from, Math.min(from + PURGE_COMMAND_KEYS, keys.size())).toArray(new byte[0][]));
+        }
+        List<Object> results = new ArrayList<>(chunks.size());
+        if (connection instanceof RedisClusterConnection) {
+            for (byte[][] chunk : chunks) {
+                results.add(command.apply(chunk));
+            }
+            return results;
+        }
+        connection.openPipeline();
+        boolean closed = false;
+        try {
+            for (byte[][] chunk : chunks) {
+                command.apply(chunk);
+            }
+            closed = true;
+            return connection.closePipeline();
+        } finally {
+            if (!closed) {
+                connection.closePipeline();
+            }
+        }
+    }
+
+    private static boolean isUnknownCommand(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (String.valueOf(cause.getMessage()).toLowerCase().contains("unknown command")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 累加结果：数值按值累加，true计为1
+     */
+    private static long sum(List<Object> results) {
+        long total = 0;
+        for (Object result : results) {
+            if (result instanceof Long) {
+                total += (Long) result;
+            } else if (Boolean.TRUE.equals(result)) {
+                total++;
+            }
+        }
+        return total;
+    }
+
     /** ===============Redis接口END=============== */
-}
\ No newline at end of file
+
+    /** ===============Redis-Lua脚本接口START=============== */
+
+    @Override
+    public void registerScript(String name, String script, ReturnType returnType) {
+        redisScriptRegistry.register(name, script, returnType);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T executeScript(String name, RedisTypeEnum typeEnum, List<String> keys, String... args) {
+        byte[][] keysAndArgs = new byte[keys.size() + args.length][];
+        for (int i = 0; i < keys.size(); i++) {
+            keysAndArgs[i] = redisKeyGenerator.rawKey(typeEnum, keys.get(i));
+        }
+        for (int i = 0; i < args.length; i++) {
+            keysAndArgs[keys.size() + i] = args[i].getBytes(StandardCharsets.UTF_8);
+        }
+        Object result = redisScriptRegistry.execute(name, keys.size(), keysAndArgs);
+        return (T) decodeScriptResult(result);
+    }
+
+    /**
+     * 脚本返回的字节数组转换为String
+     */
+    private Object decodeScriptResult(Object result) {
+        if (result instanceof byte[]) {
+            return new String((byte[]) result, StandardCharsets.UTF_8);
+        }
+        if (result instanceof List) {
+            List<?> list = (List<?>) result;
+            List<Object> decoded = new ArrayList<>(list.size());
+            for (Object item : list) {
+                decoded.add(decodeScriptResult(item));
+            }
+            return decoded;
+        }
+        return result;
+    }
+
+    /** ===============Redis-Lua脚本接口END=============== */
+
+    /** ===============Redis-缓存加载接口START=============== */
+
+    @Override
+    public <T> T getOrLoad(String key, Supplier<T> loader, long timeout) {
+        return getOrLoad(key, loader, LoadOptions.of(timeout));
+    }
+
+    @Override
+    public <T> T getOrLoad(String key, Supplier<T> loader, LoadOptions options) {
+        Assert.notNull(loader, "loader must not be null");
+        Assert.isTrue(options.getTimeout() > 0, "timeout must greater than 0");
+        Assert.isTrue(options.getLockTimeout() <= MAX_LOCK_TIMEOUT_MILLIS, "lockTimeout must not greater than 1 min");
+        String redisKey = getKey(RedisTypeEnum.STRING, key);
+        CacheEnvelope<T> envelope = asEnvelope(readThrough(redisKey));
+        if (envelope == null) {
+            return singleFlight(redisKey, () -> load(redisKey, loader, options, true));
+        }
+        long now = System.currentTimeMillis();
+        if (now >= envelope.getExpireAt() || shouldRefreshEarly(envelope, now, options.getBeta())) {
+            // 已过期(仍在staleTimeout内)或提前刷新，先返回当前值
+            refreshAsync(redisKey, loader, options);
+        }
+        return envelope.getValue();
+    }
+
+    /**
+     * key中不是getOrLoad写入的值(如通过set写入)时视为未命中，加载后覆盖
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> CacheEnvelope<T> asEnvelope(Object value) {
+        return value instanceof CacheEnvelope ? (CacheEnvelope<T>) value : null;
+    }
+
+    /**
+     * XFetch：now - delta * beta * ln(random) >= expireAt时提前刷新，越接近过期、加载越慢越容易触发
+     */
+    private boolean shouldRefreshEarly(CacheEnvelope<?> envelope, long now, double beta) {
+        if (beta <= 0) {
+            return false;
+        }
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return now - envelope.getDelta() * beta * Math.log(random) >= envelope.getExpireAt();
+    }
+
+    /**
+     * 同一key只有一个线程执行加载，其余线程等待其结果
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T singleFlight(String redisKey, Supplier<T> load) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = loading.putIfAbsent(redisKey, future);
+        if (existing != null) {
+            return (T) await(redisKey, existing);
+        }
+        try {
+            T value = load.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(redisKey, future);
+        }
+    }
+
+    /**
+     * 后台刷新，同一key同一时刻只提交一次；线程池已满时放弃本次刷新，下次读取时再触发
+     */
+    private void refreshAsync(String redisKey, Supplier<?> loader, LoadOptions options) {
+        if (!refreshing.add(redisKey)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    load(redisKey, loader, options, false);
+                } catch (RuntimeException e) {
+                    log.warn("refresh key: {} error", redisKey, e);
+                } finally {
+                    refreshing.remove(redisKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(redisKey);
+        }
+    }
+
+    /**
+     * 等待本节点其他线程的加载结果，最多等待加载锁的有效期
+     */
+    private Object await(String redisKey, CompletableFuture<Object> future) {
+        try {
+            return future.get(loadLockLeaseMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("timed out waiting for loading, key: " + redisKey, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for loading", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 执行加载并写入Redis；启用跨节点锁时，获得锁后先检查其他节点是否已写入新值
+     *
+     * @param wait 是否等待加载锁，后台刷新不等待，锁被占用说明其他节点正在刷新；
+     *             等待超时且其他节点仍未写入值时抛出QueryTimeoutException，不在无锁的情况下加载
+     */
+    private <T> T load(String redisKey, Supplier<T> loader, LoadOptions options, boolean wait) {
+        if (options.getLockTimeout() <= 0) {
+            return store(redisKey, loader, options);
+        }
+        String lockKey = redisKey + SymbolEnum.COLON.getSymbol() + "loading";
+        String token = tryLoadLock(lockKey, wait ? options.getLockTimeout() : 0);
+        if (token == null && !wait) {
+            return null;
+        }
+        try {
+            CacheEnvelope<T> envelope = asEnvelope(readValue(redisKey));
+            if (envelope != null && (token == null || System.currentTimeMillis() < envelope.getExpireAt())) {
+                // 其他节点已加载；等待锁超时时返回已有的值(可能是旧值)
+                return envelope.getValue();
+            }
+            if (token == null) {
+                throw new QueryTimeoutException("timed out waiting for loading lock, key: " + redisKey);
+            }
+            return store(redisKey, loader, options);
+        } finally {
+            if (token != null) {
+                redisDistributedLock.releaseLock(lockKey, token);
+            }
+        }
+    }
+
+    /**
+     * 获取加载锁，启用看门狗时加载期间自动续期，加载耗时超过有效期也不会有其他节点同时加载
+     *
+     * @param timeout 等待时间，单位：毫秒，0表示只尝试一次
+     */
+    private String tryLoadLock(String lockKey, long timeout) {
+        if (redisDistributedLock.isWatchdogEnabled()) {
+            return timeout > 0 ? redisDistributedLock.tryLockWithWatchdog(lockKey, loadLockLeaseMillis, timeout)
+                    : redisDistributedLock.tryLockWithWatchdog(lockKey, loadLockLeaseMillis);
+        }
+        return timeout > 0 ? redisDistributedLock.tryLock(lockKey, loadLockLeaseMillis, timeout)
+                : redisDistributedLock.tryLock(lockKey, loadLockLeaseMillis);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T store(String redisKey, Supplier<T> loader, LoadOptions options) {
+        long start = System.currentTimeMillis();
+        T value = loader.get();
+        if (value == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        CacheEnvelope<T> envelope = new CacheEnvelope<>(value, now - start, now + TimeUnit.SECONDS.toMillis(options.getTimeout()));
+        ValueOperations<String, CacheEnvelope<T>> valueOperations = redisTemplate.opsForValue();
+        valueOperations.set(redisKey, envelope, options.getTimeout() + Math.max(options.getStaleTimeout(), 0), TimeUnit.SECONDS);
+        evictNearCache(redisKey);
+        return value;
+    }
+
+    /** ===============Redis-缓存加载接口END=============== */
+}
@@ -0,0 +1,561 @@
+package com.xinyan.stream;
+
+import com.xinyan.common.RedisTypeEnum;
+import com.xinyan.service.RedisKeyGenerator;
+import io.lettuce.core.Limit;
+import io.lettuce.core.Range;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.StreamMessage;
+import io.lettuce.core.XAddArgs;
+import io.lettuce.core.XReadArgs;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.models.stream.PendingMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConverters;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 基于Redis Streams的消息发布与消费组
+ * 生产者XADD追加消息(MAXLEN近似裁剪)，消费组内的消费者以XREADGROUP批量读取，处理完成后XACK确认；
+ * 未确认的消息留在消费组的待确认列表(PEL)中，空闲超过claim-idle-millis后由其他消费者认领重新处理，语义为至少一次。
+ * 消息体只有一个payload域，值为RedisConfig中配置的值序列化器编码的对象。
+ * 阻塞读取使用独立的非共享连接，避免阻塞其他命令使用的共享连接；并发消费者数不应超过连接池大小。
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Component
+@Slf4j
+public class RedisStreamService {
+
+    private static final byte[] PAYLOAD_FIELD = raw("payload");
+
+    /**
+     * 认领时每次检查的待确认消息数
+     */
+    private static final int CLAIM_PAGE_SIZE = 100;
+
+    /**
+     * 每次认领最多检查的页数
+     */
+    private static final int CLAIM_MAX_PAGES = 10;
+
+    @Resource
+    private RedisTemplate redisTemplate;
+
+    @Resource
+    private LettuceConnectionFactory lettuceConnectionFactory;
+
+    @Resource
+    private RedisKeyGenerator redisKeyGenerator;
+
+    @Resource
+    private RedisSerializer<Object> redisValueSerializer;
+
+    /**
+     * 默认最大长度，追加时近似裁剪到该长度
+     */
+    @Value("${redis.stream.max-len:100000}")
+    private long maxLen;
+
+    /**
+     * 消费者阻塞读取的等待时间，单位：毫秒
+     */
+    @Value("${redis.stream.block-millis:1000}")
+    private long blockMillis;
+
+    /**
+     * 待确认消息空闲超过该时间后可被其他消费者认领，单位：毫秒
+     */
+    @Value("${redis.stream.claim-idle-millis:30000}")
+    private long claimIdleMillis;
+
+    /**
+     * 消费者检查可认领消息的周期，单位：毫秒
+     */
+    @Value("${redis.stream.claim-interval-millis:5000}")
+    private long claimIntervalMillis;
+
+    /**
+     * 阻塞读取使用的连接工厂，与lettuceConnectionFactory配置相同但不共享连接
+     */
+    private LettuceConnectionFactory blockingConnectionFactory;
+
+    @PostConstruct
+    public void init() {
+        if (lettuceConnectionFactory.isClusterAware()) {
+            blockingConnectionFactory = new LettuceConnectionFactory(lettuceConnectionFactory.getClusterConfiguration(),
+                    lettuceConnectionFactory.getClientConfiguration());
+        } else if (lettuceConnectionFactory.isRedisSentinelAware()) {
+            blockingConnectionFactory = new LettuceConnectionFactory(lettuceConnectionFactory.getSentinelConfiguration(),
+                    lettuceConnectionFactory.getClientConfiguration());
+        } else {
+            blockingConnectionFactory = new LettuceConnectionFactory(lettuceConnectionFactory.getStandaloneConfiguration(),
+                    lettuceConnectionFactory.getClientConfiguration());
+        }
+        blockingConnectionFactory.setShareNativeConnection(false);
+        blockingConnectionFactory.afterPropertiesSet();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        blockingConnectionFactory.destroy();
+    }
+
+    /**
+     * 追加一条消息，按默认最大长度近似裁剪
+     *
+     * @param stream  流名称
+     * @param payload 消息内容
+     * @return 消息ID
+     */
+    public <T> String add(String stream, T payload) {
+        return add(stream, payload, maxLen);
+    }
+
+    /**
+     * 追加一条消息
+     *
+     * @param stream  流名称
+     * @param payload 消息内容
+     * @param maxLen  最大长度，近似裁剪(MAXLEN ~)，超出部分的旧消息被删除
+     * @return 消息ID
+     */
+    public <T> String add(String stream, T payload, long maxLen) {
+        return addAll(stream, Collections.singletonList(payload), maxLen).get(0);
+    }
+
+    /**
+     * 批量追加消息，多个XADD在同一连接上连续发送后统一等待结果
+     *
+     * @param stream   流名称
+     * @param payloads 消息内容
+     * @param maxLen   最大长度，近似裁剪(MAXLEN ~)，超出部分的旧消息被删除
+     * @return 消息ID，顺序与payloads一致
+     */
+    public <T> List<String> addAll(String stream, Collection<T> payloads, long maxLen) {
+        Assert.notEmpty(payloads, "payloads must not be empty");
+        Assert.isTrue(maxLen > 0, "maxLen must greater than 0");
+        byte[] key = rawKey(stream);
+        XAddArgs args = new XAddArgs().maxlen(maxLen).approximateTrimming();
+        return execute(commands -> {
+            List<RedisFuture<String>> futures = new ArrayList<>(payloads.size());
+            for (T payload : payloads) {
+                futures.add(commands.xadd(key, args, Collections.singletonMap(PAYLOAD_FIELD, redisValueSerializer.serialize(payload))));
+            }
+            List<String> ids = new ArrayList<>(futures.size());
+            for (RedisFuture<String> future : futures) {
+                ids.add(await(future, 0));
+            }
+            return ids;
+        });
+    }
+
+    /**
+     * 创建消费组，从创建之后追加的消息开始消费；流不存在时自动创建(MKSTREAM)
+     *
+     * @param stream 流名称
+     * @param group  消费组名称
+     * @return 是否新建，消费组已存在时返回false
+     */
+    public boolean createGroup(String stream, String group) {
+        byte[] key = rawKey(stream);
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection ->
+                    connection.execute("XGROUP", raw("CREATE"), key, raw(group), raw("$"), raw("MKSTREAM")));
+            return true;
+        } catch (DataAccessException e) {
+            String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            if (message != null && message.startsWith("BUSYGROUP")) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 读取消费组中未投递过的消息，没有消息时立即返回
+     *
+     * @param stream   流名称
+     * @param group    消费组名称
+     * @param consumer 消费者名称
+     * @param count    最多读取的数量
+     * @return 消息，没有时返回空列表
+     */
+    public <T> List<StreamRecord<T>> read(String stream, String group, String consumer, int count) {
+        Assert.isTrue(count > 0, "count must greater than 0");
+        return execute(commands -> read(commands, stream, group, consumer, count, 0));
+    }
+
+    /**
+     * 阻塞读取消费组中未投递过的消息，使用独立连接
+     *
+     * @param stream      流名称
+     * @param group       消费组名称
+     * @param consumer    消费者名称
+     * @param count       最多读取的数量
+     * @param blockMillis 阻塞等待时间，单位：毫秒
+     * @return 消息，超时返回空列表
+     */
+    public <T> List<StreamRecord<T>> read(String stream, String group, String consumer, int count, long blockMillis) {
+        Assert.isTrue(count > 0, "count must greater than 0");
+        Assert.isTrue(blockMillis > 0, "blockMillis must greater than 0");
+        RedisConnection connection = blockingConnectionFactory.getConnection();
+        try {
+            return read(commands(connection), stream, group, consumer, count, blockMillis);
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * 确认消息处理完成，多个ID一次XACK
+     *
+     * @param stream 流名称
+     * @param group  消费组名称
+     * @param ids    消息ID
+     * @return 确认成功的数量，已确认的消息不计入
+     */
+    public long ack(String stream, String group, Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        byte[] key = rawKey(stream);
+        Long acked = execute(commands -> await(commands.xack(key, raw(group), ids.toArray(new String[0])), 0));
+        return acked == null ? 0 : acked;
+    }
+
+    /**
+     * 认领空闲超时的待确认消息，转给指定消费者重新处理
+     * Lettuce 5.1没有XAUTOCLAIM，以XPENDING分页查找空闲超时的消息后XCLAIM认领
+     *
+     * @param stream        流名称
+     * @param group         消费组名称
+     * @param consumer      认领的消费者名称
+     * @param minIdleMillis 最小空闲时间，单位：毫秒
+     * @param count         最多认领的数量
+     * @return 认领到的消息，已被裁剪删除的消息直接确认，不返回
+     */
+    public <T> List<StreamRecord<T>> claim(String stream, String group, String consumer, long minIdleMillis, int count) {
+        Assert.isTrue(count > 0, "count must greater than 0");
+        return execute(commands -> claim(commands, stream, group, consumer, minIdleMillis, count));
+    }
+
+    /**
+     * 消费组中待确认的消息数
+     *
+     * @param stream 流名称
+     * @param group  消费组名称
+     * @return 待确认数量
+     */
+    public long pending(String stream, String group) {
+        byte[] key = rawKey(stream);
+        // XPENDING汇总：[数量, 最小ID, 最大ID, [[消费者, 数量], ...]]
+        return execute(commands -> {
+            List<Object> summary = await(commands.xpending(key, raw(group)), 0);
+            return summary == null || summary.isEmpty() ? 0L : (Long) summary.get(0);
+        });
+    }
+
+    /**
+     * 流中的消息数
+     *
+     * @param stream 流名称
+     * @return 消息数
+     */
+    public long size(String stream) {
+        byte[] key = rawKey(stream);
+        Long size = execute(commands -> await(commands.xlen(key), 0));
+        return size == null ? 0 : size;
+    }
+
+    /**
+     * 删除流及其消费组
+     *
+     * @param stream 流名称
+     */
+    public void delete(String stream) {
+        byte[] key = rawKey(stream);
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.del(key));
+    }
+
+    /**
+     * 启动消费者线程池，消费组不存在时创建
+     * 每个线程使用独立连接和消费者名称：周期性认领空闲超时的消息，其余时间阻塞批量读取；
+     * 处理成功的消息在同一连接上以一个XACK确认，不等待结果即发起下一次读取，处理失败的消息不确认，空闲超时后被认领重新处理
+     *
+     * @param stream      流名称
+     * @param group       消费组名称
+     * @param concurrency 消费线程数
+     * @param batchSize   每次读取的最大数量
+     * @param handler     消息处理函数
+     * @return 消费者，stop后停止读取新消息
+     */
+    public <T> StreamConsumer consume(String stream, String group, int concurrency, int batchSize, Consumer<T> handler) {
+        Assert.isTrue(concurrency > 0, "concurrency must greater than 0");
+        Assert.isTrue(batchSize > 0, "batchSize must greater than 0");
+        createGroup(stream, group);
+        String consumerPrefix = ManagementFactory.getRuntimeMXBean().getName();
+        StreamConsumer consumer = new StreamConsumer(stream, group, concurrency);
+        consumer.start(index -> new GroupPoller<>(stream, group, consumerPrefix + "-" + index, batchSize, handler));
+        return consumer;
+    }
+
+    /**
+     * 单个消费线程，持有一个独立连接
+     */
+    private class GroupPoller<T> implements StreamConsumer.Poller {
+
+        private final String stream;
+
+        private final String group;
+
+        private final String consumer;
+
+        private final int batchSize;
+
+        private final Consumer<T> handler;
+
+        private final RedisConnection connection;
+
+        private final RedisClusterAsyncCommands<byte[], byte[]> commands;
+
+        private RedisFuture<Long> lastAck;
+
+        private long nextClaimAt;
+
+        GroupPoller(String stream, String group, String consumer, int batchSize, Consumer<T> handler) {
+            this.stream = stream;
+            this.group = group;
+            this.consumer = consumer;
+            this.batchSize = batchSize;
+            this.handler = handler;
+            this.connection = blockingConnectionFactory.getConnection();
+            this.commands = commands(connection);
+        }
+
+        @Override
+        public void poll() {
+            List<StreamRecord<T>> records = Collections.emptyList();
+            long now = System.currentTimeMillis();
+            if (now >= nextClaimAt) {
+                nextClaimAt = now + claimIntervalMillis;
+                records = claim(commands, stream, group, consumer, claimIdleMillis, batchSize);
+            }
+            if (records.isEmpty()) {
+                records = read(commands, stream, group, consumer, batchSize, blockMillis);
+            }
+            List<String> processed = new ArrayList<>(records.size());
+            for (StreamRecord<T> record : records) {
+                try {
+                    handler.accept(record.getPayload());
+                    processed.add(record.getId());
+                } catch (Exception e) {
+                    log.error("stream: {} group: {} message: {} handle error, redeliver after idle timeout", stream, group, record.getId(), e);
+                }
+            }
+            if (!processed.isEmpty()) {
+                // 确认失败的消息留在待确认列表中，空闲超时后被认领，不影响正确性
+                lastAck = commands.xack(rawKey(stream), raw(group), processed.toArray(new String[0]));
+                lastAck.whenComplete((acked, ex) -> {
+                    if (ex != null) {
+                        log.warn("stream: {} group: {} ack {} messages failed", stream, group, processed.size(), ex);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (lastAck != null) {
+                    await(lastAck, 0);
+                }
+            } catch (Exception e) {
+                log.warn("stream: {} group: {} consumer: {} last ack failed", stream, group, consumer, e);
+            } finally {
+                connection.close();
+            }
+        }
+    }
+
+    private <T> List<StreamRecord<T>> read(RedisClusterAsyncCommands<byte[], byte[]> commands, String stream, String group,
+                                           String consumer, int count, long blockMillis) {
+        XReadArgs args = new XReadArgs().count(count);
+        if (blockMillis > 0) {
+            args.block(blockMillis);
+        }
+        List<StreamMessage<byte[], byte[]>> messages = await(commands.xreadgroup(io.lettuce.core.Consumer.from(raw(group), raw(consumer)), args,
+                XReadArgs.StreamOffset.lastConsumed(rawKey(stream))), blockMillis);
+        return toRecords(stream, messages);
+    }
+
+    private <T> List<StreamRecord<T>> claim(RedisClusterAsyncCommands<byte[], byte[]> commands, String stream, String group,
+                                            String consumer, long minIdleMillis, int count) {
+        byte[] key = rawKey(stream);
+        List<String> ids = new ArrayList<>(count);
+        Range<String> range = Range.unbounded();
+        for (int page = 0; page < CLAIM_MAX_PAGES && ids.size() < count; page++) {
+            List<PendingMessage> pending = parsePending(
+                    await(commands.xpending(key, raw(group), range, Limit.from(CLAIM_PAGE_SIZE)), 0));
+            for (PendingMessage message : pending) {
+                if (message.getMsSinceLastDelivery() >= minIdleMillis && ids.size() < count) {
+                    ids.add(message.getId());
+                }
+            }
+            if (pending.size() < CLAIM_PAGE_SIZE) {
+                break;
+            }
+            range = Range.create(nextId(pending.get(pending.size() - 1).getId()), "+");
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // XCLAIM再次校验空闲时间，并发认领时只有一个消费者成功
+        List<StreamMessage<byte[], byte[]>> messages = await(commands.xclaim(key, io.lettuce.core.Consumer.from(raw(group), raw(consumer)),
+                minIdleMillis, ids.toArray(new String[0])), 0);
+        List<String> deleted = new ArrayList<>();
+        for (StreamMessage<byte[], byte[]> message : messages) {
+            if (message.getBody() == null || message.getBody().isEmpty()) {
+                deleted.add(message.getId());
+            }
+        }
+        if (!deleted.isEmpty()) {
+            await(commands.xack(key, raw(group), deleted.toArray(new String[0])), 0);
+        }
+        if (!messages.isEmpty()) {
+            log.warn("stream: {} group: {} consumer: {} claimed {} idle messages", stream, group, consumer, messages.size());
+        }
+        return toRecords(stream, messages);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<StreamRecord<T>> toRecords(String stream, List<StreamMessage<byte[], byte[]>> messages) {
+        if (messages == null || messages.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<StreamRecord<T>> records = new ArrayList<>(messages.size());
+        for (StreamMessage<byte[], byte[]> message : messages) {
+            byte[] payload = payload(message.getBody());
+            if (payload != null) {
+                records.add(new StreamRecord<>(stream, message.getId(), (T) redisValueSerializer.deserialize(payload)));
+            }
+        }
+        return records;
+    }
+
+    private static byte[] payload(Map<byte[], byte[]> body) {
+        if (body == null) {
+            return null;
+        }
+        for (Map.Entry<byte[], byte[]> entry : body.entrySet()) {
+            if (Arrays.equals(PAYLOAD_FIELD, entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 解析XPENDING明细：[[ID, 消费者, 空闲时间, 投递次数], ...]
+     * Lettuce的PendingParser只支持字符串编解码器，这里按字节数组编解码器解析
+     */
+    private static List<PendingMessage> parsePending(List<Object> entries) {
+        List<PendingMessage> pending = new ArrayList<>(entries.size());
+        for (Object entry : entries) {
+            List<?> fields = (List<?>) entry;
+            pending.add(new PendingMessage(string(fields.get(0)), string(fields.get(1)), (Long) fields.get(2), (Long) fields.get(3)));
+        }
+        return pending;
+    }
+
+    private static String string(Object value) {
+        return value instanceof byte[] ? new String((byte[]) value, StandardCharsets.UTF_8) : String.valueOf(value);
+    }
+
+    /**
+     * 消息ID的下一个ID，XPENDING分页时作为起始ID(Redis 6.2之前不支持开区间)
+     */
+    private static String nextId(String id) {
+        int separator = id.indexOf('-');
+        return id.substring(0, separator + 1) + (Long.parseLong(id.substring(separator + 1)) + 1);
+    }
+
+    private <R> R execute(Function<RedisClusterAsyncCommands<byte[], byte[]>, R> action) {
+        RedisConnection connection = lettuceConnectionFactory.getConnection();
+        try {
+            return action.apply(commands(connection));
+        } finally {
+            connection.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisClusterAsyncCommands<byte[], byte[]> commands(RedisConnection connection) {
+        return (RedisClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+    }
+
+    /**
+     * 等待命令结果，异常按RedisTemplate的规则转换为DataAccessException
+     *
+     * @param blockMillis 阻塞命令的等待时间，在命令超时时间之外额外等待
+     */
+    private <R> R await(RedisFuture<R> future, long blockMillis) {
+        try {
+            return future.get(lettuceConnectionFactory.getTimeout() + blockMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisSystemException("Interrupted while waiting for stream command", e);
+        } catch (ExecutionException e) {
+            throw translate(e.getCause());
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RedisSystemException("Stream command timed out", e);
+        }
+    }
+
+    private static DataAccessException translate(Throwable ex) {
+        if (ex instanceof Exception) {
+            DataAccessException translated = LettuceConverters.exceptionConverter().convert((Exception) ex);
+            if (translated != null) {
+                return translated;
+            }
+        }
+        return new RedisSystemException(ex.getMessage(), ex);
+    }
+
+    private byte[] rawKey(String stream) {
+        return redisKeyGenerator.rawKey(RedisTypeEnum.STREAM, stream);
+    }
+
+    private static byte[] raw(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
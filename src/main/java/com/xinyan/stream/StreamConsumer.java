@@ -0,0 +1,24 @@
+package com.xinyan.stream;
+
+import com.xinyan.common.PollingConsumer;
+
+import java.util.function.IntFunction;
+
+/**
+ * 消费组的消费者线程池，由RedisStreamService.consume创建
+ * 每个线程持有一个Poller(独占连接及消费者名称)，线程退出时关闭；获取连接失败时等待后重新创建
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+public class StreamConsumer extends PollingConsumer {
+
+    StreamConsumer(String stream, String group, int concurrency) {
+        super("stream-" + stream + "-" + group, concurrency);
+    }
+
+    @Override
+    protected void start(IntFunction<Poller> pollers) {
+        super.start(pollers);
+    }
+}
@@ -0,0 +1,34 @@
+package com.xinyan.stream;
+
+import lombok.Getter;
+
+/**
+ * 从消费组读取的消息，处理完成后调用RedisStreamService.ack确认，未确认的消息留在消费组的待确认列表(PEL)中，空闲超时后可被认领
+ *
+ * @author weimin_ruan
+ * @date 2019/6/20
+ */
+@Getter
+public class StreamRecord<T> {
+
+    /**
+     * 流名称
+     */
+    private final String stream;
+
+    /**
+     * 消息ID，由Redis生成，格式为毫秒时间戳-序号
+     */
+    private final String id;
+
+    /**
+     * 消息内容
+     */
+    private final T payload;
+
+    StreamRecord(String stream, String id, T payload) {
+        this.stream = stream;
+        this.id = id;
+        this.payload = payload;
+    }
+}
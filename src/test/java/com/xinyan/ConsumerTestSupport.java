@@ -0,0 +1,47 @@
+package com.xinyan;
+
+import com.xinyan.domain.Person;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * 队列与Stream消费者测试共用的数据和等待逻辑
+ */
+public final class ConsumerTestSupport {
+
+    private ConsumerTestSupport() {
+    }
+
+    /**
+     * id为0到count-1的Person
+     */
+    public static List<Person> persons(int count) {
+        List<Person> persons = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            persons.add(new Person(String.valueOf(i), "ruan", "weimin", i));
+        }
+        return persons;
+    }
+
+    /**
+     * 等待条件成立，最多等待timeoutSeconds秒
+     */
+    public static void await(BooleanSupplier condition, long timeoutSeconds) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    public static <M, T> List<T> payloads(List<M> messages, Function<M, T> payload) {
+        List<T> payloads = new ArrayList<>(messages.size());
+        for (M message : messages) {
+            payloads.add(payload.apply(message));
+        }
+        return payloads;
+    }
+}
@@ -0,0 +1,101 @@
+package com.xinyan.cache;
+
+import com.xinyan.common.RedisTypeEnum;
+import com.xinyan.service.RedisService;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "redis.near-cache.enabled=true")
+public class NearCacheTests {
+
+    @Autowired
+    RedisService redisService;
+
+    @Autowired
+    NearCache nearCache;
+
+    @Autowired
+    StringRedisTemplate stringRedisTemplate;
+
+    @Test
+    public void readThroughAndEvictOnWrite() {
+        redisService.set("near-cache-test", "v1");
+        Assert.assertEquals("v1", redisService.get("near-cache-test"));
+        String key = "default:spring-boot-redis-integration:string:near-cache-test";
+        Assert.assertEquals("v1", nearCache.get(key));
+
+        redisService.set("near-cache-test", "v2");
+        Assert.assertNull(nearCache.get(key));
+        Assert.assertEquals("v2", redisService.get("near-cache-test"));
+        redisService.delete(RedisTypeEnum.STRING, "near-cache-test");
+    }
+
+    @Test
+    public void entryExpiresWithRedisTtl() throws InterruptedException {
+        redisService.set("near-cache-ttl", "v1", 1);
+        Assert.assertEquals("v1", redisService.get("near-cache-ttl"));
+        String key = "default:spring-boot-redis-integration:string:near-cache-ttl";
+        Assert.assertEquals("v1", nearCache.get(key));
+
+        Thread.sleep(1100);
+        Assert.assertNull(nearCache.get(key));
+        Assert.assertNull(redisService.get("near-cache-ttl"));
+    }
+
+    @Test
+    public void expireEvictsLocalCopy() {
+        redisService.set("near-cache-expire", "v1");
+        Assert.assertEquals("v1", redisService.get("near-cache-expire"));
+        String key = "default:spring-boot-redis-integration:string:near-cache-expire";
+        Assert.assertEquals("v1", nearCache.get(key));
+
+        Assert.assertTrue(redisService.expire(RedisTypeEnum.STRING, "near-cache-expire", 1));
+        Assert.assertNull(nearCache.get(key));
+        Assert.assertEquals("v1", redisService.get("near-cache-expire"));
+        Assert.assertEquals("v1", nearCache.get(key));
+        redisService.delete(RedisTypeEnum.STRING, "near-cache-expire");
+    }
+
+    @Test
+    public void mgetServesNearCacheHits() {
+        redisService.set("near-cache-m1", "v1");
+        redisService.set("near-cache-m2", "v2", 60);
+        Assert.assertEquals("v1", redisService.get("near-cache-m1"));
+        String key1 = "default:spring-boot-redis-integration:string:near-cache-m1";
+        String key2 = "default:spring-boot-redis-integration:string:near-cache-m2";
+        Assert.assertNull(nearCache.get(key2));
+
+        // m1命中近端缓存，m2与不存在的key一次MGET后回填
+        Assert.assertEquals(Arrays.asList("v1", "v2", null), redisService.mget(Arrays.asList("near-cache-m1", "near-cache-m2", "near-cache-m3")));
+        Assert.assertEquals("v2", nearCache.get(key2));
+        // 绕过RedisService直接修改，近端缓存仍返回旧值，说明未访问Redis
+        stringRedisTemplate.delete(key1);
+        Assert.assertEquals(Arrays.asList("v1", "v2"), redisService.mget(Arrays.asList("near-cache-m1", "near-cache-m2")));
+        redisService.deleteAll(RedisTypeEnum.STRING, Arrays.asList("near-cache-m1", "near-cache-m2"));
+    }
+
+    @Test
+    public void remoteInvalidation() throws InterruptedException {
+        redisService.hset("near-cache-hash", "f1", "v1");
+        Assert.assertEquals("v1", redisService.hget("near-cache-hash", "f1"));
+        String key = "default:spring-boot-redis-integration:hash:near-cache-hash";
+        Assert.assertEquals("v1", nearCache.getField(key, "f1"));
+
+        // 模拟其他节点写入后发布的失效消息
+        stringRedisTemplate.convertAndSend(nearCache.getChannel(), "remote-node:" + key);
+        long deadline = System.currentTimeMillis() + 2000;
+        while (nearCache.getField(key, "f1") != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertNull(nearCache.getField(key, "f1"));
+        redisService.delete(RedisTypeEnum.HASH, "near-cache-hash");
+    }
+}
@@ -0,0 +1,124 @@
+package com.xinyan.cache;
+
+import com.xinyan.domain.Person;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"redis.cache.enabled=true", "redis.cache.ttls.person=60"})
+public class RedisCacheTests {
+
+    @Autowired
+    PersonLoader personLoader;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Test
+    public void cacheableUsesRedisService() {
+        cacheManager.getCache("person").clear();
+        PersonLoader.loads.set(0);
+        Assert.assertEquals("p-1", personLoader.load("1").getId());
+        Assert.assertEquals("p-1", personLoader.load("1").getId());
+        Assert.assertEquals(1, PersonLoader.loads.get());
+        Assert.assertEquals(60, ((RedisServiceCache) cacheManager.getCache("person")).getTtl());
+        cacheManager.getCache("person").clear();
+        Assert.assertNull(cacheManager.getCache("person").get("1"));
+    }
+
+    @Test
+    public void syncCacheableLoadsOnce() throws Exception {
+        cacheManager.getCache("person").clear();
+        PersonLoader.loads.set(0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Person>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> personLoader.loadSync("sync")));
+        }
+        for (Future<Person> future : futures) {
+            Assert.assertEquals("p-sync", future.get(5, TimeUnit.SECONDS).getId());
+        }
+        executor.shutdown();
+        Assert.assertEquals(1, PersonLoader.loads.get());
+        cacheManager.getCache("person").clear();
+    }
+
+    @Test
+    public void batchCacheableLoadsOnlyMisses() {
+        cacheManager.getCache("person").clear();
+        PersonLoader.batchIds.clear();
+        Map<String, Person> first = personLoader.loadAll(Arrays.asList("1", "2"));
+        Assert.assertEquals(2, first.size());
+        Map<String, Person> second = personLoader.loadAll(Arrays.asList("2", "3", "1"));
+        Assert.assertEquals(Arrays.asList("2", "3", "1"), new ArrayList<>(second.keySet()));
+        Assert.assertEquals("p-3", second.get("3").getId());
+        Assert.assertEquals(Arrays.asList(Arrays.asList("1", "2"), Arrays.asList("3")), PersonLoader.batchIds);
+        cacheManager.getCache("person").clear();
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        PersonLoader personLoader() {
+            return new PersonLoader();
+        }
+    }
+
+    /**
+     * 代理为CGLIB子类，计数放在静态字段
+     */
+    static class PersonLoader {
+
+        static final AtomicInteger loads = new AtomicInteger();
+
+        static final List<List<String>> batchIds = new ArrayList<>();
+
+        @Cacheable(cacheNames = "person")
+        public Person load(String id) {
+            loads.incrementAndGet();
+            return new Person("p-" + id, "ruan", "weimin", 18);
+        }
+
+        @Cacheable(cacheNames = "person", sync = true)
+        public Person loadSync(String id) {
+            loads.incrementAndGet();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new Person("p-" + id, "ruan", "weimin", 18);
+        }
+
+        @BatchCacheable(cacheName = "person")
+        public Map<String, Person> loadAll(Collection<String> ids) {
+            batchIds.add(new ArrayList<>(ids));
+            Map<String, Person> persons = new HashMap<>();
+            for (String id : ids) {
+                persons.put(id, new Person("p-" + id, "ruan", "weimin", 18));
+            }
+            return persons;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.xinyan.queue;
+
+import com.xinyan.ConsumerTestSupport;
+import com.xinyan.domain.Person;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.xinyan.ConsumerTestSupport.await;
+import static com.xinyan.ConsumerTestSupport.persons;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class RedisWorkQueueTests {
+
+    @Autowired
+    RedisWorkQueue workQueue;
+
+    @Test
+    public void batchDequeueAckAndRedeliver() throws Exception {
+        workQueue.clear("test-redeliver");
+        workQueue.enqueue("test-redeliver", Arrays.asList("a", "b", "c", "a", "e"));
+        List<QueueMessage<String>> messages = workQueue.dequeue("test-redeliver", 3, 200);
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), payloads(messages));
+        Assert.assertEquals(2, workQueue.ack(messages.subList(0, 2)));
+        Assert.assertEquals(2, workQueue.size("test-redeliver"));
+
+        Thread.sleep(300);
+        workQueue.reapAll();
+        // 未确认的c重新投递，优先于队列中原有的消息
+        List<QueueMessage<String>> redelivered = workQueue.dequeue("test-redeliver", 10, 1000, 1);
+        Assert.assertEquals(Arrays.asList("c", "a", "e"), payloads(redelivered));
+        // 原消费者的迟到确认同样有效
+        Assert.assertEquals(1, workQueue.ack(messages.subList(2, 3)));
+        Assert.assertEquals(2, workQueue.ack(redelivered));
+        Assert.assertTrue(workQueue.dequeue("test-redeliver", 10, 1000).isEmpty());
+    }
+
+    @Test
+    public void consumerPoolProcessesAll() throws Exception {
+        workQueue.clear("test-pool");
+        Set<String> handled = ConcurrentHashMap.newKeySet();
+        try (QueueConsumer consumer = workQueue.consume("test-pool", 4, 10, (Person person) -> handled.add(person.getId()))) {
+            workQueue.enqueue("test-pool", persons(200));
+            await(() -> handled.size() == 200, 10);
+        }
+        Assert.assertEquals(200, handled.size());
+        Assert.assertEquals(0, workQueue.size("test-pool"));
+    }
+
+    private static <T> List<T> payloads(List<QueueMessage<T>> messages) {
+        return ConsumerTestSupport.payloads(messages, QueueMessage::getPayload);
+    }
+}
@@ -0,0 +1,66 @@
+package com.xinyan.serializer;
+
+import com.xinyan.common.CompressionAlgorithmEnum;
+import com.xinyan.common.SerializerModeEnum;
+import com.xinyan.config.RedisConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.Base64;
+import java.util.Random;
+
+public class CompressingRedisSerializerTests {
+
+    private final RedisSerializer<Object> json = RedisConfig.createValueSerializer(SerializerModeEnum.JSON);
+
+    @Test
+    public void compressAboveThreshold() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RedisSerializer<Object> lz4 = new CompressingRedisSerializer(json, CompressionAlgorithmEnum.LZ4, 1024, registry);
+        RedisSerializer<Object> deflate = new CompressingRedisSerializer(json, CompressionAlgorithmEnum.DEFLATE, 1024, registry);
+
+        String large = StringUtils.repeat("spring-boot-redis-integration", 200);
+        byte[] lz4Bytes = lz4.serialize(large);
+        byte[] deflateBytes = deflate.serialize(large);
+        Assert.assertEquals(CompressionAlgorithmEnum.LZ4.getMarker(), lz4Bytes[0]);
+        Assert.assertEquals(CompressionAlgorithmEnum.DEFLATE.getMarker(), deflateBytes[0]);
+        Assert.assertTrue(lz4Bytes.length < json.serialize(large).length);
+        // 两种算法的数据可互相读取，未压缩的数据原样读取
+        Assert.assertEquals(large, deflate.deserialize(lz4Bytes));
+        Assert.assertEquals(large, lz4.deserialize(deflateBytes));
+        Assert.assertEquals(large, lz4.deserialize(json.serialize(large)));
+
+        byte[] small = lz4.serialize("small");
+        Assert.assertArrayEquals(json.serialize("small"), small);
+        Assert.assertEquals("small", lz4.deserialize(small));
+        Assert.assertEquals(2, registry.get("redis.compression.ratio").summaries().size());
+    }
+
+    @Test
+    public void readsCompressedAfterCompressionDisabled() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RedisSerializer<Object> enabled = new CompressingRedisSerializer(json, CompressionAlgorithmEnum.LZ4, 1024, true, registry);
+        RedisSerializer<Object> disabled = new CompressingRedisSerializer(json, CompressionAlgorithmEnum.LZ4, 1024, false, registry);
+
+        String large = StringUtils.repeat("spring-boot-redis-integration", 200);
+        byte[] compressed = enabled.serialize(large);
+        Assert.assertEquals(CompressionAlgorithmEnum.LZ4.getMarker(), compressed[0]);
+        Assert.assertEquals(large, disabled.deserialize(compressed));
+        Assert.assertArrayEquals(json.serialize(large), disabled.serialize(large));
+    }
+
+    @Test
+    public void ratioRecordedOnlyWhenStored() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RedisSerializer<Object> lz4 = new CompressingRedisSerializer(json, CompressionAlgorithmEnum.LZ4, 16, registry);
+        // 随机数据不可压缩，原样存储
+        byte[] random = new byte[4096];
+        new Random(1).nextBytes(random);
+        String incompressible = Base64.getEncoder().encodeToString(random);
+        Assert.assertArrayEquals(json.serialize(incompressible), lz4.serialize(incompressible));
+        Assert.assertEquals(0, registry.get("redis.compression.ratio").summary().count());
+    }
+}
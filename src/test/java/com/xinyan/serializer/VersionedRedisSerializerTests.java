@@ -0,0 +1,48 @@
+package com.xinyan.serializer;
+
+import com.xinyan.common.SerializerModeEnum;
+import com.xinyan.config.RedisConfig;
+import com.xinyan.domain.Person;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class VersionedRedisSerializerTests {
+
+    private final RedisSerializer<Object> json = RedisConfig.createValueSerializer(SerializerModeEnum.JSON);
+
+    private final RedisSerializer<Object> smile = RedisConfig.createValueSerializer(SerializerModeEnum.SMILE);
+
+    @Test
+    public void smileRoundTrip() {
+        Person person = new Person("1", "ruan", "weimin", 24);
+        byte[] bytes = smile.serialize(person);
+        Assert.assertEquals(VersionedRedisSerializer.MAGIC, bytes[0]);
+        Assert.assertEquals(person, smile.deserialize(bytes));
+        Assert.assertTrue(bytes.length < json.serialize(person).length);
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("name", "weimin");
+        map.put("age", 24);
+        map.put("person", person);
+        Assert.assertEquals(map, smile.deserialize(smile.serialize(map)));
+
+        // 未注册类型写入类名
+        TreeMap<String, String> treeMap = new TreeMap<>();
+        treeMap.put("k", "v");
+        Assert.assertEquals(treeMap, smile.deserialize(smile.serialize(treeMap)));
+        Assert.assertNull(smile.deserialize(smile.serialize(null)));
+    }
+
+    @Test
+    public void readBothFormats() {
+        Person person = new Person("1", "ruan", "weimin", 24);
+        Assert.assertEquals(person, smile.deserialize(json.serialize(person)));
+        Assert.assertEquals(person, json.deserialize(smile.serialize(person)));
+        Assert.assertEquals("world!", smile.deserialize(json.serialize("world!")));
+    }
+}
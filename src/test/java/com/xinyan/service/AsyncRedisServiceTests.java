@@ -0,0 +1,75 @@
+package com.xinyan.service;
+
+import com.xinyan.common.RedisTypeEnum;
+import com.xinyan.domain.Person;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class AsyncRedisServiceTests {
+
+    @Autowired
+    AsyncRedisService asyncRedisService;
+
+    @Autowired
+    RedisService redisService;
+
+    @Test
+    public void fanOutSharesKeysAndSerializationWithRedisService() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            redisService.set("async-string-" + i, "value-" + i);
+            keys.add("async-string-" + i);
+        }
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (String key : keys) {
+            futures.add(asyncRedisService.get(key));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals("value-" + i, futures.get(i).join());
+        }
+        Assert.assertEquals(Arrays.asList("value-1", null), asyncRedisService.mget(Arrays.asList("async-string-1", "async-missing")).join());
+
+        Assert.assertTrue(asyncRedisService.setObject("async-person", new Person("1", "ruan", "weimin", 18), 60).join());
+        Person person = redisService.getObjectByKey("async-person");
+        Assert.assertEquals(18, person.getAge());
+        Assert.assertTrue(asyncRedisService.getExpireTime(RedisTypeEnum.STRING, "async-person").join() > 0);
+
+        Map<String, String> fields = new HashMap<>();
+        fields.put("name", "weimin");
+        fields.put("city", "hangzhou");
+        Assert.assertTrue(asyncRedisService.hmset("async-hash", fields).join());
+        Assert.assertEquals("weimin", redisService.hget("async-hash", "name"));
+        Assert.assertEquals(fields, asyncRedisService.<String>hgetAll("async-hash").join());
+
+        keys.add("async-person");
+        Assert.assertEquals(Long.valueOf(11), asyncRedisService.deleteAll(RedisTypeEnum.STRING, keys).join());
+        Assert.assertEquals(Long.valueOf(1), asyncRedisService.delete(RedisTypeEnum.HASH, "async-hash").join());
+        Assert.assertEquals(Long.valueOf(0), asyncRedisService.deleteAll(RedisTypeEnum.STRING, Collections.emptyList()).join());
+    }
+
+    @Test
+    public void typedListSharedWithRedisService() {
+        List<Person> persons = Arrays.asList(new Person("a-0", "ruan", "weimin", 18), new Person("a-1", "ruan", "weimin", 19));
+        Assert.assertEquals(Long.valueOf(2), asyncRedisService.rPushAll("async-list", persons).join());
+        Assert.assertEquals(Long.valueOf(2), redisService.lLenTyped("async-list"));
+        Assert.assertEquals("a-1", asyncRedisService.<Person>lRange("async-list", 0, -1).join().get(1).getId());
+        Assert.assertEquals("a-0", asyncRedisService.<Person>lPopTyped("async-list").join().getId());
+        Assert.assertEquals("a-1", redisService.<Person>lPopTyped("async-list").getId());
+        Assert.assertEquals(Long.valueOf(0), asyncRedisService.lLenTyped("async-list").join());
+    }
+}
@@ -0,0 +1,68 @@
+package com.xinyan.service;
+
+import com.xinyan.common.RedisTypeEnum;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "redis.get-coalescer.enabled=true")
+public class MultiGetCoalescerTests {
+
+    @Autowired
+    RedisService redisService;
+
+    @Test
+    public void concurrentGets() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            keys.add("coalescer-test-" + i);
+            redisService.set("coalescer-test-" + i, "value-" + i);
+        }
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int round = 0; round < 4; round++) {
+            for (int i = 0; i < 50; i++) {
+                String key = "coalescer-test-" + i;
+                futures.add(CompletableFuture.supplyAsync(() -> redisService.get(key)));
+            }
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            Assert.assertEquals("value-" + (i % 50), futures.get(i).join());
+        }
+        Assert.assertNull(redisService.get("coalescer-test-missing"));
+        redisService.deleteAll(RedisTypeEnum.STRING, keys);
+    }
+
+    @Test
+    public void readsOwnWrites() {
+        redisService.set("coalescer-rw", "value-0");
+        // 其他线程持续读取同一key，使写入后的读取有机会遇到已发出的批次
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<CompletableFuture<Void>> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            readers.add(CompletableFuture.runAsync(() -> {
+                while (running.get()) {
+                    redisService.get("coalescer-rw");
+                }
+            }));
+        }
+        try {
+            for (int i = 1; i <= 500; i++) {
+                redisService.set("coalescer-rw", "value-" + i);
+                Assert.assertEquals("value-" + i, redisService.get("coalescer-rw"));
+            }
+        } finally {
+            running.set(false);
+            readers.forEach(CompletableFuture::join);
+        }
+        redisService.delete(RedisTypeEnum.STRING, "coalescer-rw");
+    }
+}
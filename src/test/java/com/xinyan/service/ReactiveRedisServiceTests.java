@@ -0,0 +1,60 @@
+package com.xinyan.service;
+
+import com.xinyan.common.RedisTypeEnum;
+import com.xinyan.domain.Person;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ReactiveRedisServiceTests {
+
+    @Autowired
+    ReactiveRedisService reactiveRedisService;
+
+    @Autowired
+    RedisService redisService;
+
+    @Test
+    public void sharesKeysAndSerializationWithRedisService() {
+        Assert.assertTrue(reactiveRedisService.setObject("reactive-person", new Person("1", "ruan", "weimin", 18), 60).block());
+        Person person = redisService.getObjectByKey("reactive-person");
+        Assert.assertEquals(18, person.getAge());
+
+        redisService.set("reactive-string", "hello");
+        Assert.assertEquals("hello", reactiveRedisService.get("reactive-string").block());
+        Assert.assertTrue(reactiveRedisService.getExpireTime(RedisTypeEnum.STRING, "reactive-person").block() > 0);
+
+        Map<String, String> fields = new HashMap<>();
+        fields.put("name", "weimin");
+        fields.put("city", "hangzhou");
+        reactiveRedisService.hmset("reactive-hash", fields).block();
+        Assert.assertEquals("weimin", redisService.hget("reactive-hash", "name"));
+        Map<String, String> entries = reactiveRedisService.<String>hgetAll("reactive-hash").block();
+        Assert.assertEquals(fields, entries);
+
+        List<String> keys = Arrays.asList("reactive-person", "reactive-string");
+        Assert.assertEquals(Long.valueOf(2), reactiveRedisService.deleteAll(RedisTypeEnum.STRING, keys).block());
+        Assert.assertEquals(Long.valueOf(1), reactiveRedisService.delete(RedisTypeEnum.HASH, "reactive-hash").block());
+    }
+
+    @Test
+    public void typedListSharedWithRedisService() {
+        List<Person> persons = Arrays.asList(new Person("r-0", "ruan", "weimin", 18), new Person("r-1", "ruan", "weimin", 19));
+        Assert.assertEquals(Long.valueOf(2), reactiveRedisService.rPushAll("reactive-list", persons).block());
+        Assert.assertEquals(Long.valueOf(2), redisService.lLenTyped("reactive-list"));
+        Assert.assertEquals("r-1", reactiveRedisService.<Person>lRange("reactive-list", -1, -1).blockFirst().getId());
+        Assert.assertEquals("r-0", reactiveRedisService.<Person>lPopTyped("reactive-list").block().getId());
+        Assert.assertEquals("r-1", redisService.<Person>lPopTyped("reactive-list").getId());
+        Assert.assertEquals(Long.valueOf(0), reactiveRedisService.lLenTyped("reactive-list").block());
+    }
+}
@@ -0,0 +1,171 @@
+package com.xinyan.service;
+
+import com.xinyan.common.LoadOptions;
+import com.xinyan.common.RedisTypeEnum;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"redis.lock.wait-mode=PUBSUB", "redis.lock.watchdog.enabled=true", "redis.lock.local-first=true",
+        "redis.load.lock-lease-millis=300"})
+public class RedisDistributedLockTests {
+
+    @Autowired
+    RedisDistributedLock distributedLock;
+
+    @Autowired
+    StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    RedisService redisService;
+
+    @Autowired
+    RedisKeyGenerator redisKeyGenerator;
+
+    @Test
+    public void waiterWakesOnRelease() throws Exception {
+        String token = distributedLock.tryLock("LOCK_KEY_PUBSUB", 10000);
+        Assert.assertNotNull(token);
+        long[] acquiredAt = new long[1];
+        CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> {
+            String waiterToken = distributedLock.tryLock("LOCK_KEY_PUBSUB", 10000, 5000);
+            acquiredAt[0] = System.nanoTime();
+            return waiterToken != null && distributedLock.releaseLock("LOCK_KEY_PUBSUB", waiterToken);
+        });
+        Thread.sleep(300);
+        long releasedAt = System.nanoTime();
+        Assert.assertTrue(distributedLock.releaseLock("LOCK_KEY_PUBSUB", token));
+        Assert.assertTrue(waiter.get(5, TimeUnit.SECONDS));
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(acquiredAt[0] - releasedAt) < 50);
+    }
+
+    @Test
+    public void getOrLoadRenewsLoadLock() throws Exception {
+        redisService.delete(RedisTypeEnum.STRING, "load-slow");
+        LoadOptions options = LoadOptions.of(60);
+        options.setLockTimeout(1000);
+        // 加载耗时超过加载锁有效期(300ms)，看门狗续期期间其他节点无法获得锁
+        CompletableFuture<String> loading = CompletableFuture.supplyAsync(() -> redisService.getOrLoad("load-slow", () -> {
+            sleep(1000);
+            return "loaded";
+        }, options));
+        Thread.sleep(700);
+        String lockKey = redisKeyGenerator.getKey(RedisTypeEnum.STRING, "load-slow") + ":loading";
+        Assert.assertNotNull(stringRedisTemplate.opsForValue().get(lockKey));
+        Assert.assertEquals("loaded", loading.get(5, TimeUnit.SECONDS));
+        Assert.assertNull(stringRedisTemplate.opsForValue().get(lockKey));
+
+        options.setLockTimeout(60001);
+        try {
+            redisService.getOrLoad("load-slow", () -> "loaded", options);
+            Assert.fail("expected lockTimeout to be rejected");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("lockTimeout"));
+        }
+        redisService.delete(RedisTypeEnum.STRING, "load-slow");
+    }
+
+    @Test
+    public void mutualExclusionUnderContention() throws Exception {
+        long setCalls = setCommandCalls();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger holders = new AtomicInteger();
+        AtomicInteger acquired = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                String token = distributedLock.tryLock("LOCK_KEY_CONTENDED", 10000, 30000);
+                Assert.assertNotNull(token);
+                Assert.assertEquals(1, holders.incrementAndGet());
+                acquired.incrementAndGet();
+                holders.decrementAndGet();
+                Assert.assertTrue(distributedLock.releaseLock("LOCK_KEY_CONTENDED", token));
+            }, executor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+        Assert.assertEquals(40, acquired.get());
+        // 本地锁保证同一时刻只有一个线程访问Redis，每次获取只需一次SET NX
+        Assert.assertTrue(setCommandCalls() - setCalls <= 45);
+    }
+
+    @Test
+    public void subSecondLease() throws Exception {
+        String token = distributedLock.tryLock("LOCK_KEY_SHORT", 300);
+        Assert.assertNotNull(token);
+        Long pttl = stringRedisTemplate.getExpire("LOCK_KEY_SHORT", TimeUnit.MILLISECONDS);
+        Assert.assertTrue(pttl > 0 && pttl <= 300);
+        Thread.sleep(500);
+        Assert.assertNull(stringRedisTemplate.opsForValue().get("LOCK_KEY_SHORT"));
+    }
+
+    @Test
+    public void watchdogRenewsUntilReleaseOrOwnerDies() throws Exception {
+        String token = distributedLock.tryLockWithWatchdog("LOCK_KEY_WATCHDOG", 300);
+        Assert.assertNotNull(token);
+        Thread.sleep(1000);
+        Assert.assertEquals(token, distributedLock.get("LOCK_KEY_WATCHDOG"));
+        Assert.assertTrue(distributedLock.releaseLock("LOCK_KEY_WATCHDOG", token));
+
+        Thread owner = new Thread(() -> Assert.assertNotNull(distributedLock.tryLockWithWatchdog("LOCK_KEY_WATCHDOG", 300)));
+        owner.start();
+        owner.join();
+        Thread.sleep(800);
+        Assert.assertNull(stringRedisTemplate.opsForValue().get("LOCK_KEY_WATCHDOG"));
+    }
+
+    @Test
+    public void reentrantOnSameThread() {
+        String token = distributedLock.tryLock("LOCK_KEY_REENTRANT", 10000);
+        Assert.assertNotNull(token);
+        Assert.assertEquals(token, distributedLock.tryLock("LOCK_KEY_REENTRANT", 10000, 1000));
+        Assert.assertTrue(distributedLock.releaseLock("LOCK_KEY_REENTRANT", token));
+        Assert.assertEquals(token, distributedLock.get("LOCK_KEY_REENTRANT"));
+        Assert.assertTrue(distributedLock.releaseLock("LOCK_KEY_REENTRANT", token));
+        Assert.assertNull(stringRedisTemplate.opsForValue().get("LOCK_KEY_REENTRANT"));
+    }
+
+    @Test
+    public void lockAllIsAllOrNothing() {
+        List<String> keys = Arrays.asList("LOCK_KEY_ALL_1", "LOCK_KEY_ALL_2", "LOCK_KEY_ALL_3");
+        String token = distributedLock.tryLockAll(keys, 10000);
+        Assert.assertNotNull(token);
+        Assert.assertNull(distributedLock.tryLock("LOCK_KEY_ALL_2", 10000));
+        // 与已持有的锁有交集时整体失败，不会留下部分锁
+        Assert.assertNull(distributedLock.tryLockAll(Arrays.asList("LOCK_KEY_ALL_0", "LOCK_KEY_ALL_3"), 10000, 200));
+        Assert.assertNull(stringRedisTemplate.opsForValue().get("LOCK_KEY_ALL_0"));
+        Assert.assertTrue(distributedLock.releaseAll(keys, token));
+        Assert.assertEquals(0L, (long) stringRedisTemplate.countExistingKeys(keys));
+        Assert.assertFalse(distributedLock.releaseAll(keys, token));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long setCommandCalls() {
+        Properties stats = stringRedisTemplate.execute((RedisCallback<Properties>) connection -> connection.info("commandstats"));
+        String setStats = stats.getProperty("cmdstat_set");
+        return setStats == null ? 0 : Long.parseLong(setStats.split(",")[0].substring("calls=".length()));
+    }
+}
@@ -0,0 +1,74 @@
+package com.xinyan.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class RedisFairLockTests {
+
+    @Autowired
+    RedisFairLock fairLock;
+
+    @Autowired
+    StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    public void grantsInArrivalOrder() throws Exception {
+        String token = fairLock.tryLock("FAIR_LOCK_KEY", 10000);
+        Assert.assertNotNull(token);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int arrival = i;
+            futures.add(CompletableFuture.runAsync(() -> {
+                String waiterToken = fairLock.tryLock("FAIR_LOCK_KEY", 10000, 10000);
+                Assert.assertNotNull(waiterToken);
+                order.add(arrival);
+                Assert.assertTrue(fairLock.releaseLock("FAIR_LOCK_KEY", waiterToken));
+            }, executor));
+            Thread.sleep(50);
+        }
+        // 有等待者排队时单次尝试不能插队
+        Assert.assertNull(fairLock.tryLock("FAIR_LOCK_KEY", 10000));
+        Assert.assertTrue(fairLock.releaseLock("FAIR_LOCK_KEY", token));
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4), order);
+        Assert.assertFalse(stringRedisTemplate.hasKey("{FAIR_LOCK_KEY}:queue"));
+
+        Timer timer = meterRegistry.find("redis.lock.fair.wait").tag("result", "acquired").timer();
+        Assert.assertNotNull(timer);
+        Assert.assertTrue(timer.count() >= 5);
+    }
+
+    @Test
+    public void timedOutWaiterLeavesQueue() throws Exception {
+        String token = fairLock.tryLock("FAIR_LOCK_TIMEOUT", 10000);
+        Assert.assertNotNull(token);
+        Assert.assertNull(fairLock.tryLock("FAIR_LOCK_TIMEOUT", 10000, 200));
+        Assert.assertFalse(stringRedisTemplate.hasKey("{FAIR_LOCK_TIMEOUT}:queue"));
+        Assert.assertTrue(fairLock.releaseLock("FAIR_LOCK_TIMEOUT", token));
+        Assert.assertNotNull(fairLock.tryLock("FAIR_LOCK_TIMEOUT", 1000));
+    }
+}
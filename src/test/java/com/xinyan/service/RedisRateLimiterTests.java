@@ -0,0 +1,89 @@
+package com.xinyan.service;
+
+import com.xinyan.common.RedisTypeEnum;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class RedisRateLimiterTests {
+
+    @Autowired
+    RedisRateLimiter rateLimiter;
+
+    @Autowired
+    RedisService redisService;
+
+    @Test
+    public void slidingWindowAllowsLimit() {
+        redisService.delete(RedisTypeEnum.HASH, "rateLimiter:slidingWindow:test-window");
+        rateLimiter.clearLocal();
+        int allowed = 0;
+        for (int i = 0; i < 15; i++) {
+            if (rateLimiter.tryAcquireSlidingWindow("test-window", 10, 60000)) {
+                allowed++;
+            }
+        }
+        Assert.assertEquals(10, allowed);
+        redisService.delete(RedisTypeEnum.HASH, "rateLimiter:slidingWindow:test-window");
+    }
+
+    @Test
+    public void tokenBucketReservesLocally() {
+        redisService.delete(RedisTypeEnum.HASH, "rateLimiter:tokenBucket:test-bucket");
+        rateLimiter.clearLocal();
+        int allowed = 0;
+        for (int i = 0; i < 300; i++) {
+            if (rateLimiter.tryAcquireTokenBucket("test-bucket", 200, 0.1)) {
+                allowed++;
+            }
+        }
+        Assert.assertEquals(200, allowed);
+        // 本地预留已用完，Redis中也没有剩余令牌
+        rateLimiter.clearLocal();
+        Assert.assertFalse(rateLimiter.tryAcquireTokenBucket("test-bucket", 200, 0.1));
+        redisService.delete(RedisTypeEnum.HASH, "rateLimiter:tokenBucket:test-bucket");
+    }
+
+    @Test
+    public void concurrentRefillsKeepReservedPermits() throws InterruptedException {
+        redisService.delete(RedisTypeEnum.HASH, "rateLimiter:tokenBucket:test-concurrent");
+        rateLimiter.clearLocal();
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger allowed = new AtomicInteger();
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 60; i++) {
+                    if (rateLimiter.tryAcquireTokenBucket("test-concurrent", 1000, 0.1)) {
+                        allowed.incrementAndGet();
+                    }
+                    LockSupport.parkNanos(500000);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        // 960次请求、1000个令牌：并发补充不应丢弃已从Redis取得的许可，只允许结束时未用完的预留造成少量损失
+        Assert.assertTrue("allowed: " + allowed.get(), allowed.get() >= 900);
+        redisService.delete(RedisTypeEnum.HASH, "rateLimiter:tokenBucket:test-concurrent");
+    }
+}
@@ -0,0 +1,60 @@
+package com.xinyan.service;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class RedisReadWriteLockTests {
+
+    @Autowired
+    RedisReadWriteLock readWriteLock;
+
+    @Autowired
+    RedisSemaphore semaphore;
+
+    @Test
+    public void readersShareWriterExcludes() {
+        String reader1 = readWriteLock.tryReadLock("RW_LOCK_KEY", 10000);
+        String reader2 = readWriteLock.tryReadLock("RW_LOCK_KEY", 10000);
+        Assert.assertNotNull(reader1);
+        Assert.assertNotNull(reader2);
+        // 写锁等待期间不再接受新的读锁
+        Assert.assertNull(readWriteLock.tryWriteLock("RW_LOCK_KEY", 10000));
+        Assert.assertNull(readWriteLock.tryReadLock("RW_LOCK_KEY", 10000));
+        Assert.assertFalse(readWriteLock.releaseWriteLock("RW_LOCK_KEY", reader1));
+        Assert.assertTrue(readWriteLock.releaseReadLock("RW_LOCK_KEY", reader1));
+        Assert.assertTrue(readWriteLock.releaseReadLock("RW_LOCK_KEY", reader2));
+        Assert.assertFalse(readWriteLock.releaseReadLock("RW_LOCK_KEY", reader2));
+
+        String writer = readWriteLock.tryWriteLock("RW_LOCK_KEY", 10000, 1000);
+        Assert.assertNotNull(writer);
+        Assert.assertNull(readWriteLock.tryReadLock("RW_LOCK_KEY", 10000));
+        Assert.assertNull(readWriteLock.tryWriteLock("RW_LOCK_KEY", 10000));
+        Assert.assertTrue(readWriteLock.releaseWriteLock("RW_LOCK_KEY", writer));
+        String reader3 = readWriteLock.tryReadLock("RW_LOCK_KEY", 10000);
+        Assert.assertNotNull(reader3);
+        Assert.assertTrue(readWriteLock.releaseReadLock("RW_LOCK_KEY", reader3));
+    }
+
+    @Test
+    public void semaphoreLimitsPermits() throws Exception {
+        String first = semaphore.tryAcquire("SEMAPHORE_KEY", 2, 10000);
+        String second = semaphore.tryAcquire("SEMAPHORE_KEY", 2, 300);
+        Assert.assertNotNull(first);
+        Assert.assertNotNull(second);
+        Assert.assertNull(semaphore.tryAcquire("SEMAPHORE_KEY", 2, 10000));
+        Assert.assertEquals(0, semaphore.availablePermits("SEMAPHORE_KEY", 2));
+        // 第二个许可过期后自动回收
+        String third = semaphore.tryAcquire("SEMAPHORE_KEY", 2, 10000, 1000);
+        Assert.assertNotNull(third);
+        Assert.assertFalse(semaphore.release("SEMAPHORE_KEY", second));
+        Assert.assertTrue(semaphore.release("SEMAPHORE_KEY", first));
+        Assert.assertTrue(semaphore.release("SEMAPHORE_KEY", third));
+        Assert.assertEquals(2, semaphore.availablePermits("SEMAPHORE_KEY", 2));
+    }
+}
@@ -0,0 +1,298 @@
+package com.xinyan.service;
+
+import com.xinyan.common.LoadOptions;
+import com.xinyan.common.PurgeResult;
+import com.xinyan.common.RedisEntry;
+import com.xinyan.common.RedisTypeEnum;
+import com.xinyan.domain.Person;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "redis.bulk.chunk-size=7")
+public class RedisServiceTests {
+
+    @Autowired
+    RedisService redisService;
+
+    @Autowired
+    StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    RedisKeyGenerator redisKeyGenerator;
+
+    @Autowired
+    RedisDistributedLock redisDistributedLock;
+
+    @Test
+    public void getOrLoadSingleFlight() throws Exception {
+        redisService.delete(RedisTypeEnum.STRING, "load-person");
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<CompletableFuture<Person>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> redisService.getOrLoad("load-person", () -> {
+                loads.incrementAndGet();
+                sleep(200);
+                return new Person("1", "ruan", "weimin", 18);
+            }, 60), executor));
+        }
+        for (CompletableFuture<Person> future : futures) {
+            Assert.assertEquals(18, future.get(5, TimeUnit.SECONDS).getAge());
+        }
+        executor.shutdown();
+        Assert.assertEquals(1, loads.get());
+        redisService.delete(RedisTypeEnum.STRING, "load-person");
+    }
+
+    @Test
+    public void getOrLoadServesStaleWhileRefreshing() {
+        redisService.delete(RedisTypeEnum.STRING, "load-stale");
+        LoadOptions options = LoadOptions.of(1);
+        options.setStaleTimeout(10);
+        options.setLockTimeout(1000);
+        AtomicInteger version = new AtomicInteger();
+        Assert.assertEquals(Integer.valueOf(1), redisService.getOrLoad("load-stale", version::incrementAndGet, options));
+        sleep(1100);
+        long start = System.currentTimeMillis();
+        Integer stale = redisService.getOrLoad("load-stale", () -> {
+            sleep(300);
+            return version.incrementAndGet();
+        }, options);
+        Assert.assertEquals(Integer.valueOf(1), stale);
+        Assert.assertTrue(System.currentTimeMillis() - start < 200);
+        sleep(600);
+        Assert.assertEquals(Integer.valueOf(2), redisService.getOrLoad("load-stale", version::incrementAndGet, options));
+        redisService.delete(RedisTypeEnum.STRING, "load-stale");
+    }
+
+    @Test
+    public void getOrLoadNeverLoadsWithoutLock() throws Exception {
+        // key中的值不是getOrLoad写入的，视为未命中
+        redisService.set("load-locked", "plain");
+        LoadOptions options = LoadOptions.of(60);
+        options.setLockTimeout(300);
+        String lockKey = redisKeyGenerator.getKey(RedisTypeEnum.STRING, "load-locked") + ":loading";
+        String token = redisDistributedLock.tryLock(lockKey, 5000);
+        Assert.assertNotNull(token);
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<Integer> future = CompletableFuture.supplyAsync(() -> redisService.getOrLoad("load-locked", loads::incrementAndGet, options));
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail("expected timeout while the loading lock is held");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof QueryTimeoutException);
+        }
+        Assert.assertEquals(0, loads.get());
+
+        redisDistributedLock.releaseLock(lockKey, token);
+        Assert.assertEquals(Integer.valueOf(1), redisService.getOrLoad("load-locked", loads::incrementAndGet, options));
+        redisService.delete(RedisTypeEnum.STRING, "load-locked");
+    }
+
+    @Test
+    public void scanStreams() {
+        Map<String, Integer> fields = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            fields.put("field-" + i, i);
+            redisService.addSet("scan-set", "member-" + i);
+        }
+        redisService.hmset("scan-hash", fields);
+        for (int i = 0; i < 30; i++) {
+            redisService.set("scan-key:" + i, "v");
+        }
+        try (Stream<Map.Entry<String, Integer>> entries = redisService.hscan("scan-hash", 100)) {
+            Assert.assertEquals(fields, entries.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a)));
+        }
+        try (Stream<String> members = redisService.sscan("scan-set", 100)) {
+            Assert.assertEquals(1000, members.distinct().count());
+        }
+        List<String> keys;
+        try (Stream<String> scanned = redisService.scan(RedisTypeEnum.STRING, "scan-key:*", 10)) {
+            keys = scanned.distinct().collect(Collectors.toList());
+        }
+        Assert.assertEquals(30, keys.size());
+        Assert.assertTrue(keys.contains("scan-key:7"));
+        redisService.deleteAll(RedisTypeEnum.STRING, keys);
+        redisService.delete(RedisTypeEnum.HASH, "scan-hash");
+        redisService.delete(RedisTypeEnum.SET, "scan-set");
+    }
+
+    @Test
+    public void purgeByPattern() {
+        List<RedisEntry<String>> entries = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            entries.add(new RedisEntry<>("purge:tenant-1:" + i, "v", 0));
+        }
+        entries.add(new RedisEntry<>("purge:tenant-2:0", "v", 0));
+        redisService.msetWithExpire(entries);
+
+        PurgeResult expired = redisService.expireByPattern(RedisTypeEnum.STRING, "purge:tenant-2:*", 60);
+        Assert.assertEquals(1, expired.getAffected());
+        Assert.assertTrue(redisService.getExpireTime(RedisTypeEnum.STRING, "purge:tenant-2:0") > 0);
+
+        PurgeResult purged = redisService.deleteByPattern(RedisTypeEnum.STRING, "purge:tenant-1:*");
+        Assert.assertEquals(1200, purged.getAffected());
+        Assert.assertFalse(redisService.hasKey(RedisTypeEnum.STRING, "purge:tenant-1:7"));
+        Assert.assertTrue(redisService.hasKey(RedisTypeEnum.STRING, "purge:tenant-2:0"));
+        redisService.delete(RedisTypeEnum.STRING, "purge:tenant-2:0");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void msetWithExpire() {
+        List<RedisEntry<Person>> entries = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            entries.add(new RedisEntry<>("bulk-person-" + i, new Person(String.valueOf(i), "ruan", "weimin", i), i % 2 == 0 ? 60 : 0));
+            keys.add("bulk-person-" + i);
+        }
+        List<Boolean> results = redisService.msetWithExpire(entries);
+        Assert.assertEquals(20, results.size());
+        Assert.assertTrue(results.stream().allMatch(Boolean::booleanValue));
+        Person person = redisService.getObjectByKey("bulk-person-3");
+        Assert.assertEquals(3, person.getAge());
+        Assert.assertTrue(redisService.getExpireTime(RedisTypeEnum.STRING, "bulk-person-2") > 0);
+        Assert.assertEquals(Long.valueOf(-1), redisService.getExpireTime(RedisTypeEnum.STRING, "bulk-person-3"));
+        redisService.deleteAll(RedisTypeEnum.STRING, keys);
+    }
+
+    @Test
+    public void hmsetWithExpire() {
+        List<RedisEntry<Map<String, String>>> entries = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Map<String, String> fields = new HashMap<>();
+            fields.put("name", "name-" + i);
+            fields.put("index", String.valueOf(i));
+            entries.add(new RedisEntry<>("bulk-hash-" + i, fields, i % 3 == 0 ? 0 : 60));
+            keys.add("bulk-hash-" + i);
+        }
+        // 空Map不应使同一管道中的其他条目失败
+        entries.add(3, new RedisEntry<>("bulk-hash-empty", Collections.emptyMap(), 60));
+        List<Boolean> results = redisService.hmsetWithExpire(entries);
+        Assert.assertEquals(11, results.size());
+        Assert.assertFalse(results.remove(3));
+        Assert.assertTrue(results.stream().allMatch(Boolean::booleanValue));
+        Assert.assertFalse(redisService.hasKey(RedisTypeEnum.HASH, "bulk-hash-empty"));
+        Assert.assertEquals("name-4", redisService.hget("bulk-hash-4", "name"));
+        Assert.assertTrue(redisService.getExpireTime(RedisTypeEnum.HASH, "bulk-hash-4") > 0);
+        redisService.deleteAll(RedisTypeEnum.HASH, keys);
+    }
+
+    @Test
+    public void executeScriptFallsBackAfterFlush() {
+        redisService.registerScript("test:compareAndSet",
+                "if redis.call('get', KEYS[1]) == ARGV[1] then redis.call('set', KEYS[1], ARGV[2]) return 1 end return 0",
+                ReturnType.INTEGER);
+        redisService.registerScript("test:get", "return redis.call('get', KEYS[1])", ReturnType.VALUE);
+        List<String> keys = Collections.singletonList("script-cas");
+        stringRedisTemplate.opsForValue().set(redisServiceKey("script-cas"), "1");
+
+        Long swapped = redisService.executeScript("test:compareAndSet", RedisTypeEnum.STRING, keys, "1", "2");
+        Assert.assertEquals(Long.valueOf(1), swapped);
+        stringRedisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.scriptFlush();
+            return null;
+        });
+        Long notSwapped = redisService.executeScript("test:compareAndSet", RedisTypeEnum.STRING, keys, "1", "3");
+        Assert.assertEquals(Long.valueOf(0), notSwapped);
+        Assert.assertEquals("2", redisService.executeScript("test:get", RedisTypeEnum.STRING, keys));
+        stringRedisTemplate.delete(redisServiceKey("script-cas"));
+    }
+
+    @Test
+    public void typedListOperationsReadLegacyEntries() {
+        String listKey = redisKeyGenerator.getKey(RedisTypeEnum.LIST, "typed-list");
+        stringRedisTemplate.delete(listKey);
+        stringRedisTemplate.delete("typed-list");
+        redisService.rPush("typed-list", new Person("legacy-1", "ruan", "weimin", 18));
+        Assert.assertEquals("legacy-1", redisService.lRangeLegacy("typed-list", 0, -1, Person.class).get(0).getId());
+
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            persons.add(new Person("typed-" + i, "ruan", "weimin", 18));
+        }
+        Assert.assertEquals(Long.valueOf(3), redisService.rPushAll("typed-list", persons));
+        Assert.assertEquals(Long.valueOf(3), redisService.lLenTyped("typed-list"));
+        Assert.assertEquals(Long.valueOf(4), redisService.lLenTyped("typed-list", true));
+        redisService.lTrim("typed-list", 0, 1);
+        List<Person> range = redisService.lRange("typed-list", 0, -1);
+        Assert.assertEquals(2, range.size());
+        Assert.assertEquals("typed-1", range.get(1).getId());
+
+        // 先弹出旧数据，再弹出新数据
+        Assert.assertEquals("legacy-1", redisService.lPopTyped("typed-list", Person.class).getId());
+        Assert.assertEquals("typed-0", redisService.lPopTyped("typed-list", Person.class).getId());
+        Person last = redisService.lPopTyped("typed-list");
+        Assert.assertEquals("typed-1", last.getId());
+        Assert.assertNull(redisService.lPopTyped("typed-list", Person.class));
+        Assert.assertEquals(Long.valueOf(0), redisService.lLenTyped("typed-list", true));
+    }
+
+    @Test
+    public void sortedSetLeaderboard() {
+        redisService.delete(RedisTypeEnum.SORTED_SET, "leaderboard");
+        Map<String, Double> scores = new HashMap<>();
+        for (int i = 0; i < 2500; i++) {
+            scores.put("player-" + i, (double) i);
+        }
+        Assert.assertEquals(2500, redisService.zadd("leaderboard", scores));
+        Assert.assertEquals(Long.valueOf(2500), redisService.zcard("leaderboard"));
+
+        Map<String, Double> deltas = new LinkedHashMap<>();
+        deltas.put("player-0", 5000d);
+        deltas.put("player-1", 4000d);
+        Assert.assertEquals(Arrays.asList(5000d, 4001d), redisService.zincrbyAll("leaderboard", deltas));
+        Assert.assertEquals(Arrays.asList("player-0", "player-1", "player-2499"),
+                new ArrayList<>(redisService.<String>zrevrangeWithScores("leaderboard", 0, 2).keySet()));
+        Assert.assertEquals(Long.valueOf(1), redisService.zrevrank("leaderboard", "player-1"));
+        Assert.assertEquals(Arrays.asList("player-12", "player-13"),
+                new ArrayList<>(redisService.<String>zrangeByScore("leaderboard", 10, 20, 2, 2).keySet()));
+
+        Map<String, Double> lowest = redisService.zpopmin("leaderboard", 2);
+        Assert.assertEquals(Arrays.asList("player-2", "player-3"), new ArrayList<>(lowest.keySet()));
+        Assert.assertEquals(Double.valueOf(2), lowest.get("player-2"));
+        Assert.assertEquals(Collections.singletonList("player-0"), new ArrayList<>(redisService.<String>zpopmax("leaderboard", 1).keySet()));
+        Assert.assertEquals(Long.valueOf(96), redisService.zremrangeByScore("leaderboard", 0, 99));
+        try (Stream<Map.Entry<String, Double>> members = redisService.zscan("leaderboard", 500)) {
+            Assert.assertEquals(2401, members.map(Map.Entry::getKey).distinct().count());
+        }
+        redisService.delete(RedisTypeEnum.SORTED_SET, "leaderboard");
+    }
+
+    private String redisServiceKey(String key) {
+        return redisKeyGenerator.getKey(RedisTypeEnum.STRING, key);
+    }
+}
@@ -0,0 +1,97 @@
+package com.xinyan.stream;
+
+import com.xinyan.ConsumerTestSupport;
+import com.xinyan.domain.Person;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.xinyan.ConsumerTestSupport.await;
+import static com.xinyan.ConsumerTestSupport.persons;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"redis.stream.claim-idle-millis=200", "redis.stream.claim-interval-millis=100", "redis.stream.block-millis=200"})
+public class RedisStreamServiceTests {
+
+    @Autowired
+    RedisStreamService streamService;
+
+    @Test
+    public void readAckAndClaim() throws Exception {
+        streamService.delete("test-stream");
+        Assert.assertTrue(streamService.createGroup("test-stream", "group"));
+        Assert.assertFalse(streamService.createGroup("test-stream", "group"));
+        streamService.addAll("test-stream", Arrays.asList("a", "b", "c"), 1000);
+
+        List<StreamRecord<String>> records = streamService.read("test-stream", "group", "consumer-1", 10);
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), payloads(records));
+        Assert.assertEquals(2, streamService.ack("test-stream", "group", Arrays.asList(records.get(0).getId(), records.get(1).getId())));
+        Assert.assertEquals(1, streamService.pending("test-stream", "group"));
+        Assert.assertTrue(streamService.read("test-stream", "group", "consumer-2", 10, 100).isEmpty());
+
+        // 未空闲超时的消息不能被认领
+        Assert.assertTrue(streamService.claim("test-stream", "group", "consumer-2", 10000, 10).isEmpty());
+        Thread.sleep(300);
+        List<StreamRecord<String>> claimed = streamService.claim("test-stream", "group", "consumer-2", 200, 10);
+        Assert.assertEquals(Collections.singletonList("c"), payloads(claimed));
+        Assert.assertEquals(1, streamService.ack("test-stream", "group", Collections.singletonList(claimed.get(0).getId())));
+        Assert.assertEquals(0, streamService.pending("test-stream", "group"));
+        streamService.delete("test-stream");
+    }
+
+    @Test
+    public void consumerGroupProcessesAll() throws Exception {
+        streamService.delete("test-stream-pool");
+        Set<String> handled = ConcurrentHashMap.newKeySet();
+        Set<String> failed = ConcurrentHashMap.newKeySet();
+        try (StreamConsumer consumer = streamService.consume("test-stream-pool", "group", 4, 10, (Person person) -> {
+            // 部分消息第一次处理失败，空闲超时后被认领重新处理
+            if (failed.add(person.getId()) && Integer.parseInt(person.getId()) % 50 == 0) {
+                throw new IllegalStateException("fail once");
+            }
+            handled.add(person.getId());
+        })) {
+            streamService.addAll("test-stream-pool", persons(200), 1000);
+            await(() -> handled.size() == 200 && streamService.pending("test-stream-pool", "group") == 0, 10);
+        }
+        Assert.assertEquals(200, handled.size());
+        Assert.assertEquals(0, streamService.pending("test-stream-pool", "group"));
+        Assert.assertEquals(200, streamService.size("test-stream-pool"));
+        streamService.delete("test-stream-pool");
+    }
+
+    @Test
+    public void pollerRecreatedAfterConnectionFailure() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicInteger polls = new AtomicInteger();
+        StreamConsumer consumer = new StreamConsumer("test-stream-retry", "group", 1);
+        consumer.start(index -> {
+            // 模拟启动时Redis不可用，第一次获取连接失败
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("connection refused");
+            }
+            return polls::incrementAndGet;
+        });
+        try {
+            await(() -> polls.get() > 0, 5);
+        } finally {
+            consumer.close();
+        }
+        Assert.assertEquals(2, attempts.get());
+        Assert.assertTrue(polls.get() > 0);
+    }
+
+    private static <T> List<T> payloads(List<StreamRecord<T>> records) {
+        return ConsumerTestSupport.payloads(records, StreamRecord::getPayload);
+    }
+}